@@ -0,0 +1,178 @@
+package com.example.myfirebaseapp;
+
+import android.content.Context;
+
+import androidx.annotation.Nullable;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.myfirebaseapp.models.User;
+import com.example.myfirebaseapp.repository.UserRepository;
+import com.example.myfirebaseapp.repository.UserSchema;
+import com.example.myfirebaseapp.repository.UserSchemaMigrator;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.FirebaseApp;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreSettings;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.android.schedulers.AndroidSchedulers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Instrumented test of the users' migration, run against the Firestore emulator:
+ * firebase emulators:start --only firestore
+ */
+@RunWith(AndroidJUnit4.class)
+public class UserSchemaMigratorInstrumentedTest {
+
+    // The host machine, seen from the Android emulator
+    private static final String EMULATOR_HOST = "10.0.2.2";
+    private static final int EMULATOR_PORT = 8080;
+    private static final String APP_NAME = "emulator";
+
+    private FirebaseFirestore firestore;
+    private CollectionReference users;
+
+    @Before
+    public void setUp() throws Exception {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        // The default instance is already used by the application, the emulator gets its own
+        FirebaseApp app;
+        try {
+            app = FirebaseApp.getInstance(APP_NAME);
+        } catch (IllegalStateException e) {
+            app = FirebaseApp.initializeApp(context, FirebaseApp.getInstance().getOptions(), APP_NAME);
+            FirebaseFirestore.getInstance(app).useEmulator(EMULATOR_HOST, EMULATOR_PORT);
+            FirebaseFirestore.getInstance(app).setFirestoreSettings(new FirebaseFirestoreSettings.Builder()
+                    .setPersistenceEnabled(false)
+                    .build());
+        }
+        firestore = FirebaseFirestore.getInstance(app);
+        users = firestore.collection(UserRepository.USER_COLLECTION_NAME);
+
+        QuerySnapshot existing = Tasks.await(users.get());
+        for (DocumentSnapshot snapshot : existing.getDocuments()) {
+            Tasks.await(snapshot.getReference().delete());
+        }
+        Tasks.await(firestore.collection(UserSchemaMigrator.MIGRATION_COLLECTION_NAME)
+                .document(UserSchemaMigrator.PROGRESS_DOCUMENT_NAME).delete());
+
+        for (int i = 0; i < 5; i++) {
+            Tasks.await(users.document("user" + i).set(legacyUser(i)));
+        }
+    }
+
+    private static Map<String, Object> legacyUser(int i) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("uid", "user" + i);
+        data.put(UserSchema.LEGACY_USERNAME_FIELD, "Workmate " + i);
+        data.put(UserSchema.LEGACY_RESTAURANT_ID_FIELD, "place" + i);
+        data.put(UserSchema.LEGACY_LIKE_FIELD, Arrays.asList("place1", "place2"));
+        return data;
+    }
+
+    private Result migrate(UserSchemaMigrator migrator) throws InterruptedException {
+        final Result result = new Result();
+        final CountDownLatch latch = new CountDownLatch(1);
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> migrator.start(new UserSchemaMigrator.ProgressListener() {
+            @Override
+            public void onProgress(long scanned, long migrated) {
+                result.progressCount++;
+            }
+
+            @Override
+            public void onComplete(long migrated) {
+                result.migrated = migrated;
+                latch.countDown();
+            }
+
+            @Override
+            public void onError(@Nullable Exception e) {
+                result.error = e;
+                latch.countDown();
+            }
+        }));
+        assertTrue(latch.await(30, TimeUnit.SECONDS));
+        return result;
+    }
+
+    private UserSchemaMigrator newMigrator() {
+        return new UserSchemaMigrator(firestore, UserSchema.MIGRATIONS, 2, 0, AndroidSchedulers.mainThread());
+    }
+
+    @Test
+    public void everyDocumentIsMigratedInChunks() throws Exception {
+        Result result = migrate(newMigrator());
+
+        assertEquals(null, result.error);
+        assertEquals(5, result.migrated);
+        // 2 + 2 documents, then the last chunk completes
+        assertEquals(2, result.progressCount);
+
+        DocumentSnapshot user = Tasks.await(users.document("user3").get());
+        assertEquals("Workmate 3", user.getString(UserSchema.USERNAME_FIELD));
+        assertEquals("place3", user.getString(UserSchema.RESTAURANT_ID_FIELD));
+        assertEquals(Arrays.asList("place1", "place2"), user.get(UserSchema.LIKE_FIELD));
+        assertEquals(Long.valueOf(User.SCHEMA_VERSION), user.getLong(UserSchema.SCHEMA_VERSION_FIELD));
+        assertFalse(user.contains(UserSchema.LEGACY_USERNAME_FIELD));
+        assertFalse(user.contains(UserSchema.LEGACY_RESTAURANT_ID_FIELD));
+        assertFalse(user.contains(UserSchema.LEGACY_LIKE_FIELD));
+
+        // The read path finds the workmates on the canonical field
+        QuerySnapshot eating = Tasks.await(users.whereEqualTo(UserSchema.RESTAURANT_ID_FIELD, "place3").get());
+        assertEquals(1, eating.size());
+    }
+
+    @Test
+    public void stoppedMigrationResumesAfterTheLastChunk() throws Exception {
+        // A first run which stopped after the two first documents
+        Map<String, Object> progress = new HashMap<>();
+        progress.put("version", User.SCHEMA_VERSION);
+        progress.put("lastDocumentId", "user1");
+        progress.put("scanned", 2);
+        progress.put("migrated", 2);
+        progress.put("done", false);
+        Tasks.await(newMigrator().getProgressDocument().set(progress));
+
+        Result result = migrate(newMigrator());
+
+        assertEquals(5, result.migrated);
+        assertTrue(Tasks.await(users.document("user0").get()).contains(UserSchema.LEGACY_USERNAME_FIELD));
+        assertFalse(Tasks.await(users.document("user4").get()).contains(UserSchema.LEGACY_USERNAME_FIELD));
+    }
+
+    @Test
+    public void completedMigrationOnlyReadsItsProgress() throws Exception {
+        migrate(newMigrator());
+        Tasks.await(users.document("user9").set(legacyUser(9)));
+
+        Result result = migrate(newMigrator());
+
+        assertEquals(5, result.migrated);
+        assertEquals(0, result.progressCount);
+        assertTrue(Tasks.await(users.document("user9").get()).contains(UserSchema.LEGACY_USERNAME_FIELD));
+    }
+
+
+    private static class Result {
+        private long migrated;
+        private int progressCount;
+        private Exception error;
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.myfirebaseapp;
+
+import androidx.multidex.MultiDexApplication;
+
+import com.example.myfirebaseapp.api.FirestoreCache;
+import com.example.myfirebaseapp.repository.ChatUploadQueue;
+import com.example.myfirebaseapp.repository.CurrentUserRepository;
+import com.example.myfirebaseapp.service.RetrofitService;
+
+/**
+ * Application class, sets up the process-wide services before the first screen starts.
+ */
+public class Go4LunchApplication extends MultiDexApplication {
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        RetrofitService.init(this);
+        FirestoreCache.init();
+        ChatUploadQueue.init(this);
+        CurrentUserRepository.getInstance().start();
+    }
+}
@@ -1,51 +1,133 @@
 package com.example.myfirebaseapp.api;
 
+import androidx.annotation.Nullable;
+
+import com.example.myfirebaseapp.models.ChatRoom;
 import com.example.myfirebaseapp.models.Message;
 import com.google.android.gms.tasks.Task;
 import com.google.firebase.firestore.CollectionReference;
 import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.HashMap;
+import java.util.Map;
 
 /**
- * Class contains the various requests of the CRUD network concerning the chat' collection
+ * Class contains the various requests of the CRUD network concerning the chat rooms.
+ * Each room is a document of the rooms' collection, with its messages in its messages
+ * subcollection and the count of messages each workmate read in its members subcollection, so
+ * that a listener only receives the messages of the room it shows.
  */
 
 public class ChatHelper {
 
 
     // --- Attribute ---
-    public static final String COLLECTION_NAME = "chats";
+    public static final String ROOM_COLLECTION_NAME = "rooms";
+    public static final String MESSAGE_COLLECTION_NAME = "messages";
+    public static final String MEMBER_COLLECTION_NAME = "members";
+    public static final String DATE_CREATED_FIELD = "dateCreated";
+    public static final String MESSAGE_COUNT_FIELD = "messageCount";
+    public static final String LAST_MESSAGE_DATE_FIELD = "lastMessageDate";
+    public static final String READ_COUNT_FIELD = "readCount";
 
     // --- COLLECTION REFERENCE ---
-    public static CollectionReference getChatCollection() {
-        return FirebaseFirestore.getInstance().collection(COLLECTION_NAME);
+    public static CollectionReference getRoomCollection() {
+        return FirebaseFirestore.getInstance().collection(ROOM_COLLECTION_NAME);
+    }
+
+    public static DocumentReference getRoom(String roomId) {
+        return getRoomCollection().document(roomId);
+    }
+
+    public static CollectionReference getMessageCollection(String roomId) {
+        return getRoom(roomId).collection(MESSAGE_COLLECTION_NAME);
+    }
+
+    public static DocumentReference getMember(String roomId, String uid) {
+        return getRoom(roomId).collection(MEMBER_COLLECTION_NAME).document(uid);
     }
 
 
     // --- GET ---
-    public static Query getAllMessageForChat(String chat) {
-        return FirebaseFirestore.getInstance()
+    // The newest messages, newest first
+    public static Query getNewestMessages(CollectionReference messages, int limit) {
+        return messages
+                .orderBy(DATE_CREATED_FIELD, Query.Direction.DESCENDING)
+                .limit(limit);
+    }
 
-                .collection(COLLECTION_NAME)
-                .orderBy("dateCreated")
-                .limit(50);
+    // The messages sent before a loaded one, newest first
+    public static Query getMessagesBefore(CollectionReference messages, DocumentSnapshot oldest, int limit) {
+        return messages
+                .orderBy(DATE_CREATED_FIELD, Query.Direction.DESCENDING)
+                .startAfter(oldest)
+                .limit(limit);
+    }
+
+    // The messages sent after a loaded one, oldest first, all of them without one
+    public static Query getMessagesAfter(CollectionReference messages, @Nullable DocumentSnapshot newest) {
+        Query query = messages.orderBy(DATE_CREATED_FIELD, Query.Direction.ASCENDING);
+        return newest != null ? query.startAfter(newest) : query;
     }
 
     // --- CREATE ---
-    public static Task<DocumentReference> createMessageForChat(Message message) {
-        return ChatHelper
-                .getChatCollection()
-                .add(message);
+
+    /**
+     * Adds a message to a room, and counts it in the room in the same batch. The room is
+     * created by its first message.
+     */
+    public static Task<Void> createMessageForChat(ChatRoom room, Message message) {
+        return createMessageForChat(room, getMessageCollection(room.getId()).document(), message);
     }
 
+    /**
+     * Adds a message whose image was uploaded from the queue, under the id of its upload. The
+     * message is only written, and counted, if it does not exist yet: an upload posting its
+     * message again, e.g. after the app was killed, does not count it twice.
+     */
+    public static Task<Void> createMessageWithImageForChat(ChatRoom room, String messageId, Message message) {
+        final DocumentReference messageReference = getMessageCollection(room.getId()).document(messageId);
+        return FirebaseFirestore.getInstance().runTransaction(transaction -> {
+            if (transaction.get(messageReference).exists()) {
+                return null;
+            }
+            transaction.set(messageReference, message);
+            transaction.set(getRoom(room.getId()), getCountedMessage(room), SetOptions.merge());
+            return null;
+        });
+    }
 
-    public static Task<DocumentReference> createMessageWithImageForChat(Message message) {
-        return ChatHelper
-                .getChatCollection()
-                .add(message);
+    private static Task<Void> createMessageForChat(ChatRoom room, DocumentReference messageReference, Message message) {
+        WriteBatch batch = FirebaseFirestore.getInstance().batch();
+        batch.set(messageReference, message);
+        batch.set(getRoom(room.getId()), getCountedMessage(room), SetOptions.merge());
+        return batch.commit();
     }
 
-}
+    // The room, created by its first message, counts one more message
+    private static Map<String, Object> getCountedMessage(ChatRoom room) {
+        Map<String, Object> update = new HashMap<>();
+        update.put("name", room.getName());
+        update.put("placeId", room.getPlaceId());
+        update.put("day", room.getDay());
+        update.put(MESSAGE_COUNT_FIELD, FieldValue.increment(1));
+        update.put(LAST_MESSAGE_DATE_FIELD, FieldValue.serverTimestamp());
+        return update;
+    }
+
+    // --- UPDATE ---
 
+    // Only the reader's own document is written, whatever the traffic of the room
+    public static Task<Void> updateReadCount(String roomId, String uid, long readCount) {
+        Map<String, Object> update = new HashMap<>();
+        update.put(READ_COUNT_FIELD, readCount);
+        return getMember(roomId, uid).set(update, SetOptions.merge());
+    }
 
+}
@@ -0,0 +1,54 @@
+package com.example.myfirebaseapp.api;
+
+import android.net.Uri;
+
+import androidx.annotation.Nullable;
+
+import com.google.firebase.storage.FirebaseStorage;
+import com.google.firebase.storage.StorageMetadata;
+import com.google.firebase.storage.StorageReference;
+import com.google.firebase.storage.UploadTask;
+
+/**
+ * Class contains the uploads to Firebase Storage of the images sent in the chat
+ */
+
+public class ChatStorageHelper {
+
+    // --- Attribute ---
+    public static final String IMAGE_CONTENT_TYPE = "image/webp";
+    // An image is never rewritten under its name, recipients may keep it as long as they want
+    public static final String IMAGE_CACHE_CONTROL = "public, max-age=31536000";
+    private static final String IMAGE_EXTENSION = ".webp";
+    private static final String THUMBNAIL_SUFFIX = "_thumb";
+
+    // --- Constructor ---
+    public ChatStorageHelper() {
+        // Empty constructor
+    }
+
+    // --- REFERENCE ---
+    public static StorageReference getImage(String imageId) {
+        return FirebaseStorage.getInstance().getReference(imageId + IMAGE_EXTENSION);
+    }
+
+    public static StorageReference getThumbnail(String imageId) {
+        return FirebaseStorage.getInstance().getReference(imageId + THUMBNAIL_SUFFIX + IMAGE_EXTENSION);
+    }
+
+    // --- CREATE ---
+
+    /**
+     * Uploads an encoded image saved on the device.
+     *
+     * @param sessionUri the session of a previous upload of the file, which goes on from the
+     *                   bytes the server already has, or null to start a new upload.
+     */
+    public static UploadTask uploadImage(StorageReference reference, Uri file, @Nullable Uri sessionUri) {
+        StorageMetadata metadata = new StorageMetadata.Builder()
+                .setContentType(IMAGE_CONTENT_TYPE)
+                .setCacheControl(IMAGE_CACHE_CONTROL)
+                .build();
+        return sessionUri != null ? reference.putFile(file, metadata, sessionUri) : reference.putFile(file, metadata);
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.myfirebaseapp.api;
+
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreSettings;
+
+/**
+ * Local cache of Firestore. Persistence is on, with a bounded size, so that the snapshot
+ * listeners and the reads of {@link ReadPolicy} paint from disk before the server answers, also
+ * after a restart of the app.
+ */
+
+public class FirestoreCache {
+
+    // --- Attribute ---
+    public static final long CACHE_SIZE_BYTES = 40L * 1024 * 1024;
+
+    // --- Constructor ---
+    public FirestoreCache() {
+        // Empty constructor
+    }
+
+    /**
+     * Applies the settings, before any other use of the default Firestore instance.
+     */
+    public static void init() {
+        FirebaseFirestore.getInstance().setFirestoreSettings(new FirebaseFirestoreSettings.Builder()
+                .setPersistenceEnabled(true)
+                .setCacheSizeBytes(CACHE_SIZE_BYTES)
+                .build());
+    }
+}
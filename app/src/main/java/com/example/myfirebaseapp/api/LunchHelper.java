@@ -0,0 +1,100 @@
+package com.example.myfirebaseapp.api;
+
+import androidx.annotation.Nullable;
+
+import com.example.myfirebaseapp.models.LunchChoice;
+import com.example.myfirebaseapp.utils.TimeUtils;
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Class contains the various requests of the CRUD network concerning the lunch choices.
+ * The choices of a day live in their own partition, lunches/{yyyy-MM-dd}/choices/{uid}, with the
+ * workmate and the restaurant denormalized into them. Reading who is eating where only reads the
+ * small partition of today, and yesterday's choices stop counting at midnight without any write.
+ */
+
+public class LunchHelper {
+
+    // --- Attribute ---
+    public static final String COLLECTION_NAME = "lunches";
+    public static final String CHOICE_COLLECTION_NAME = "choices";
+    public static final String PLACE_ID_FIELD = "placeId";
+
+    // --- Constructor ---
+    public LunchHelper() {
+        // Empty constructor
+    }
+
+    // --- COLLECTION REFERENCE ---
+    public static CollectionReference getChoicesCollection(String day) {
+        return FirebaseFirestore.getInstance()
+                .collection(COLLECTION_NAME)
+                .document(day)
+                .collection(CHOICE_COLLECTION_NAME);
+    }
+
+    public static CollectionReference getTodayChoicesCollection() {
+        return getChoicesCollection(TimeUtils.getToday());
+    }
+
+    // --- GET ---
+    public static Query getTodayChoicesForRestaurant(String placeId) {
+        return getTodayChoicesCollection().whereEqualTo(PLACE_ID_FIELD, placeId);
+    }
+
+    public static List<LunchChoice> getChoices(QuerySnapshot snapshots) {
+        List<LunchChoice> choices = new ArrayList<>();
+        for (DocumentSnapshot snapshot : snapshots.getDocuments()) {
+            LunchChoice choice = snapshot.toObject(LunchChoice.class);
+            if (choice != null) {
+                choices.add(choice);
+            }
+        }
+        return choices;
+    }
+
+    // --- UPDATE ---
+
+    /**
+     * Adds the lunch choice of a user for a day to a batch: the choice in the partition of the
+     * day, the participants of the restaurants left and joined (see {@link RestaurantHelper}),
+     * and the restaurantId of the user's document, which is only valid on that day.
+     *
+     * @param previousId the restaurant of the day the user leaves, or null.
+     * @param choice     the choice, or null to leave the restaurant of the day.
+     */
+    public static void setChoice(WriteBatch batch, String uid, String day, @Nullable String previousId, @Nullable LunchChoice choice) {
+        RestaurantHelper.setParticipant(batch, uid, day, previousId, choice);
+
+        DocumentReference userRef = UserHelper.getUsersCollection().document(uid);
+        DocumentReference choiceRef = getChoicesCollection(day).document(uid);
+
+        if (choice != null) {
+            batch.set(choiceRef, choice);
+            batch.update(userRef, "restaurantId", choice.getPlaceId(),
+                    "selectedRestaurantName", choice.getRestaurantName(),
+                    "lunchDay", day,
+                    "currentTime", choice.getCurrentTime());
+        } else {
+            batch.delete(choiceRef);
+            batch.update(userRef, "restaurantId", null,
+                    "selectedRestaurantName", null);
+        }
+    }
+
+    public static Task<Void> setChoice(String uid, String day, @Nullable String previousId, @Nullable LunchChoice choice) {
+        WriteBatch batch = FirebaseFirestore.getInstance().batch();
+        setChoice(batch, uid, day, previousId, choice);
+        return batch.commit();
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.myfirebaseapp.api;
+
+import android.util.Log;
+
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.Source;
+
+import io.reactivex.Observable;
+
+/**
+ * Where a one-shot read of Firestore is served from, chosen per call.
+ * CACHE_FIRST_THEN_SERVER emits what the local cache holds at once, then the server's answer;
+ * offline, the cached data is all there is. SERVER_ONLY waits for the server, e.g. before a
+ * write depending on the read, and CACHE_ONLY never goes to the network.
+ */
+public enum ReadPolicy {
+
+    CACHE_FIRST_THEN_SERVER(true, true),
+    SERVER_ONLY(false, true),
+    CACHE_ONLY(true, false);
+
+    private static final String TAG = ReadPolicy.class.getSimpleName();
+
+    private final boolean mReadsCache;
+    private final boolean mReadsServer;
+
+    ReadPolicy(boolean readsCache, boolean readsServer) {
+        mReadsCache = readsCache;
+        mReadsServer = readsServer;
+    }
+
+    // --- GET ---
+
+    /**
+     * @return an Observable emitting the document once per source read, on the main thread.
+     */
+    public Observable<DocumentSnapshot> get(DocumentReference document) {
+        return read(document::get);
+    }
+
+    /**
+     * @return an Observable emitting the result of the query once per source read, on the main
+     * thread.
+     */
+    public Observable<QuerySnapshot> get(Query query) {
+        return read(query::get);
+    }
+
+    private <T> Observable<T> read(final Reader<T> reader) {
+        return Observable.create(emitter -> {
+            if (!mReadsCache || !mReadsServer) {
+                reader.get(mReadsCache ? Source.CACHE : Source.SERVER).addOnCompleteListener(task -> {
+                    if (task.isSuccessful() && task.getResult() != null) {
+                        emitter.onNext(task.getResult());
+                        emitter.onComplete();
+                    } else {
+                        emitter.tryOnError(task.getException());
+                    }
+                });
+                return;
+            }
+
+            reader.get(Source.CACHE).addOnCompleteListener(cache -> {
+                // A document missing from the cache fails, a query gives an empty result
+                final boolean painted = cache.isSuccessful() && hasData(cache.getResult());
+                if (painted) {
+                    emitter.onNext(cache.getResult());
+                }
+                reader.get(Source.SERVER).addOnCompleteListener(server -> {
+                    if (server.isSuccessful() && server.getResult() != null) {
+                        emitter.onNext(server.getResult());
+                        emitter.onComplete();
+                    } else if (painted) {
+                        Log.w(TAG, "read: the server is not reachable, the cached data stays", server.getException());
+                        emitter.onComplete();
+                    } else {
+                        emitter.tryOnError(server.getException());
+                    }
+                });
+            });
+        });
+    }
+
+    private static boolean hasData(Object snapshot) {
+        if (snapshot instanceof DocumentSnapshot) {
+            return ((DocumentSnapshot) snapshot).exists();
+        }
+        if (snapshot instanceof QuerySnapshot) {
+            return !((QuerySnapshot) snapshot).isEmpty();
+        }
+        return snapshot != null;
+    }
+
+    private interface Reader<T> {
+        Task<T> get(Source source);
+    }
+}
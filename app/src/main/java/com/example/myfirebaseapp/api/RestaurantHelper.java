@@ -0,0 +1,119 @@
+package com.example.myfirebaseapp.api;
+
+import androidx.annotation.Nullable;
+
+import com.example.myfirebaseapp.models.LunchChoice;
+import com.example.myfirebaseapp.models.User;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Class contains the various requests of the CRUD network concerning the restaurants joined on a
+ * day. A lunches/{day}/restaurants/{placeId} document is the aggregate of the workmates joining a
+ * restaurant that day, so it starts empty every day like the choices partition. Its participants
+ * are split over {@link #NUM_SHARDS} shard documents, a workmate always writing to the same
+ * shard, so that a rush on one restaurant does not serialize on a single document. Joining and
+ * leaving set or delete the workmate's entry, so a write sent twice never counts twice. The
+ * count of a restaurant is the number of entries of its shards, the restaurant document itself
+ * is never written, and the counts of the list come from the choices partition of the day.
+ */
+
+public class RestaurantHelper {
+
+    // --- Attribute ---
+    public static final String COLLECTION_NAME = "restaurants";
+    public static final String SHARD_COLLECTION_NAME = "shards";
+    public static final int NUM_SHARDS = 5;
+    public static final String PARTICIPANTS_FIELD = "participants";
+
+    // --- Constructor ---
+    public RestaurantHelper() {
+        // Empty constructor
+    }
+
+    // --- COLLECTION REFERENCE ---
+    public static CollectionReference getRestaurantsCollection(String day) {
+        return FirebaseFirestore.getInstance()
+                .collection(LunchHelper.COLLECTION_NAME)
+                .document(day)
+                .collection(COLLECTION_NAME);
+    }
+
+    public static CollectionReference getShardsCollection(String day, String placeId) {
+        return getRestaurantsCollection(day).document(placeId).collection(SHARD_COLLECTION_NAME);
+    }
+
+    // --- UPDATE ---
+
+    /**
+     * Adds the change of restaurant of a user for a day to a batch, without reading anything,
+     * so that it is sent with the lunch choice. The previous restaurant is the one of the
+     * user's document as last read.
+     *
+     * @param previousId the restaurant the user leaves, or null.
+     * @param choice     the lunch choice, or null to leave the current restaurant.
+     */
+    public static void setParticipant(WriteBatch batch, String uid, String day, @Nullable String previousId, @Nullable LunchChoice choice) {
+        String shardId = String.valueOf(shardFor(uid));
+        String placeId = choice != null ? choice.getPlaceId() : null;
+
+        if (previousId != null && !previousId.isEmpty() && !previousId.equals(placeId)) {
+            Map<String, Object> leave = new HashMap<>();
+            leave.put(PARTICIPANTS_FIELD, Collections.singletonMap(uid, FieldValue.delete()));
+            batch.set(getShardsCollection(day, previousId).document(shardId), leave, SetOptions.merge());
+        }
+
+        if (choice != null) {
+            Map<String, Object> participant = new HashMap<>();
+            participant.put("uid", uid);
+            participant.put("username", choice.getUsername());
+            participant.put("urlPicture", choice.getUrlPicture());
+
+            Map<String, Object> join = new HashMap<>();
+            join.put(PARTICIPANTS_FIELD, Collections.singletonMap(uid, participant));
+            batch.set(getShardsCollection(day, placeId).document(shardId), join, SetOptions.merge());
+        }
+    }
+
+    // --- READ ---
+
+    /**
+     * @return the workmates joining a restaurant, read from the participants of its shards.
+     */
+    @SuppressWarnings("unchecked")
+    public static List<User> getParticipants(String placeId, QuerySnapshot shards) {
+        List<User> users = new ArrayList<>();
+        for (DocumentSnapshot shard : shards.getDocuments()) {
+            Object participants = shard.get(PARTICIPANTS_FIELD);
+            if (!(participants instanceof Map)) {
+                continue;
+            }
+            for (Object value : ((Map<String, Object>) participants).values()) {
+                if (value instanceof Map) {
+                    Map<String, Object> participant = (Map<String, Object>) value;
+                    users.add(new User((String) participant.get("uid"), (String) participant.get("username"),
+                            (String) participant.get("urlPicture"), placeId, 0));
+                }
+            }
+        }
+        return users;
+    }
+
+    /**
+     * @return the shard a user always writes to.
+     */
+    public static int shardFor(String uid) {
+        return (uid.hashCode() & Integer.MAX_VALUE) % NUM_SHARDS;
+    }
+}
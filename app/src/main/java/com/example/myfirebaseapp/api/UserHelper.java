@@ -2,7 +2,9 @@ package com.example.myfirebaseapp.api;
 
 import androidx.annotation.Nullable;
 
+import com.example.myfirebaseapp.models.LunchChoice;
 import com.example.myfirebaseapp.models.User;
+import com.example.myfirebaseapp.utils.TimeUtils;
 import com.google.android.gms.tasks.Task;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
@@ -10,6 +12,7 @@ import com.google.firebase.firestore.CollectionReference;
 import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.WriteBatch;
 
 /**
  * Class contains the various requests of the CRUD network concerning the users' collection
@@ -57,10 +60,9 @@ public class UserHelper {
                 .update("username", username);
     }
 
-    public static Task<Void> updateRestaurantId(String uid, String placeId, int currentTime) {
-        return UserHelper.getUsersCollection()
-                .document(uid)
-                .update("restaurantId", placeId, "currentTime", currentTime);
+    // The choice is written to the partition of its day in the same batch
+    public static Task<Void> updateRestaurantId(String uid, @Nullable String previousId, LunchChoice choice) {
+        return LunchHelper.setChoice(uid, choice.getDay(), previousId, choice);
     }
 
     public static Task<Void> updateLike(String uid, String placeId) {
@@ -69,12 +71,16 @@ public class UserHelper {
                 .update("like", FieldValue.arrayUnion(placeId));
     }
 
+    // Adds or removes a like in a batch of writes of the user
+    public static void updateLike(WriteBatch batch, String uid, String placeId, boolean liked) {
+        batch.update(UserHelper.getUsersCollection().document(uid),
+                "like", liked ? FieldValue.arrayUnion(placeId) : FieldValue.arrayRemove(placeId));
+    }
+
     // --- DELETE ---
 
-    public static Task<Void> deleteRestaurantId(String uid) {
-        return UserHelper.getUsersCollection()
-                .document(uid)
-                .update("restaurantId", null);
+    public static Task<Void> deleteRestaurantId(String uid, @Nullable String previousId) {
+        return LunchHelper.setChoice(uid, TimeUtils.getToday(), previousId, null);
     }
 
     public static Task<Void> deleteLike(String uid, String placeId) {
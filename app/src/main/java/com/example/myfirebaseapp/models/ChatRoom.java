@@ -0,0 +1,89 @@
+package com.example.myfirebaseapp.models;
+
+import androidx.annotation.Nullable;
+
+import com.google.firebase.firestore.Exclude;
+
+import java.util.Date;
+
+/**
+ * Model class for a chat room, whose messages live in its own subcollection: the room of
+ * everyone, or the room of the workmates having lunch in the same restaurant on a day.
+ * The room counts its messages, so that the unread messages of a workmate are this count minus
+ * the count they last read, without any write per message to the workmates.
+ */
+public class ChatRoom {
+
+    // --- ATTRIBUTES ---
+
+    public static final String GLOBAL_ROOM_ID = "global";
+
+    private String id;
+    private String name;
+    @Nullable
+    private String placeId;
+    @Nullable
+    private String day;
+    private long messageCount;
+    @Nullable
+    private Date lastMessageDate;
+
+    // --- CONSTRUCTOR ---
+
+    public ChatRoom() {
+        // Empty Constructor
+    }
+
+    public ChatRoom(String id, String name, @Nullable String placeId, @Nullable String day) {
+        this.id = id;
+        this.name = name;
+        this.placeId = placeId;
+        this.day = day;
+    }
+
+    /**
+     * @param name the name shown for the room of everyone.
+     */
+    public static ChatRoom global(String name) {
+        return new ChatRoom(GLOBAL_ROOM_ID, name, null, null);
+    }
+
+    /**
+     * @return the room of the workmates having lunch in a restaurant on a day.
+     */
+    public static ChatRoom lunch(String day, String placeId, String restaurantName) {
+        return new ChatRoom(getLunchRoomId(day, placeId), restaurantName, placeId, day);
+    }
+
+    public static String getLunchRoomId(String day, String placeId) {
+        return "lunch_" + day + "_" + placeId;
+    }
+
+    /**
+     * @return the messages not read yet, from the count of the room and the count last read.
+     */
+    public static long getUnreadCount(long messageCount, long readCount) {
+        return Math.max(0, messageCount - readCount);
+    }
+
+    // --- GETTERS ---
+    @Exclude
+    public String getId() { return id; }
+    public String getName() { return name; }
+    @Nullable
+    public String getPlaceId() { return placeId; }
+    @Nullable
+    public String getDay() { return day; }
+    public long getMessageCount() { return messageCount; }
+    @Nullable
+    public Date getLastMessageDate() { return lastMessageDate; }
+
+    // --- SETTERS ---
+    @Exclude
+    public void setId(String id) { this.id = id; }
+    public void setName(String name) { this.name = name; }
+    public void setPlaceId(@Nullable String placeId) { this.placeId = placeId; }
+    public void setDay(@Nullable String day) { this.day = day; }
+    public void setMessageCount(long messageCount) { this.messageCount = messageCount; }
+    public void setLastMessageDate(@Nullable Date lastMessageDate) { this.lastMessageDate = lastMessageDate; }
+}
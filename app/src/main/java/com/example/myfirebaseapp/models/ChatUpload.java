@@ -0,0 +1,104 @@
+package com.example.myfirebaseapp.models;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Model class for an image message waiting in the upload queue, saved on the device until its
+ * message is posted. The images are uploaded one after the other, each upload keeping its
+ * session so that it resumes where it stopped, and the message is posted once both have a url.
+ */
+public class ChatUpload {
+
+    // --- ATTRIBUTES ---
+
+    private String id;
+    private String roomId;
+    private String roomName;
+    @Nullable
+    private String placeId;
+    @Nullable
+    private String day;
+    private String message;
+    private MessageSender sender;
+    private String imagePath;
+    private String thumbnailPath;
+    @Nullable
+    private String imageSessionUri;
+    @Nullable
+    private String thumbnailSessionUri;
+    @Nullable
+    private String urlImage;
+    @Nullable
+    private String urlThumbnail;
+    private int attempts;
+    private long nextAttemptMillis;
+
+    // --- CONSTRUCTOR ---
+
+    public ChatUpload() {
+        // Empty Constructor
+    }
+
+    /**
+     * @param id            the id of the upload, also the id of the images and of the message.
+     * @param room          the room the message was written in.
+     * @param imagePath     the encoded full image, saved on the device.
+     * @param thumbnailPath the encoded thumbnail, saved on the device.
+     */
+    public ChatUpload(String id, ChatRoom room, String message, MessageSender sender, String imagePath, String thumbnailPath) {
+        this.id = id;
+        this.roomId = room.getId();
+        this.roomName = room.getName();
+        this.placeId = room.getPlaceId();
+        this.day = room.getDay();
+        this.message = message;
+        this.sender = sender;
+        this.imagePath = imagePath;
+        this.thumbnailPath = thumbnailPath;
+    }
+
+    public ChatRoom getRoom() {
+        return new ChatRoom(roomId, roomName, placeId, day);
+    }
+
+    /**
+     * @return the message to post, once both images are uploaded.
+     */
+    public Message toMessage() {
+        Message chatMessage = new Message();
+        chatMessage.setMessage(message);
+        chatMessage.setSender(sender);
+        chatMessage.setUrlImage(urlImage);
+        chatMessage.setUrlThumbnail(urlThumbnail);
+        return chatMessage;
+    }
+
+    public boolean isUploaded() {
+        return urlImage != null && urlThumbnail != null;
+    }
+
+    // --- GETTERS ---
+    public String getId() { return id; }
+    public String getMessage() { return message; }
+    public MessageSender getSender() { return sender; }
+    public String getImagePath() { return imagePath; }
+    public String getThumbnailPath() { return thumbnailPath; }
+    @Nullable
+    public String getImageSessionUri() { return imageSessionUri; }
+    @Nullable
+    public String getThumbnailSessionUri() { return thumbnailSessionUri; }
+    @Nullable
+    public String getUrlImage() { return urlImage; }
+    @Nullable
+    public String getUrlThumbnail() { return urlThumbnail; }
+    public int getAttempts() { return attempts; }
+    public long getNextAttemptMillis() { return nextAttemptMillis; }
+
+    // --- SETTERS ---
+    public void setImageSessionUri(@Nullable String imageSessionUri) { this.imageSessionUri = imageSessionUri; }
+    public void setThumbnailSessionUri(@Nullable String thumbnailSessionUri) { this.thumbnailSessionUri = thumbnailSessionUri; }
+    public void setUrlImage(@Nullable String urlImage) { this.urlImage = urlImage; }
+    public void setUrlThumbnail(@Nullable String urlThumbnail) { this.urlThumbnail = urlThumbnail; }
+    public void setAttempts(int attempts) { this.attempts = attempts; }
+    public void setNextAttemptMillis(long nextAttemptMillis) { this.nextAttemptMillis = nextAttemptMillis; }
+}
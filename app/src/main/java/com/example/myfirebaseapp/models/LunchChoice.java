@@ -0,0 +1,101 @@
+package com.example.myfirebaseapp.models;
+
+import androidx.annotation.Nullable;
+
+import com.example.myfirebaseapp.models.api.Place;
+
+import java.util.Collections;
+
+/**
+ * Model class for the restaurant chosen by a workmate for one day, stored in the partition of
+ * that day with the workmate and a summary of the restaurant denormalized into it, so that the
+ * workmates lists never request the restaurant from the Places API
+ */
+public class LunchChoice {
+
+    // --- ATTRIBUTES ---
+
+    private String uid;
+    private String username;
+    @Nullable
+    private String urlPicture;
+    private String placeId;
+    private String restaurantName;
+    @Nullable
+    private String restaurantVicinity;
+    @Nullable
+    private String restaurantPhoto;
+    private String day;
+    private int currentTime;
+
+    // --- CONSTRUCTOR ---
+
+    public LunchChoice() {
+        // Empty Constructor
+    }
+
+    public LunchChoice(String uid, String username, @Nullable String urlPicture, String placeId,
+                       String restaurantName, @Nullable String restaurantVicinity, @Nullable String restaurantPhoto,
+                       String day, int currentTime) {
+        this.uid = uid;
+        this.username = username;
+        this.urlPicture = urlPicture;
+        this.placeId = placeId;
+        this.restaurantName = restaurantName;
+        this.restaurantVicinity = restaurantVicinity;
+        this.restaurantPhoto = restaurantPhoto;
+        this.day = day;
+        this.currentTime = currentTime;
+    }
+
+    // --- GETTERS ---
+    public String getUid() { return uid; }
+    public String getUsername() { return username; }
+    @Nullable
+    public String getUrlPicture() { return urlPicture; }
+    public String getPlaceId() { return placeId; }
+    public String getRestaurantName() { return restaurantName; }
+    @Nullable
+    public String getRestaurantVicinity() { return restaurantVicinity; }
+    @Nullable
+    public String getRestaurantPhoto() { return restaurantPhoto; }
+    public String getDay() { return day; }
+    public int getCurrentTime() { return currentTime; }
+
+    // --- SETTERS ---
+    public void setUid(String uid) { this.uid = uid; }
+    public void setUsername(String username) { this.username = username; }
+    public void setUrlPicture(@Nullable String urlPicture) { this.urlPicture = urlPicture; }
+    public void setPlaceId(String placeId) { this.placeId = placeId; }
+    public void setRestaurantName(String restaurantName) { this.restaurantName = restaurantName; }
+    public void setRestaurantVicinity(@Nullable String restaurantVicinity) { this.restaurantVicinity = restaurantVicinity; }
+    public void setRestaurantPhoto(@Nullable String restaurantPhoto) { this.restaurantPhoto = restaurantPhoto; }
+    public void setDay(String day) { this.day = day; }
+    public void setCurrentTime(int currentTime) { this.currentTime = currentTime; }
+
+    /**
+     * @return the workmate of this choice, as shown in the workmates lists.
+     */
+    public User toUser() {
+        User user = new User(uid, username, urlPicture, placeId, currentTime);
+        user.setSelectedRestaurantName(restaurantName);
+        user.setLunchDay(day);
+        return user;
+    }
+
+    /**
+     * @return the restaurant of this choice, from its summary, as opened by RestaurantActivity.
+     */
+    public Place.Result toRestaurant() {
+        Place.Result restaurant = new Place.Result();
+        restaurant.setPlaceId(placeId);
+        restaurant.setName(restaurantName);
+        restaurant.setVicinity(restaurantVicinity);
+        if (restaurantPhoto != null) {
+            Place.Photo photo = new Place.Photo();
+            photo.setPhotoReference(restaurantPhoto);
+            restaurant.setPhotos(Collections.singletonList(photo));
+        }
+        return restaurant;
+    }
+}
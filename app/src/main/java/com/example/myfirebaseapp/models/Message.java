@@ -1,6 +1,9 @@
 package com.example.myfirebaseapp.models;
 
 
+import androidx.annotation.Nullable;
+
+import com.google.firebase.firestore.Exclude;
 import com.google.firebase.firestore.ServerTimestamp;
 
 import java.util.Date;
@@ -14,8 +17,15 @@ public class Message {
 
     private String message;
     private Date dateCreated;
+    @Nullable
+    private MessageSender sender;
+    // Whole user embedded by the messages written before the sender snapshot, only read
+    @Nullable
     private User userSender;
     private String urlImage;
+    // Image of the list, urlImage being the full image
+    @Nullable
+    private String urlThumbnail;
 
     // --- CONSTRUCTOR ---
 
@@ -25,26 +35,57 @@ public class Message {
 
     public Message(String message, User userSender) {
         this.message = message;
-        this.userSender = userSender;
+        this.sender = MessageSender.from(userSender);
     }
 
     public Message(String message, String urlImage, User userSender) {
         this.message = message;
         this.urlImage = urlImage;
-        this.userSender = userSender;
+        this.sender = MessageSender.from(userSender);
+    }
+
+    public Message(String message, String urlImage, @Nullable String urlThumbnail, User userSender) {
+        this.message = message;
+        this.urlImage = urlImage;
+        this.urlThumbnail = urlThumbnail;
+        this.sender = MessageSender.from(userSender);
+    }
+
+    /**
+     * @return the image shown in the list, the full image for the messages sent before thumbnails.
+     */
+    public String resolveThumbnail() {
+        return urlThumbnail != null ? urlThumbnail : urlImage;
+    }
+
+    /**
+     * @return the sender of the message, whether it was written with the sender snapshot or with
+     * the whole user.
+     */
+    @Nullable
+    public MessageSender resolveSender() {
+        return sender != null ? sender : MessageSender.from(userSender);
     }
 
     // --- GETTERS ---
     public String getMessage() { return message; }
     @ServerTimestamp
     public Date getDateCreated() { return dateCreated; }
+    @Nullable
+    public MessageSender getSender() { return sender; }
+    @Exclude
+    @Nullable
     public User getUserSender() { return userSender; }
     public String getUrlImage() { return urlImage; }
+    @Nullable
+    public String getUrlThumbnail() { return urlThumbnail; }
 
     // --- SETTERS ---
     public void setMessage(String message) { this.message = message; }
     public void setDateCreated(Date dateCreated) { this.dateCreated = dateCreated; }
-    public void setUserSender(User userSender) { this.userSender = userSender; }
+    public void setSender(@Nullable MessageSender sender) { this.sender = sender; }
+    public void setUserSender(@Nullable User userSender) { this.userSender = userSender; }
     public void setUrlImage(String urlImage) { this.urlImage = urlImage; }
+    public void setUrlThumbnail(@Nullable String urlThumbnail) { this.urlThumbnail = urlThumbnail; }
 
-}
\ No newline at end of file
+}
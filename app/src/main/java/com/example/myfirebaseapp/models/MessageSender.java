@@ -0,0 +1,56 @@
+package com.example.myfirebaseapp.models;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Model class for the sender of a message, the few fields of the {@link User} shown in the chat.
+ * A message carries this snapshot instead of the whole user, whose likes and lunch choice would
+ * grow every message of the chat.
+ */
+public class MessageSender {
+
+    // --- ATTRIBUTES ---
+
+    private String uid;
+    private String username;
+    @Nullable
+    private String urlPicture;
+    private boolean userChat;
+
+    // --- CONSTRUCTOR ---
+
+    public MessageSender() {
+        // Empty Constructor
+    }
+
+    public MessageSender(String uid, String username, @Nullable String urlPicture, boolean userChat) {
+        this.uid = uid;
+        this.username = username;
+        this.urlPicture = urlPicture;
+        this.userChat = userChat;
+    }
+
+    /**
+     * @return the snapshot of the user, or null without a user.
+     */
+    @Nullable
+    public static MessageSender from(@Nullable User user) {
+        if (user == null) {
+            return null;
+        }
+        return new MessageSender(user.getUid(), user.getUsername(), user.getUrlPicture(), Boolean.TRUE.equals(user.getUserChat()));
+    }
+
+    // --- GETTERS ---
+    public String getUid() { return uid; }
+    public String getUsername() { return username; }
+    @Nullable
+    public String getUrlPicture() { return urlPicture; }
+    public boolean getUserChat() { return userChat; }
+
+    // --- SETTERS ---
+    public void setUid(String uid) { this.uid = uid; }
+    public void setUsername(String username) { this.username = username; }
+    public void setUrlPicture(@Nullable String urlPicture) { this.urlPicture = urlPicture; }
+    public void setUserChat(boolean userChat) { this.userChat = userChat; }
+}
@@ -2,12 +2,17 @@ package com.example.myfirebaseapp.models;
 
 import androidx.annotation.Nullable;
 
+import com.google.firebase.firestore.Exclude;
+
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 
 public class User implements Serializable {
 
+    // Version of the layout of the users' documents, see UserSchema
+    public static final int SCHEMA_VERSION = 1;
+
     private String uid;
     private String username;
     @Nullable
@@ -18,6 +23,9 @@ public class User implements Serializable {
     private boolean userChat;
     @Nullable
     private String selectedRestaurantName;
+    @Nullable
+    private String lunchDay;
+    private int schemaVersion;
 
     // --- CONSTRUCTOR ---
 
@@ -35,7 +43,20 @@ public class User implements Serializable {
         this.userChat = false;
         this.currentTime = currentTime;
         this.selectedRestaurantName = null;
+        this.schemaVersion = SCHEMA_VERSION;
+    }
 
+    public User(User user) {
+        this.uid = user.uid;
+        this.username = user.username;
+        this.urlPicture = user.urlPicture;
+        this.restaurantId = user.restaurantId;
+        this.like = user.like != null ? new ArrayList<>(user.like) : new ArrayList<String>();
+        this.userChat = user.userChat;
+        this.currentTime = user.currentTime;
+        this.selectedRestaurantName = user.selectedRestaurantName;
+        this.lunchDay = user.lunchDay;
+        this.schemaVersion = user.schemaVersion;
     }
 
     // --- GETTERS ---
@@ -65,15 +86,26 @@ public class User implements Serializable {
         this.like = like;
     }
     public void setUserChat(Boolean chatUser) { userChat = chatUser; }
-    private void setCurrentTime(int currentTime){
+    public void setCurrentTime(int currentTime){
         this.currentTime = currentTime;
     }
 
+    public int getSchemaVersion() {
+        return schemaVersion;
+    }
+
+    public void setSchemaVersion(int schemaVersion) {
+        this.schemaVersion = schemaVersion;
+    }
+
+    // Former names of restaurantId and like, not stored anymore
+    @Exclude
     @Nullable
     public String getSelectedRestaurantId() {
         return restaurantId;
     }
 
+    @Exclude
     public void setSelectedRestaurantId(@Nullable String selectedRestaurantId) {
         this.restaurantId = selectedRestaurantId;
     }
@@ -87,10 +119,22 @@ public class User implements Serializable {
         this.selectedRestaurantName = selectedRestaurantName;
     }
 
+    // The day of restaurantId, which is only valid on that day
+    @Nullable
+    public String getLunchDay() {
+        return lunchDay;
+    }
+
+    public void setLunchDay(@Nullable String lunchDay) {
+        this.lunchDay = lunchDay;
+    }
+
+    @Exclude
     public List<String> getLikedRestaurants() {
         return like;
     }
 
+    @Exclude
     public void setLikedRestaurants(List<String> like) {
         this.like = like;
     }
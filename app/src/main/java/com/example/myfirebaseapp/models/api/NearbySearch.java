@@ -9,6 +9,8 @@ public class NearbySearch {
     // --- Attribute ---
     @SerializedName("html_attributions")
     private List<Object> htmlAttributions;
+    @SerializedName("next_page_token")
+    private String nextPageToken;
     @SerializedName("results")
     private List<Result> results;
     @SerializedName("status")
@@ -18,6 +20,9 @@ public class NearbySearch {
     public List<Object> getHtmlAttributions() {
         return htmlAttributions;
     }
+    public String getNextPageToken() {
+        return nextPageToken;
+    }
     public List<Result> getResults() {
         return results;
     }
@@ -29,6 +34,9 @@ public class NearbySearch {
     public void setHtmlAttributions(List<Object> htmlAttributions) {
         this.htmlAttributions = htmlAttributions;
     }
+    public void setNextPageToken(String nextPageToken) {
+        this.nextPageToken = nextPageToken;
+    }
     public void setResults(List<Result> results) {
         this.results = results;
     }
@@ -44,11 +44,14 @@ public class Restaurant {
         mName = result.getName();
         mPlaceId = result.getPlaceId();
         mVicinity = result.getVicinity();
-        mLatitude = result.getGeometry().getLocation().getLat();
-        mLongitude = result.getGeometry().getLocation().getLng();
+        // A result may come without a location, it then stays at 0,0
+        if (result.getGeometry() != null && result.getGeometry().getLocation() != null) {
+            mLatitude = result.getGeometry().getLocation().getLat();
+            mLongitude = result.getGeometry().getLocation().getLng();
+        }
         mIsOpen = result.getOpeningHours() != null ? result.getOpeningHours().getOpenNow() : null;
         mRating = result.getRating() != null ? (Math.round(result.getRating() / 5 * 3)) : null;
-        mPhotoReference = result.getPhotos() != null ? result.getPhotos().get(0).getPhotoReference() : null;
+        mPhotoReference = result.getPhotos() != null && !result.getPhotos().isEmpty() ? result.getPhotos().get(0).getPhotoReference() : null;
         mPhoneNumber = null;
         mWebsite = null;
         mWorkmatesJoining = 0;
@@ -65,15 +68,42 @@ public class Restaurant {
         mName = result.getName();
         mPlaceId = result.getPlaceId();
         mVicinity = result.getVicinity();
-        mLatitude = result.getGeometry().getLocation().getLat();
-        mLongitude = result.getGeometry().getLocation().getLng();
+        // A result may come without a location, it then stays at 0,0
+        if (result.getGeometry() != null && result.getGeometry().getLocation() != null) {
+            mLatitude = result.getGeometry().getLocation().getLat();
+            mLongitude = result.getGeometry().getLocation().getLng();
+        }
         mRating = result.getRating() != null ? (Math.round(result.getRating() / 5 * 3)) : null;
-        mPhotoReference = result.getPhotos() != null ? result.getPhotos().get(0).getPhotoReference() : null;
+        mPhotoReference = result.getPhotos() != null && !result.getPhotos().isEmpty() ? result.getPhotos().get(0).getPhotoReference() : null;
         mPhoneNumber = result.getInternationalPhoneNumber();
         mWebsite = result.getWebsite();
         mWorkmatesJoining = 0;
     }
 
+    /**
+     * Constructor which returns a {@link Restaurant} new instance based on
+     * a {@link Place.Result} existing instance.
+     *
+     * @param result a {@link Place.Result} which was returned by the
+     *               Google Places Details API.
+     */
+    public Restaurant(@NonNull Place.Result result) {
+        mName = result.getName();
+        mPlaceId = result.getPlaceId();
+        mVicinity = result.getVicinity();
+        // A result may come without a location, it then stays at 0,0
+        if (result.getGeometry() != null && result.getGeometry().getLocation() != null) {
+            mLatitude = result.getGeometry().getLocation().getLat();
+            mLongitude = result.getGeometry().getLocation().getLng();
+        }
+        mIsOpen = result.getOpeningHours() != null ? result.getOpeningHours().getOpenNow() : null;
+        mRating = result.getRating() != null ? (Math.round(result.getRating() / 5 * 3)) : null;
+        mPhotoReference = result.getPhotos() != null && !result.getPhotos().isEmpty() ? result.getPhotos().get(0).getPhotoReference() : null;
+        mPhoneNumber = result.getFormattedPhoneNumber();
+        mWebsite = result.getWebsite();
+        mWorkmatesJoining = 0;
+    }
+
     public String getName() {
         return mName;
     }
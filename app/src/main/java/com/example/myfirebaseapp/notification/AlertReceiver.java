@@ -8,75 +8,76 @@ import android.util.Log;
 import androidx.core.app.NotificationCompat;
 
 import com.example.myfirebaseapp.R;
+import com.example.myfirebaseapp.api.LunchHelper;
 import com.example.myfirebaseapp.api.UserHelper;
-import com.example.myfirebaseapp.models.User;
-import com.example.myfirebaseapp.models.api.Place;
-import com.example.myfirebaseapp.service.PlacesRepository;
-import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.example.myfirebaseapp.models.LunchChoice;
+import com.example.myfirebaseapp.repository.CurrentUserRepository;
 
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 
-import io.reactivex.disposables.Disposable;
-import io.reactivex.observers.DisposableObserver;
+import io.reactivex.android.schedulers.AndroidSchedulers;
+import io.reactivex.disposables.CompositeDisposable;
 
 public class AlertReceiver extends BroadcastReceiver {
 
     // --- Attribute ---
     private static final String TAG = AlertReceiver.class.getSimpleName();
-    private Place restaurant;
-    private String restaurantId, restaurantName, restaurantAddress;
+    // The process may have been started by the alarm, the user is loaded within a few seconds
+    private static final long USER_TIMEOUT_SECONDS = 5;
+    private String restaurantName, restaurantAddress;
     private String notificationName,notificationMessage;
     private Context context;
-    private Disposable disposable;
+    private PendingResult pendingResult;
+    private final CompositeDisposable disposables = new CompositeDisposable();
 
     @Override
     public void onReceive(Context context, Intent intent) {
         this.context = context;
-        UserHelper.getUser(Objects.requireNonNull(UserHelper.getCurrentUser()).getUid()).addOnSuccessListener(documentSnapshot -> {
-            User user = documentSnapshot.toObject(User.class);
-            if (user != null) {
-                if (!user.getRestaurantId().isEmpty()) {
-                    restaurantId = user.getRestaurantId();
-                    getRestaurantDetail();
-                }
-            }
-        });
-    }
-
-
-    private void getRestaurantDetail() {
-        this.disposable = PlacesRepository.getRestaurantDetailStream(restaurantId)
-                .subscribeWith(new DisposableObserver<Place>() {
-                    @Override
-                    public void onNext(Place place) {
-                        restaurant = place;
-                    }
-
-                    public void onComplete() {
-                        if (restaurantId != null) {
-                            restaurantName = restaurant.getResult().getName();
-                            restaurantAddress = restaurant.getResult().getVicinity();
-                            getRestaurantWorkmates(restaurantId);
-                        }
+        // The receiver is kept alive until the notification is built or given up
+        this.pendingResult = goAsync();
+        // The session store is loaded by the application, even when the alarm starts the process
+        disposables.add(CurrentUserRepository.getInstance().getUserOnce()
+                .timeout(USER_TIMEOUT_SECONDS, TimeUnit.SECONDS, AndroidSchedulers.mainThread())
+                .subscribe(user -> {
+                    if (user.getRestaurantId() != null && !user.getRestaurantId().isEmpty()) {
+                        getRestaurantWorkmates(user.getRestaurantId());
+                    } else {
+                        finish();
                     }
+                }, throwable -> {
+                    Log.e(TAG, "onReceive: no signed-in user", throwable);
+                    finish();
+                }, this::finish));
+    }
 
-                    @Override
-                    public void onError(Throwable e) {
-                        Log.d(TAG, Log.getStackTraceString(e));
-                    }
-                });
+    private void finish() {
+        disposables.clear();
+        pendingResult.finish();
     }
 
 
     private void getRestaurantWorkmates(String restaurantId) {
 
-        UserHelper.getUsersCollection()
-                .whereEqualTo("restaurantId", restaurantId)
+        LunchHelper.getTodayChoicesForRestaurant(restaurantId)
                 .get()
                 .addOnCompleteListener(task -> {
                     if (task.isSuccessful()) {
-                        for (QueryDocumentSnapshot documentSnapshot : Objects.requireNonNull(task.getResult())) {
-                            notificationName += String.valueOf(documentSnapshot.get("username"));
+                        String uid = UserHelper.getCurrentUser() != null ? UserHelper.getCurrentUser().getUid() : null;
+                        for (LunchChoice choice : LunchHelper.getChoices(Objects.requireNonNull(task.getResult()))) {
+                            if (choice.getUid().equals(uid)) {
+                                // The user's own choice carries the summary of the restaurant
+                                restaurantName = choice.getRestaurantName();
+                                restaurantAddress = choice.getRestaurantVicinity();
+                                continue;
+                            }
+                            notificationName = notificationName == null ? choice.getUsername() : notificationName + ", " + choice.getUsername();
+                        }
+
+                        if (restaurantName == null) {
+                            // The user has no choice for today any more, e.g. it was left meanwhile
+                            finish();
+                            return;
                         }
 
                         if (notificationName != null) {
@@ -100,6 +101,7 @@ public class AlertReceiver extends BroadcastReceiver {
                     } else {
                         Log.e(TAG, "Error getting documents: ", task.getException());
                     }
+                    finish();
                 });
     }
 }
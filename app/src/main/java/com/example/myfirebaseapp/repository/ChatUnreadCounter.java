@@ -0,0 +1,179 @@
+package com.example.myfirebaseapp.repository;
+
+import android.util.Log;
+
+import com.example.myfirebaseapp.api.ChatHelper;
+import com.example.myfirebaseapp.models.ChatRoom;
+import com.google.firebase.firestore.ListenerRegistration;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Class which keeps the number of unread messages of the signed-in user in each of their rooms.
+ * It listens to the room documents, which count their messages, and to the user's own read
+ * count in each room: a message costs one write to its room whatever the number of workmates,
+ * and reading a room only writes the reader's own document. A workmate joining a room has no
+ * read count there yet, it is set to the count of the room so that the history of the room
+ * before they joined is not counted as unread.
+ */
+public class ChatUnreadCounter {
+
+
+    // private static
+    private static final String TAG = ChatUnreadCounter.class.getSimpleName();
+
+
+    // variables
+    private final String mUid;
+    private final OnUnreadChangedListener mListener;
+    private final Map<String, Long> mMessageCounts;
+    private final Map<String, Long> mReadCounts;
+    private final Map<String, List<ListenerRegistration>> mRegistrations;
+    // Rooms the user has no read count in yet
+    private final Set<String> mJoinedRooms;
+
+
+    // constructor
+    public ChatUnreadCounter(String uid, OnUnreadChangedListener listener) {
+        mUid = uid;
+        mListener = listener;
+        mMessageCounts = new HashMap<>();
+        mReadCounts = new HashMap<>();
+        mRegistrations = new HashMap<>();
+        mJoinedRooms = new HashSet<>();
+    }
+
+
+    // methods
+
+    /**
+     * Listens to these rooms only, e.g. when the lunch room of the user changes.
+     */
+    public void setRooms(List<ChatRoom> rooms) {
+        Set<String> roomIds = new HashSet<>();
+        for (ChatRoom room : rooms) {
+            roomIds.add(room.getId());
+            if (!mRegistrations.containsKey(room.getId())) {
+                listen(room.getId());
+            }
+        }
+        for (String roomId : new ArrayList<>(mRegistrations.keySet())) {
+            if (!roomIds.contains(roomId)) {
+                stopListening(roomId);
+            }
+        }
+    }
+
+    public long getUnreadCount(String roomId) {
+        // Nothing is unread until the read count of the user is known
+        if (!mReadCounts.containsKey(roomId)) {
+            return 0;
+        }
+        return ChatRoom.getUnreadCount(getCount(mMessageCounts, roomId), getCount(mReadCounts, roomId));
+    }
+
+    /**
+     * Marks every message of the room counted so far as read.
+     */
+    public void markRead(String roomId) {
+        long messageCount = getCount(mMessageCounts, roomId);
+        if (messageCount == getCount(mReadCounts, roomId)) {
+            return;
+        }
+        Log.d(TAG, "markRead: " + roomId);
+
+        mReadCounts.put(roomId, messageCount);
+        ChatHelper.updateReadCount(roomId, mUid, messageCount);
+        mListener.onUnreadChanged();
+    }
+
+    public void release() {
+        Log.d(TAG, "release");
+
+        for (String roomId : new ArrayList<>(mRegistrations.keySet())) {
+            stopListening(roomId);
+        }
+    }
+
+    private void listen(final String roomId) {
+        Log.d(TAG, "listen: " + roomId);
+
+        List<ListenerRegistration> registrations = new ArrayList<>();
+        registrations.add(ChatHelper.getRoom(roomId).addSnapshotListener((snapshot, e) -> {
+            if (e != null) {
+                Log.e(TAG, "listen: onEvent", e);
+                return;
+            }
+            Long count = snapshot != null ? snapshot.getLong(ChatHelper.MESSAGE_COUNT_FIELD) : null;
+            mMessageCounts.put(roomId, count != null ? count : 0);
+            initReadCount(roomId);
+            mListener.onUnreadChanged();
+        }));
+        registrations.add(ChatHelper.getMember(roomId, mUid).addSnapshotListener((snapshot, e) -> {
+            if (e != null) {
+                Log.e(TAG, "listen: onEvent", e);
+                return;
+            }
+            if (snapshot == null) {
+                return;
+            }
+            if (!snapshot.exists()) {
+                // The cache may not hold the document yet, only the server tells the user never read the room
+                if (!snapshot.getMetadata().isFromCache()) {
+                    mJoinedRooms.add(roomId);
+                    initReadCount(roomId);
+                    mListener.onUnreadChanged();
+                }
+                return;
+            }
+            Long count = snapshot.getLong(ChatHelper.READ_COUNT_FIELD);
+            // A read count written by markRead stays until the server has it
+            mReadCounts.put(roomId, Math.max(count != null ? count : 0, getCount(mReadCounts, roomId)));
+            mListener.onUnreadChanged();
+        }));
+        mRegistrations.put(roomId, registrations);
+    }
+
+    // Starts the read count of a room the user just joined at the count of the room
+    private void initReadCount(String roomId) {
+        if (!mJoinedRooms.contains(roomId) || !mMessageCounts.containsKey(roomId)) {
+            return;
+        }
+        mJoinedRooms.remove(roomId);
+        long messageCount = getCount(mMessageCounts, roomId);
+        Log.d(TAG, "initReadCount: " + roomId + " at " + messageCount);
+
+        mReadCounts.put(roomId, Math.max(messageCount, getCount(mReadCounts, roomId)));
+        ChatHelper.updateReadCount(roomId, mUid, getCount(mReadCounts, roomId));
+    }
+
+    private void stopListening(String roomId) {
+        List<ListenerRegistration> registrations = mRegistrations.remove(roomId);
+        if (registrations != null) {
+            for (ListenerRegistration registration : registrations) {
+                registration.remove();
+            }
+        }
+        mMessageCounts.remove(roomId);
+        mReadCounts.remove(roomId);
+        mJoinedRooms.remove(roomId);
+    }
+
+    private static long getCount(Map<String, Long> counts, String roomId) {
+        Long count = counts.get(roomId);
+        return count != null ? count : 0;
+    }
+
+
+    /**
+     * Listener notified when an unread count may have changed.
+     */
+    public interface OnUnreadChangedListener {
+        void onUnreadChanged();
+    }
+}
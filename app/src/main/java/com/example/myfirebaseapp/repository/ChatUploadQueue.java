@@ -0,0 +1,446 @@
+package com.example.myfirebaseapp.repository;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.net.Uri;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.example.myfirebaseapp.api.ChatHelper;
+import com.example.myfirebaseapp.api.ChatStorageHelper;
+import com.example.myfirebaseapp.models.ChatRoom;
+import com.example.myfirebaseapp.models.ChatUpload;
+import com.example.myfirebaseapp.models.MessageSender;
+import com.example.myfirebaseapp.models.User;
+import com.example.myfirebaseapp.service.ChatImageCompressor;
+import com.google.firebase.storage.StorageException;
+import com.google.firebase.storage.StorageReference;
+import com.google.firebase.storage.UploadTask;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Completable;
+import io.reactivex.Observable;
+import io.reactivex.Scheduler;
+import io.reactivex.android.schedulers.AndroidSchedulers;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.schedulers.Schedulers;
+import io.reactivex.subjects.BehaviorSubject;
+
+/**
+ * Process-wide queue of the image messages of the chat. The encoded images and the queue are
+ * saved in the files of the app, so that an upload survives the chat screen and the process:
+ * it resumes from its upload session when the app starts again, failed steps are retried with
+ * an exponential backoff, a few uploads run at once, and the message is only posted once the
+ * urls of both images are known. Its {@link Status} tells the chat what is being sent.
+ */
+public class ChatUploadQueue {
+
+
+    // private static
+    private static final String TAG = ChatUploadQueue.class.getSimpleName();
+    private static final String DIRECTORY_NAME = "chat_uploads";
+    private static final String QUEUE_FILE_NAME = "queue.json";
+    private static final String IMAGE_FILE_SUFFIX = ".webp";
+    private static final String THUMBNAIL_FILE_SUFFIX = "_thumb.webp";
+    private static ChatUploadQueue CHAT_UPLOAD_QUEUE;
+
+
+    // public static
+    public static final int MAX_CONCURRENT_UPLOADS = 2;
+    public static final int MAX_ATTEMPTS = 10;
+    public static final long BASE_RETRY_DELAY_MILLIS = TimeUnit.SECONDS.toMillis(2);
+    public static final long MAX_RETRY_DELAY_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    /**
+     * Restores the uploads saved by a previous process and resumes them. Must be called once,
+     * from {@link com.example.myfirebaseapp.Go4LunchApplication}.
+     */
+    public static synchronized void init(Context context) {
+        if (CHAT_UPLOAD_QUEUE == null) {
+            CHAT_UPLOAD_QUEUE = new ChatUploadQueue(new File(context.getApplicationContext().getFilesDir(), DIRECTORY_NAME),
+                    AndroidSchedulers.mainThread());
+            CHAT_UPLOAD_QUEUE.restore();
+        }
+    }
+
+    public static synchronized ChatUploadQueue getInstance() {
+        return CHAT_UPLOAD_QUEUE;
+    }
+
+    /**
+     * @param attempts the failed attempts of the step, from 1.
+     * @return the delay before the next attempt, doubled by each failure up to a maximum.
+     */
+    public static long getRetryDelayMillis(int attempts) {
+        int doublings = Math.max(0, Math.min(attempts - 1, 20));
+        return Math.min(BASE_RETRY_DELAY_MILLIS << doublings, MAX_RETRY_DELAY_MILLIS);
+    }
+
+
+    // variables
+    private final File mDirectory;
+    private final Scheduler mScheduler;
+    private final Gson mGson;
+    private final List<ChatUpload> mUploads;
+    private final Set<String> mRunning;
+    // Bytes transferred and total of the image being uploaded, by upload
+    private final Map<String, long[]> mProgress;
+    private final BehaviorSubject<Status> mStatus;
+    private int mDropped;
+    private Disposable mTimer;
+
+
+    // constructor
+    private ChatUploadQueue(File directory, Scheduler scheduler) {
+        mDirectory = directory;
+        mScheduler = scheduler;
+        mGson = new Gson();
+        mUploads = new ArrayList<>();
+        mRunning = new HashSet<>();
+        mProgress = new HashMap<>();
+        mStatus = BehaviorSubject.createDefault(new Status(0, 0, 0, 0, 0));
+    }
+
+
+    // methods
+
+    /**
+     * Encodes a picture off the main thread, saves it and queues its message.
+     *
+     * @param picture the picture chosen in the gallery.
+     * @param room    the room the message was written in.
+     */
+    public void enqueue(ContentResolver contentResolver, Uri picture, ChatRoom room, String message, User sender) {
+        final String id = UUID.randomUUID().toString();
+        final ChatUpload upload = new ChatUpload(id, room, message, MessageSender.from(sender),
+                new File(mDirectory, id + IMAGE_FILE_SUFFIX).getPath(),
+                new File(mDirectory, id + THUMBNAIL_FILE_SUFFIX).getPath());
+
+        new ChatImageCompressor(contentResolver)
+                .compress(picture)
+                .observeOn(Schedulers.io())
+                .map(image -> {
+                    write(new File(upload.getImagePath()), image.getFull());
+                    write(new File(upload.getThumbnailPath()), image.getThumbnail());
+                    return upload;
+                })
+                .observeOn(mScheduler)
+                .subscribe(this::add, throwable -> {
+                    // The picture cannot be sent, the user is told like for an upload given up
+                    Log.e(TAG, "enqueue", throwable);
+                    mDropped++;
+                    publishStatus();
+                });
+    }
+
+    public int size() {
+        return mUploads.size();
+    }
+
+    /**
+     * @return the current status of the queue, then every change, on the main thread.
+     */
+    public Observable<Status> getStatus() {
+        return mStatus;
+    }
+
+    /**
+     * Resets the count of the dropped uploads, once the user was told about them.
+     */
+    public void acknowledgeDropped() {
+        mDropped = 0;
+        publishStatus();
+    }
+
+    private void add(ChatUpload upload) {
+        Log.d(TAG, "add: " + upload.getId());
+
+        mUploads.add(upload);
+        persist();
+        startDueUploads();
+    }
+
+    // The queue is a few lines of JSON, it is read once when the app starts
+    private void restore() {
+        File file = new File(mDirectory, QUEUE_FILE_NAME);
+        if (!file.exists()) {
+            return;
+        }
+        try (Reader reader = new InputStreamReader(new FileInputStream(file), "UTF-8")) {
+            List<ChatUpload> uploads = mGson.fromJson(reader, new TypeToken<List<ChatUpload>>() {
+            }.getType());
+            if (uploads != null) {
+                for (ChatUpload upload : uploads) {
+                    // A new process does not wait for the delays of the previous one
+                    upload.setNextAttemptMillis(0);
+                    mUploads.add(upload);
+                }
+            }
+        } catch (IOException | JsonParseException e) {
+            Log.e(TAG, "restore", e);
+        }
+        Log.d(TAG, "restore: " + mUploads.size() + " upload(s)");
+        startDueUploads();
+    }
+
+    private void startDueUploads() {
+        if (mTimer != null) {
+            mTimer.dispose();
+            mTimer = null;
+        }
+
+        long now = System.currentTimeMillis();
+        long nextAttemptMillis = Long.MAX_VALUE;
+        for (ChatUpload upload : new ArrayList<>(mUploads)) {
+            if (mRunning.size() >= MAX_CONCURRENT_UPLOADS) {
+                publishStatus();
+                return;
+            }
+            if (mRunning.contains(upload.getId())) {
+                continue;
+            }
+            if (upload.getNextAttemptMillis() <= now) {
+                mRunning.add(upload.getId());
+                runNextStep(upload);
+            } else {
+                nextAttemptMillis = Math.min(nextAttemptMillis, upload.getNextAttemptMillis());
+            }
+        }
+
+        if (nextAttemptMillis != Long.MAX_VALUE) {
+            mTimer = Observable.timer(nextAttemptMillis - now, TimeUnit.MILLISECONDS, mScheduler)
+                    .subscribe(tick -> startDueUploads());
+        }
+        publishStatus();
+    }
+
+    // The thumbnail goes first, it is the image shown in the list
+    private void runNextStep(ChatUpload upload) {
+        if (upload.getUrlThumbnail() == null) {
+            uploadImage(upload, true);
+        } else if (upload.getUrlImage() == null) {
+            uploadImage(upload, false);
+        } else {
+            postMessage(upload);
+        }
+    }
+
+    private void uploadImage(final ChatUpload upload, final boolean thumbnail) {
+        final StorageReference reference = thumbnail
+                ? ChatStorageHelper.getThumbnail(upload.getId())
+                : ChatStorageHelper.getImage(upload.getId());
+        String path = thumbnail ? upload.getThumbnailPath() : upload.getImagePath();
+        String sessionUri = thumbnail ? upload.getThumbnailSessionUri() : upload.getImageSessionUri();
+        Log.d(TAG, "uploadImage: " + reference.getName() + (sessionUri != null ? ", resumed" : ""));
+
+        UploadTask task = ChatStorageHelper.uploadImage(reference, Uri.fromFile(new File(path)),
+                sessionUri != null ? Uri.parse(sessionUri) : null);
+        task.addOnProgressListener(snapshot -> {
+            Uri session = snapshot.getUploadSessionUri();
+            if (session != null && !session.toString().equals(getSessionUri(upload, thumbnail))) {
+                // Saved as soon as the server opened it, a new process resumes from there
+                setSessionUri(upload, thumbnail, session.toString());
+                persist();
+            }
+            mProgress.put(upload.getId(), new long[]{snapshot.getBytesTransferred(), snapshot.getTotalByteCount()});
+            publishStatus();
+        });
+        task.continueWithTask(uploaded -> {
+            if (!uploaded.isSuccessful() && uploaded.getException() != null) {
+                throw uploaded.getException();
+            }
+            return reference.getDownloadUrl();
+        }).addOnCompleteListener(result -> {
+            mProgress.remove(upload.getId());
+            if (!mUploads.contains(upload)) {
+                return;
+            }
+            if (!result.isSuccessful() || result.getResult() == null) {
+                if (isSessionRejected(result.getException())) {
+                    // An expired session cannot be resumed, the next attempt starts a new one
+                    setSessionUri(upload, thumbnail, null);
+                }
+                fail(upload, result.getException());
+                return;
+            }
+
+            if (thumbnail) {
+                upload.setUrlThumbnail(result.getResult().toString());
+            } else {
+                upload.setUrlImage(result.getResult().toString());
+            }
+            setSessionUri(upload, thumbnail, null);
+            upload.setAttempts(0);
+            persist();
+            publishStatus();
+            runNextStep(upload);
+        });
+    }
+
+    private void postMessage(final ChatUpload upload) {
+        Log.d(TAG, "postMessage: " + upload.getId());
+
+        ChatHelper.createMessageWithImageForChat(upload.getRoom(), upload.getId(), upload.toMessage())
+                .addOnCompleteListener(task -> {
+                    if (task.isSuccessful()) {
+                        remove(upload);
+                    } else {
+                        fail(upload, task.getException());
+                    }
+                });
+    }
+
+    private void fail(ChatUpload upload, @Nullable Exception e) {
+        mRunning.remove(upload.getId());
+        upload.setAttempts(upload.getAttempts() + 1);
+        if (upload.getAttempts() >= MAX_ATTEMPTS) {
+            Log.e(TAG, "fail: " + upload.getId() + " dropped after " + upload.getAttempts() + " attempts", e);
+            mDropped++;
+            remove(upload);
+            return;
+        }
+
+        long delay = getRetryDelayMillis(upload.getAttempts());
+        Log.w(TAG, "fail: " + upload.getId() + " retried in " + delay + " ms", e);
+        upload.setNextAttemptMillis(System.currentTimeMillis() + delay);
+        persist();
+        startDueUploads();
+    }
+
+    private void remove(ChatUpload upload) {
+        Log.d(TAG, "remove: " + upload.getId());
+
+        mUploads.remove(upload);
+        mRunning.remove(upload.getId());
+        final File image = new File(upload.getImagePath());
+        final File thumbnail = new File(upload.getThumbnailPath());
+        Completable.fromAction(() -> {
+            image.delete();
+            thumbnail.delete();
+        }).subscribeOn(Schedulers.io()).subscribe();
+        persist();
+        startDueUploads();
+    }
+
+    private void publishStatus() {
+        long bytesTransferred = 0;
+        long totalBytes = 0;
+        for (long[] progress : mProgress.values()) {
+            bytesTransferred += progress[0];
+            totalBytes += progress[1];
+        }
+        mStatus.onNext(new Status(mUploads.size() - mRunning.size(), mRunning.size(), bytesTransferred, totalBytes, mDropped));
+    }
+
+    // Written on a single thread, so that the files are written in the order of the changes
+    private void persist() {
+        final String json = mGson.toJson(mUploads);
+        Completable.fromAction(() -> write(new File(mDirectory, QUEUE_FILE_NAME), json.getBytes("UTF-8")))
+                .subscribeOn(Schedulers.single())
+                .subscribe(() -> {
+                }, throwable -> Log.e(TAG, "persist", throwable));
+    }
+
+    // Written aside then renamed, a process killed while writing leaves the previous file
+    private void write(File file, byte[] data) throws IOException {
+        if (!mDirectory.exists() && !mDirectory.mkdirs()) {
+            throw new IOException("Cannot create " + mDirectory);
+        }
+        File temporary = new File(file.getPath() + ".tmp");
+        try (FileOutputStream stream = new FileOutputStream(temporary)) {
+            stream.write(data);
+            stream.getFD().sync();
+        }
+        if (!temporary.renameTo(file)) {
+            throw new IOException("Cannot write " + file);
+        }
+    }
+
+    @Nullable
+    private static String getSessionUri(ChatUpload upload, boolean thumbnail) {
+        return thumbnail ? upload.getThumbnailSessionUri() : upload.getImageSessionUri();
+    }
+
+    private static void setSessionUri(ChatUpload upload, boolean thumbnail, @Nullable String sessionUri) {
+        if (thumbnail) {
+            upload.setThumbnailSessionUri(sessionUri);
+        } else {
+            upload.setImageSessionUri(sessionUri);
+        }
+    }
+
+    // The server answers an expired or unknown session with a client error
+    private static boolean isSessionRejected(@Nullable Exception e) {
+        if (!(e instanceof StorageException)) {
+            return false;
+        }
+        int code = ((StorageException) e).getHttpResultCode();
+        return code >= 400 && code < 500;
+    }
+
+
+    /**
+     * What the queue is sending: the uploads waiting for their turn or their next attempt, the
+     * ones being sent with the bytes of their current image, and the ones dropped, because their
+     * picture could not be encoded or after {@link #MAX_ATTEMPTS} attempts, which the user was
+     * not told about yet.
+     */
+    public static class Status {
+
+        private final int mQueued;
+        private final int mUploading;
+        private final long mBytesTransferred;
+        private final long mTotalBytes;
+        private final int mDropped;
+
+        public Status(int queued, int uploading, long bytesTransferred, long totalBytes, int dropped) {
+            mQueued = queued;
+            mUploading = uploading;
+            mBytesTransferred = bytesTransferred;
+            mTotalBytes = totalBytes;
+            mDropped = dropped;
+        }
+
+        public boolean isIdle() {
+            return mQueued == 0 && mUploading == 0;
+        }
+
+        public int getQueued() {
+            return mQueued;
+        }
+
+        public int getUploading() {
+            return mUploading;
+        }
+
+        public long getBytesTransferred() {
+            return mBytesTransferred;
+        }
+
+        public long getTotalBytes() {
+            return mTotalBytes;
+        }
+
+        public int getDropped() {
+            return mDropped;
+        }
+    }
+}
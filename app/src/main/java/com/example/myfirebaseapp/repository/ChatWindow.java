@@ -0,0 +1,232 @@
+package com.example.myfirebaseapp.repository;
+
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.example.myfirebaseapp.api.ChatHelper;
+import com.example.myfirebaseapp.api.ReadPolicy;
+import com.example.myfirebaseapp.models.Message;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.ListenerRegistration;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.reactivex.disposables.Disposable;
+
+/**
+ * Class which loads a chat from its end: the newest page first, then older pages read with a
+ * cursor as the list is scrolled up. A single snapshot listener is kept, on the messages newer
+ * than the newest one of the first page, so that opening a chat reads one page whatever the
+ * length of its history.
+ */
+public class ChatWindow {
+
+
+    // private static
+    private static final String TAG = ChatWindow.class.getSimpleName();
+
+
+    // public static
+    public static final int PAGE_SIZE = 30;
+    public static final int PREFETCH_DISTANCE = 5;
+
+    /**
+     * @return true if the previous page must be loaded for the first visible row.
+     */
+    public static boolean shouldLoadOlder(int firstVisible, int prefetchDistance) {
+        return firstVisible >= 0 && firstVisible <= prefetchDistance;
+    }
+
+    /**
+     * @return the newest message which can anchor a cursor, a message whose server timestamp is
+     * still pending cannot.
+     */
+    @Nullable
+    public static <T> T getAnchor(List<T> newestFirst, Committed<T> committed) {
+        for (T message : newestFirst) {
+            if (committed.isCommitted(message)) {
+                return message;
+            }
+        }
+        return null;
+    }
+
+
+    // variables
+    private final CollectionReference mMessages;
+    private final OnMessagesChangedListener mListener;
+    // Messages read by pages, oldest first
+    private final List<DocumentSnapshot> mOlder;
+    // Messages of the live listener, oldest first
+    private List<DocumentSnapshot> mNewer;
+    private DocumentSnapshot mAnchor;
+    private ListenerRegistration mRegistration;
+    private Disposable mFirstPage;
+    private boolean mLoading;
+    private boolean mOldestLoaded;
+    private boolean mReleased;
+
+
+    // constructor
+
+    /**
+     * @param messages the collection of the messages of the chat.
+     */
+    public ChatWindow(CollectionReference messages, OnMessagesChangedListener listener) {
+        mMessages = messages;
+        mListener = listener;
+        mOlder = new ArrayList<>();
+        mNewer = new ArrayList<>();
+    }
+
+
+    // methods
+
+    /**
+     * Reads the newest page, painted from the cache at once and then reconciled with the server,
+     * and listens to the messages sent after it.
+     */
+    public void start() {
+        Log.d(TAG, "start");
+
+        mLoading = true;
+        mFirstPage = ReadPolicy.CACHE_FIRST_THEN_SERVER.get(ChatHelper.getNewestMessages(mMessages, PAGE_SIZE))
+                .subscribe(result -> onFirstPageRead(result.getDocuments()),
+                        throwable -> {
+                            Log.e(TAG, "start", throwable);
+                            mLoading = false;
+                        },
+                        () -> mLoading = false);
+    }
+
+    /**
+     * Reads the page before the oldest loaded message, unless a page is being read.
+     */
+    public void loadOlderPage() {
+        if (mLoading || mOldestLoaded || mReleased || mOlder.isEmpty()) {
+            return;
+        }
+        Log.d(TAG, "loadOlderPage: " + mOlder.size());
+
+        mLoading = true;
+        ChatHelper.getMessagesBefore(mMessages, mOlder.get(0), PAGE_SIZE).get().addOnCompleteListener(task -> {
+            mLoading = false;
+            if (mReleased) {
+                return;
+            }
+            if (!task.isSuccessful() || task.getResult() == null) {
+                Log.e(TAG, "loadOlderPage", task.getException());
+                return;
+            }
+
+            List<DocumentSnapshot> page = new ArrayList<>(task.getResult().getDocuments());
+            mOldestLoaded = page.size() < PAGE_SIZE;
+            Collections.reverse(page);
+            mOlder.addAll(0, page);
+            publish(page.size());
+        });
+    }
+
+    /**
+     * Stops the listener and the reads, e.g. when the screen stops.
+     */
+    public void release() {
+        Log.d(TAG, "release");
+
+        mReleased = true;
+        if (mFirstPage != null) {
+            mFirstPage.dispose();
+        }
+        if (mRegistration != null) {
+            mRegistration.remove();
+            mRegistration = null;
+        }
+    }
+
+    // The page is read once from the cache, then from the server which replaces it
+    private void onFirstPageRead(List<DocumentSnapshot> newestFirst) {
+        mOldestLoaded = newestFirst.size() < PAGE_SIZE;
+        mOlder.clear();
+        for (int i = newestFirst.size() - 1; i >= 0; i--) {
+            mOlder.add(newestFirst.get(i));
+        }
+        DocumentSnapshot anchor = getAnchor(newestFirst, snapshot -> !snapshot.getMetadata().hasPendingWrites());
+        // Without an anchor the listener would read the whole history, only an empty chat has none
+        if (anchor != null || newestFirst.isEmpty()) {
+            listenToNewer(anchor);
+        }
+        publish(0);
+    }
+
+    private void listenToNewer(@Nullable DocumentSnapshot anchor) {
+        if (mReleased || (mRegistration != null && sameDocument(anchor, mAnchor))) {
+            return;
+        }
+        if (mRegistration != null) {
+            mRegistration.remove();
+        }
+        mAnchor = anchor;
+        mNewer = new ArrayList<>();
+        mRegistration = ChatHelper.getMessagesAfter(mMessages, anchor)
+                .addSnapshotListener((snapshots, e) -> {
+                    if (e != null) {
+                        Log.e(TAG, "listenToNewer: onEvent", e);
+                        return;
+                    }
+                    if (snapshots != null) {
+                        mNewer = snapshots.getDocuments();
+                        publish(0);
+                    }
+                });
+    }
+
+    private static boolean sameDocument(@Nullable DocumentSnapshot first, @Nullable DocumentSnapshot second) {
+        return first == null ? second == null : second != null && first.getId().equals(second.getId());
+    }
+
+    // A message sent from this device may be in both lists until its timestamp is committed
+    private void publish(int olderCount) {
+        Map<String, DocumentSnapshot> snapshots = new LinkedHashMap<>();
+        for (DocumentSnapshot snapshot : mOlder) {
+            snapshots.put(snapshot.getId(), snapshot);
+        }
+        for (DocumentSnapshot snapshot : mNewer) {
+            snapshots.remove(snapshot.getId());
+            snapshots.put(snapshot.getId(), snapshot);
+        }
+
+        List<Message> messages = new ArrayList<>();
+        for (DocumentSnapshot snapshot : snapshots.values()) {
+            Message message = snapshot.toObject(Message.class, DocumentSnapshot.ServerTimestampBehavior.ESTIMATE);
+            if (message != null) {
+                messages.add(message);
+            }
+        }
+        mListener.onMessagesChanged(messages, olderCount);
+    }
+
+
+    /**
+     * Tells if the timestamp of a message is committed.
+     */
+    public interface Committed<T> {
+        boolean isCommitted(T message);
+    }
+
+    /**
+     * Listener notified with all the loaded messages, oldest first.
+     */
+    public interface OnMessagesChangedListener {
+
+        /**
+         * @param olderCount the number of messages added before the ones already shown.
+         */
+        void onMessagesChanged(List<Message> messages, int olderCount);
+    }
+}
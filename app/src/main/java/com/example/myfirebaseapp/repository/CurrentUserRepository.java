@@ -0,0 +1,263 @@
+package com.example.myfirebaseapp.repository;
+
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.example.myfirebaseapp.api.LunchHelper;
+import com.example.myfirebaseapp.api.UserHelper;
+import com.example.myfirebaseapp.models.LunchChoice;
+import com.example.myfirebaseapp.models.User;
+import com.example.myfirebaseapp.models.api.Place;
+import com.example.myfirebaseapp.utils.TimeUtils;
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.List;
+
+import io.reactivex.Maybe;
+import io.reactivex.Observable;
+import io.reactivex.android.schedulers.AndroidSchedulers;
+import io.reactivex.subjects.BehaviorSubject;
+
+/**
+ * Session store of the signed-in user. A single Firestore snapshot listener on the user's
+ * document is kept while a user is signed in, and every screen reads the latest {@link User}
+ * from memory instead of fetching the document again. Writes made through this class are
+ * applied locally before Firestore acknowledges them, and rolled back if they fail. The
+ * restaurant choice and the likes go through a {@link UserWriteOutbox}, so that a burst of
+ * toggles is sent as one batch holding the final values only.
+ */
+public class CurrentUserRepository {
+
+
+    // private static
+    private static final String TAG = CurrentUserRepository.class.getSimpleName();
+    private static CurrentUserRepository CURRENT_USER_REPOSITORY;
+
+
+    // public static
+    public static CurrentUserRepository getInstance() {
+        Log.d(TAG, "getInstance");
+
+        if (CURRENT_USER_REPOSITORY == null) {
+            CURRENT_USER_REPOSITORY = new CurrentUserRepository();
+        }
+        return CURRENT_USER_REPOSITORY;
+    }
+
+
+    // variables
+    private final CurrentUserState mState;
+    private final UserWriteOutbox mOutbox;
+    private BehaviorSubject<User> mUserSubject;
+    private ListenerRegistration mRegistration;
+    private String mUid;
+    private boolean mStarted;
+    private boolean mUpgradeChecked;
+
+
+    // constructor
+    private CurrentUserRepository() {
+        mState = new CurrentUserState();
+        mOutbox = new UserWriteOutbox(new UserWriteOutbox.Sender() {
+            @Override
+            public void send(List<UserWriteOutbox.Write> writes) {
+                sendBatch(writes);
+            }
+
+            @Override
+            public void cancel(UserWriteOutbox.Write write) {
+                mState.acknowledge(write.getKey(), write.getMutation());
+                publish();
+            }
+        }, UserWriteOutbox.DEFAULT_WINDOW_MILLIS, AndroidSchedulers.mainThread());
+        mUserSubject = BehaviorSubject.create();
+    }
+
+
+    // methods
+
+    /**
+     * Follows the signed-in user for the whole process: the listener is attached on sign-in
+     * and removed on sign-out. Called once from the application.
+     */
+    public void start() {
+        Log.d(TAG, "start");
+
+        if (mStarted) {
+            return;
+        }
+        mStarted = true;
+        FirebaseAuth.getInstance().addAuthStateListener(auth -> onSignedIn(auth.getCurrentUser()));
+    }
+
+    /**
+     * @return the latest state of the signed-in user, or null until the first snapshot.
+     */
+    @Nullable
+    public User getUser() {
+        return mState.getUser(TimeUtils.getToday());
+    }
+
+    /**
+     * @return the latest state of the signed-in user, then every change. The current value is
+     * emitted right away once loaded.
+     */
+    public Observable<User> getUserStream() {
+        return mUserSubject;
+    }
+
+    /**
+     * @return the signed-in user, synchronously after the first snapshot.
+     */
+    public Maybe<User> getUserOnce() {
+        return mUserSubject.firstElement();
+    }
+
+    // --- Writes ---
+    /**
+     * Chooses a restaurant for today, denormalizing the user and a summary of the restaurant
+     * (name, vicinity and photo) into the choice.
+     */
+    public void chooseRestaurant(Place.Result restaurant, int currentTime) {
+        User user = getUser();
+        if (user == null) {
+            return;
+        }
+        String today = TimeUtils.getToday();
+        String photo = restaurant.getPhotos() != null && !restaurant.getPhotos().isEmpty()
+                ? restaurant.getPhotos().get(0).getPhotoReference()
+                : null;
+        LunchChoice choice = new LunchChoice(mUid, user.getUsername(), user.getUrlPicture(), restaurant.getPlaceId(),
+                restaurant.getName(), restaurant.getVicinity(), photo, today, currentTime);
+
+        CurrentUserState.Mutation mutation = CurrentUserState.chooseRestaurant(restaurant.getPlaceId(), today, currentTime);
+        enqueue(UserWriteOutbox.Write.chooseRestaurant(getSavedRestaurantId(), choice, mutation));
+    }
+
+    public void leaveRestaurant() {
+        CurrentUserState.Mutation mutation = CurrentUserState.leaveRestaurant();
+        enqueue(UserWriteOutbox.Write.chooseRestaurant(getSavedRestaurantId(), null, mutation));
+    }
+
+    public void like(String placeId) {
+        enqueue(UserWriteOutbox.Write.like(placeId, isSavedLike(placeId), true, CurrentUserState.like(placeId)));
+    }
+
+    public void unlike(String placeId) {
+        enqueue(UserWriteOutbox.Write.like(placeId, isSavedLike(placeId), false, CurrentUserState.unlike(placeId)));
+    }
+
+    public Task<Void> updateUsername(String username) {
+        final CurrentUserState.Mutation mutation = CurrentUserState.rename(username);
+        mState.addPending("username", mutation);
+        publish();
+        return UserHelper.updateUsername(username, mUid).addOnCompleteListener(result -> {
+            if (!result.isSuccessful()) {
+                Log.e(TAG, "updateUsername: rolled back", result.getException());
+            }
+            mState.acknowledge("username", mutation);
+            publish();
+        });
+    }
+
+    // The restaurant saved in Firestore for today, without the pending writes
+    @Nullable
+    private String getSavedRestaurantId() {
+        User saved = mState.getServerUser();
+        return saved != null && TimeUtils.getToday().equals(saved.getLunchDay()) ? saved.getRestaurantId() : null;
+    }
+
+    private boolean isSavedLike(String placeId) {
+        User saved = mState.getServerUser();
+        return saved != null && saved.getLike() != null && saved.getLike().contains(placeId);
+    }
+
+    private void enqueue(UserWriteOutbox.Write write) {
+        if (mUid == null) {
+            return;
+        }
+        mState.addPending(write.getKey(), write.getMutation());
+        publish();
+        mOutbox.enqueue(write);
+    }
+
+    private void sendBatch(final List<UserWriteOutbox.Write> writes) {
+        if (mUid == null) {
+            return;
+        }
+        WriteBatch batch = FirebaseFirestore.getInstance().batch();
+        for (UserWriteOutbox.Write write : writes) {
+            if (write.isRestaurantChoice()) {
+                LunchChoice choice = write.getChoice();
+                LunchHelper.setChoice(batch, mUid, choice != null ? choice.getDay() : TimeUtils.getToday(), write.getSavedPlaceId(), choice);
+            } else {
+                UserHelper.updateLike(batch, mUid, write.getPlaceId(), write.isLiked());
+            }
+        }
+
+        // A batch is applied to the local cache right away, so the snapshot listener already
+        // holds the new values when the optimistic ones are removed
+        batch.commit().addOnCompleteListener(result -> {
+            if (!result.isSuccessful()) {
+                Log.e(TAG, "sendBatch: rolled back", result.getException());
+            }
+            for (UserWriteOutbox.Write write : writes) {
+                mState.acknowledge(write.getKey(), write.getMutation());
+            }
+            publish();
+        });
+    }
+
+    private void onSignedIn(@Nullable FirebaseUser firebaseUser) {
+        String uid = firebaseUser != null ? firebaseUser.getUid() : null;
+        if (uid != null ? uid.equals(mUid) : mUid == null) {
+            return;
+        }
+        Log.d(TAG, "onSignedIn: " + uid);
+
+        if (mRegistration != null) {
+            mRegistration.remove();
+            mRegistration = null;
+        }
+        mOutbox.clear();
+        mState.clear();
+        // A new subject, so that the next user is never served the previous one
+        mUserSubject.onComplete();
+        mUserSubject = BehaviorSubject.create();
+        mUid = uid;
+        mUpgradeChecked = false;
+
+        if (uid != null) {
+            mRegistration = UserHelper.getUsersCollection().document(uid)
+                    .addSnapshotListener((snapshot, e) -> {
+                        if (e != null) {
+                            Log.e(TAG, "onSignedIn: onEvent", e);
+                            return;
+                        }
+                        // The document is created right after the first sign-in
+                        if (snapshot != null && snapshot.exists()) {
+                            // Each client brings its own document to the last layout, once per sign-in
+                            if (!mUpgradeChecked && !snapshot.getMetadata().hasPendingWrites()) {
+                                mUpgradeChecked = true;
+                                UserSchemaMigrator.upgrade(snapshot, UserSchema.MIGRATIONS);
+                            }
+                            mState.setServerUser(snapshot.toObject(User.class));
+                            publish();
+                        }
+                    });
+        }
+    }
+
+    private void publish() {
+        User user = getUser();
+        if (user != null) {
+            mUserSubject.onNext(user);
+        }
+    }
+}
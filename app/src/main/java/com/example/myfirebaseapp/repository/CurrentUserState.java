@@ -0,0 +1,119 @@
+package com.example.myfirebaseapp.repository;
+
+import com.example.myfirebaseapp.models.User;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Latest known state of the signed-in user: the last snapshot read from Firestore with the
+ * local writes not yet acknowledged applied on top of it. Each pending write sets an absolute
+ * value, so applying it again on a snapshot which already contains it changes nothing, and a
+ * newer write to the same key replaces the older one. The restaurant chosen is only kept on
+ * the day it was chosen for.
+ */
+public class CurrentUserState {
+
+    // variables
+    private final Map<String, Mutation> mPending = new LinkedHashMap<>();
+    private User mServerUser;
+
+
+    // methods
+
+    /**
+     * Replaces the last snapshot read from Firestore.
+     */
+    public void setServerUser(User user) {
+        mServerUser = user;
+    }
+
+    /**
+     * @return the last snapshot read from Firestore, or null before the first one.
+     */
+    public User getServerUser() {
+        return mServerUser;
+    }
+
+    /**
+     * Applies a local write until {@link #acknowledge(String, Mutation)} is called for it.
+     *
+     * @param key the field written, e.g. the restaurantId or the like of one restaurant.
+     */
+    public void addPending(String key, Mutation mutation) {
+        mPending.remove(key);
+        mPending.put(key, mutation);
+    }
+
+    /**
+     * Stops applying a local write, once Firestore accepted or rejected it. Nothing is done if
+     * a newer write to the same key replaced it meanwhile.
+     */
+    public void acknowledge(String key, Mutation mutation) {
+        if (mPending.get(key) == mutation) {
+            mPending.remove(key);
+        }
+    }
+
+    /**
+     * @param today the current day, as "yyyy-MM-dd".
+     * @return a copy of the last snapshot with the pending writes applied, or null before the
+     * first snapshot.
+     */
+    public User getUser(String today) {
+        if (mServerUser == null) {
+            return null;
+        }
+        User user = new User(mServerUser);
+        for (Mutation mutation : mPending.values()) {
+            mutation.apply(user);
+        }
+        if (!today.equals(user.getLunchDay())) {
+            user.setRestaurantId(null);
+        }
+        return user;
+    }
+
+    public void clear() {
+        mPending.clear();
+        mServerUser = null;
+    }
+
+
+    // --- Mutations ---
+    public static Mutation chooseRestaurant(final String placeId, final String day, final int currentTime) {
+        return user -> {
+            user.setRestaurantId(placeId);
+            user.setLunchDay(day);
+            user.setCurrentTime(currentTime);
+        };
+    }
+
+    public static Mutation leaveRestaurant() {
+        return user -> user.setRestaurantId(null);
+    }
+
+    public static Mutation like(final String placeId) {
+        return user -> {
+            if (!user.getLike().contains(placeId)) {
+                user.getLike().add(placeId);
+            }
+        };
+    }
+
+    public static Mutation unlike(final String placeId) {
+        return user -> user.getLike().remove(placeId);
+    }
+
+    public static Mutation rename(final String username) {
+        return user -> user.setUsername(username);
+    }
+
+
+    /**
+     * A local write applied to a copy of the user.
+     */
+    public interface Mutation {
+        void apply(User user);
+    }
+}
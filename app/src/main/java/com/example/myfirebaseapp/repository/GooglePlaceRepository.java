@@ -7,15 +7,18 @@ import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 
 import com.example.myfirebaseapp.models.api.Autocomplete;
-import com.example.myfirebaseapp.models.api.Details;
 import com.example.myfirebaseapp.models.api.NearbySearch;
 import com.example.myfirebaseapp.models.api.Restaurant;
+import com.example.myfirebaseapp.service.DetailsTier;
 import com.example.myfirebaseapp.service.GoogleMapsApi;
+import com.example.myfirebaseapp.service.PlaceDetailsCache;
+import com.example.myfirebaseapp.service.PlacesRepository;
 import com.example.myfirebaseapp.service.RetrofitService;
 
 import java.util.ArrayList;
 import java.util.List;
 
+import io.reactivex.disposables.CompositeDisposable;
 import retrofit2.Call;
 import retrofit2.Callback;
 import retrofit2.Response;
@@ -37,14 +40,16 @@ public class GooglePlaceRepository {
     private final MutableLiveData<List<Restaurant>> mNearbyRestaurants;
     private final MutableLiveData<Restaurant> mDetailsRestaurant;
     private final MutableLiveData<List<Autocomplete.Prediction>> mAutocompletePredictions;
+    private final CompositeDisposable mDisposables;
 
 
     // constructor
     private GooglePlaceRepository() {
-        mGoogleMapsApi = RetrofitService.createService(GoogleMapsApi.class);
+        mGoogleMapsApi = RetrofitService.getGoogleMapsApi();
         mNearbyRestaurants = new MutableLiveData<>();
         mDetailsRestaurant = new MutableLiveData<>();
         mAutocompletePredictions = new MutableLiveData<>();
+        mDisposables = new CompositeDisposable();
     }
 
 
@@ -73,38 +78,31 @@ public class GooglePlaceRepository {
 
     /**
      * Makes-up a call to the Google Places Nearby Search API in order to set-up a LiveData of a
-     * List of {@link Restaurant} which can then be observed.
+     * List of {@link Restaurant} which can then be observed. The next pages of results are
+     * followed and the LiveData is updated with the growing list as each page arrives.
      *
-     * @see GoogleMapsApi#getNearbySearch for parameters info.
+     * @see GoogleMapsApi#getNearbyRestaurants for parameters info.
      */
     public void setNearbyRestaurantsLiveData(String keyword, String type, String location, int radius) {
         Log.d(TAG, "setNearbyRestaurantsLiveData");
 
-        Call<NearbySearch> placeNearbySearch = mGoogleMapsApi.getNearbySearch(keyword, type, location, radius);
-        placeNearbySearch.enqueue(new Callback<NearbySearch>() {
-            @Override
-            public void onResponse(@NonNull Call<NearbySearch> call, @NonNull Response<NearbySearch> response) {
-                Log.d(TAG, "setNearbyRestaurantsLiveData: onResponse");
-
-                List<Restaurant> restaurants = new ArrayList<>();
+        final List<Restaurant> restaurants = new ArrayList<>();
+        mDisposables.add(PlacesRepository.getNearbyRestaurantPagesStream(location, radius, type, keyword)
+                .subscribe(nearbySearch -> {
+                    Log.d(TAG, "setNearbyRestaurantsLiveData: onNext");
 
-                if (response.body() != null) {
-                    for (NearbySearch.Result result : response.body().getResults()) {
-                        Restaurant restaurant = new Restaurant(result);
-                        restaurants.add(restaurant);
+                    for (NearbySearch.Result result : nearbySearch.getResults()) {
+                        // Like the tile filter, a result without a location cannot be placed
+                        if (result.getGeometry() != null && result.getGeometry().getLocation() != null) {
+                            restaurants.add(new Restaurant(result));
+                        }
                     }
-                }
-
-                mNearbyRestaurants.setValue(restaurants);
-            }
-
-            @Override
-            public void onFailure(@NonNull Call<NearbySearch> call, @NonNull Throwable t) {
-                Log.e(TAG, "setNearbyRestaurantsLiveData: onFailure", t);
+                    mNearbyRestaurants.setValue(new ArrayList<>(restaurants));
+                }, throwable -> {
+                    Log.e(TAG, "setNearbyRestaurantsLiveData: onError", throwable);
 
-                mNearbyRestaurants.postValue(null);
-            }
-        });
+                    mNearbyRestaurants.postValue(null);
+                }));
     }
 
     /**
@@ -119,9 +117,10 @@ public class GooglePlaceRepository {
 
     /**
      * Makes-up a call to the Google Places Details API in order to set-up a LiveData of a
-     * {@link Restaurant} which can then be observed.
+     * {@link Restaurant} which can then be observed. Details go through the shared
+     * {@link PlaceDetailsCache}.
      *
-     * @see GoogleMapsApi#getDetails for parameters info.
+     * @see GoogleMapsApi#getRestaurantDetails for parameters info.
      */
     public void setDetailsRestaurantLiveData(String placeId) {
         Log.d(TAG, "setDetailsRestaurantLiveData");
@@ -131,24 +130,18 @@ public class GooglePlaceRepository {
             return;
         }
 
-        Call<Details> placeDetails = mGoogleMapsApi.getDetails(placeId);
-        placeDetails.enqueue(new Callback<Details>() {
-            @Override
-            public void onResponse(@NonNull Call<Details> call, @NonNull Response<Details> response) {
-                Log.d(TAG, "setDetailsRestaurantLiveData: onResponse");
+        mDisposables.add(PlacesRepository.getRestaurantDetailStream(placeId, DetailsTier.FULL)
+                .subscribe(place -> {
+                    Log.d(TAG, "setDetailsRestaurantLiveData: onNext");
 
-                if (response.body() != null && response.body().getResult() != null) {
-                    mDetailsRestaurant.setValue(new Restaurant(response.body().getResult()));
-                }
-            }
-
-            @Override
-            public void onFailure(@NonNull Call<Details> call, @NonNull Throwable t) {
-                Log.e(TAG, "setDetailsRestaurantLiveData: onFailure", t);
+                    if (place.getResult() != null) {
+                        mDetailsRestaurant.setValue(new Restaurant(place.getResult()));
+                    }
+                }, throwable -> {
+                    Log.e(TAG, "setDetailsRestaurantLiveData: onError", throwable);
 
-                mDetailsRestaurant.postValue(null);
-            }
-        });
+                    mDetailsRestaurant.postValue(null);
+                }));
     }
 
     /**
@@ -193,29 +186,32 @@ public class GooglePlaceRepository {
     /**
      * Makes-up a call to the Google Places Details API which will return a
      * {@link Restaurant} that can then be retrieved using
-     * an {@link OnCompleteListener}.
+     * an {@link OnCompleteListener}. Details go through the shared {@link PlaceDetailsCache}.
      *
-     * @see GoogleMapsApi#getDetails for parameters info.
+     * @see GoogleMapsApi#getRestaurantDetails for parameters info.
      */
     public void getDetailsRestaurant(String placeId, OnCompleteListener onCompleteListener) {
-        Call<Details> placeDetails = mGoogleMapsApi.getDetails(placeId);
-        placeDetails.enqueue(new Callback<Details>() {
-            @Override
-            public void onResponse(@NonNull Call<Details> call, @NonNull Response<Details> response) {
-                Log.d(TAG, "getDetailsRestaurant: onResponse");
+        mDisposables.add(PlacesRepository.getRestaurantDetailStream(placeId, DetailsTier.FULL)
+                .subscribe(place -> {
+                    Log.d(TAG, "getDetailsRestaurant: onNext");
 
-                if (response.body() != null) {
-                    onCompleteListener.onSuccess(new Restaurant(response.body().getResult()));
-                }
-            }
+                    if (place.getResult() != null) {
+                        onCompleteListener.onSuccess(new Restaurant(place.getResult()));
+                    }
+                }, throwable -> {
+                    Log.e(TAG, "getDetailsRestaurant: onError", throwable);
 
-            @Override
-            public void onFailure(@NonNull Call<Details> call, @NonNull Throwable t) {
-                Log.e(TAG, "setDetails: onFailure", t);
+                    onCompleteListener.onFailure();
+                }));
+    }
 
-                onCompleteListener.onFailure();
-            }
-        });
+    /**
+     * Cancels the calls in flight, e.g. once the screen observing their results is gone.
+     */
+    public void clear() {
+        Log.d(TAG, "clear");
+
+        mDisposables.clear();
     }
 
     /**
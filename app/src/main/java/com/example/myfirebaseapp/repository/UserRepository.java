@@ -10,9 +10,9 @@ import com.google.firebase.firestore.Query;
 
 import com.example.myfirebaseapp.models.User;
 
-import static com.example.myfirebaseapp.utils.Constant.LIKED_RESTAURANTS_ID_FIELD;
-import static com.example.myfirebaseapp.utils.Constant.NAME_ID_FIELD;
-import static com.example.myfirebaseapp.utils.Constant.SELECTED_RESTAURANT_ID_FIELD;
+import static com.example.myfirebaseapp.repository.UserSchema.LIKE_FIELD;
+import static com.example.myfirebaseapp.repository.UserSchema.RESTAURANT_ID_FIELD;
+import static com.example.myfirebaseapp.repository.UserSchema.USERNAME_FIELD;
 import static com.example.myfirebaseapp.utils.Constant.URL_PICTURE_ID_FIELD;
 
 
@@ -68,7 +68,7 @@ public class UserRepository {
     }
 
     /**
-     * Updates a {@link User}'s selectedRestaurantId and selectedRestaurantName fields in the
+     * Updates a {@link User}'s restaurantId and selectedRestaurantName fields in the
      * project's Firebase Firestore.
      *
      * @param user the {@link User} instance to be updated.
@@ -79,12 +79,12 @@ public class UserRepository {
 
         return mCollectionReference
                 .document(user.getUid())
-                .update(SELECTED_RESTAURANT_ID_FIELD, user.getSelectedRestaurantId(),
+                .update(RESTAURANT_ID_FIELD, user.getRestaurantId(),
                         SELECTED_RESTAURANT_NAME_FIELD, user.getSelectedRestaurantName());
     }
 
     /**
-     * Updates a {@link User}'s likedRestaurants field in the project's Firebase Firestore.
+     * Updates a {@link User}'s like field in the project's Firebase Firestore.
      *
      * @param user the {@link User} instance to be updated.
      * @return a {@link Task} to which can be passed Listeners for completion results.
@@ -94,11 +94,11 @@ public class UserRepository {
 
         return mCollectionReference
                 .document(user.getUid())
-                .update(LIKED_RESTAURANTS_ID_FIELD, user.getLikedRestaurants());
+                .update(LIKE_FIELD, user.getLike());
     }
 
     /**
-     * Updates a {@link User}'s name field in the project's Firebase Firestore.
+     * Updates a {@link User}'s username field in the project's Firebase Firestore.
      *
      * @param uid  the unique identifier for the {@link User} to be updated.
      * @param name the name to apply.
@@ -109,7 +109,7 @@ public class UserRepository {
 
         return mCollectionReference
                 .document(uid)
-                .update(NAME_ID_FIELD, name);
+                .update(USERNAME_FIELD, name);
     }
 
     /**
@@ -159,6 +159,6 @@ public class UserRepository {
         Log.d(TAG, "loadWorkmatesInRestaurants");
 
         return mCollectionReference
-                .whereEqualTo(SELECTED_RESTAURANT_ID_FIELD, placeId);
+                .whereEqualTo(RESTAURANT_ID_FIELD, placeId);
     }
 }
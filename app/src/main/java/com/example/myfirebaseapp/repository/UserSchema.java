@@ -0,0 +1,153 @@
+package com.example.myfirebaseapp.repository;
+
+import com.example.myfirebaseapp.models.User;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Layout of the documents of the users collection, and the migrations which bring a document
+ * written by an older version of the app to it. The canonical fields are the ones of
+ * {@link com.example.myfirebaseapp.api.UserHelper}: restaurantId, like and username. Documents
+ * written before version 1 may also, or only, hold the fields of the former UserRepository:
+ * selectedRestaurantId, likedRestaurants and name.
+ */
+public class UserSchema {
+
+
+    // public static
+    public static final String SCHEMA_VERSION_FIELD = "schemaVersion";
+    public static final String RESTAURANT_ID_FIELD = "restaurantId";
+    public static final String LIKE_FIELD = "like";
+    public static final String USERNAME_FIELD = "username";
+
+    // Fields of the layout written by UserRepository before version 1
+    public static final String LEGACY_RESTAURANT_ID_FIELD = "selectedRestaurantId";
+    public static final String LEGACY_LIKE_FIELD = "likedRestaurants";
+    public static final String LEGACY_USERNAME_FIELD = "name";
+
+    /**
+     * The migrations, in the order of their versions. The last version is {@link User#SCHEMA_VERSION}.
+     */
+    public static final List<Migration> MIGRATIONS = Collections.unmodifiableList(Arrays.<Migration>asList(
+            new CanonicalFieldsMigration()));
+
+    /**
+     * @return the version of the document, 0 for a document written before versioning.
+     */
+    public static int getVersion(Map<String, Object> data) {
+        Object version = data.get(SCHEMA_VERSION_FIELD);
+        return version instanceof Number ? ((Number) version).intValue() : 0;
+    }
+
+    /**
+     * @return a copy of the document with every migration of a later version than the document
+     * applied in order, and the version of the last one.
+     */
+    public static Map<String, Object> migrate(Map<String, Object> data, List<Migration> migrations) {
+        Map<String, Object> migrated = new HashMap<>(data);
+        int version = getVersion(data);
+        for (Migration migration : migrations) {
+            if (migration.getVersion() > version) {
+                migration.migrate(migrated);
+                version = migration.getVersion();
+                migrated.put(SCHEMA_VERSION_FIELD, version);
+            }
+        }
+        return migrated;
+    }
+
+    /**
+     * @return the fields added or changed by a migration, with their new value.
+     */
+    public static Map<String, Object> getChangedFields(Map<String, Object> before, Map<String, Object> after) {
+        Map<String, Object> changed = new HashMap<>();
+        for (Map.Entry<String, Object> field : after.entrySet()) {
+            if (!before.containsKey(field.getKey()) || !Objects.equals(before.get(field.getKey()), field.getValue())) {
+                changed.put(field.getKey(), field.getValue());
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * @return the fields removed by a migration.
+     */
+    public static Set<String> getRemovedFields(Map<String, Object> before, Map<String, Object> after) {
+        Set<String> removed = new LinkedHashSet<>(before.keySet());
+        removed.removeAll(after.keySet());
+        return removed;
+    }
+
+    /**
+     * @return the elements a migration added to a list which it kept whole, or null if the list
+     * lost elements. Added elements can be written as an array union, which keeps the elements
+     * added by the app since the document was read.
+     */
+    public static List<Object> getAddedElements(Object before, Object after) {
+        if (!(after instanceof List)) {
+            return null;
+        }
+        List<?> previous = before instanceof List ? (List<?>) before : Collections.emptyList();
+        if (!((List<?>) after).containsAll(previous)) {
+            return null;
+        }
+        List<Object> added = new ArrayList<Object>((List<?>) after);
+        added.removeAll(previous);
+        return added;
+    }
+
+
+    /**
+     * Step from the previous version of the layout to its version.
+     */
+    public interface Migration {
+
+        int getVersion();
+
+        /**
+         * Rewrites the fields of a document of the previous version.
+         */
+        void migrate(Map<String, Object> data);
+    }
+
+
+    // Version 1: the fields of UserRepository converge on the ones of UserHelper
+    private static class CanonicalFieldsMigration implements Migration {
+
+        @Override
+        public int getVersion() {
+            return 1;
+        }
+
+        @Override
+        public void migrate(Map<String, Object> data) {
+            Object restaurantId = data.remove(LEGACY_RESTAURANT_ID_FIELD);
+            if (data.get(RESTAURANT_ID_FIELD) == null && restaurantId != null) {
+                data.put(RESTAURANT_ID_FIELD, restaurantId);
+            }
+
+            Object username = data.remove(LEGACY_USERNAME_FIELD);
+            if (data.get(USERNAME_FIELD) == null && username != null) {
+                data.put(USERNAME_FIELD, username);
+            }
+
+            Object legacyLikes = data.remove(LEGACY_LIKE_FIELD);
+            if (legacyLikes instanceof List) {
+                Set<Object> likes = new LinkedHashSet<>();
+                if (data.get(LIKE_FIELD) instanceof List) {
+                    likes.addAll((List<?>) data.get(LIKE_FIELD));
+                }
+                likes.addAll((List<?>) legacyLikes);
+                data.put(LIKE_FIELD, new ArrayList<>(likes));
+            }
+        }
+    }
+}
@@ -0,0 +1,313 @@
+package com.example.myfirebaseapp.repository;
+
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.example.myfirebaseapp.models.User;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.Source;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Observable;
+import io.reactivex.Scheduler;
+import io.reactivex.disposables.Disposable;
+
+/**
+ * Engine which brings the documents of the users collection to the last version of
+ * {@link UserSchema}. The collection is read in chunks ordered by document id, the documents of
+ * an older version are rewritten in one {@link WriteBatch} per chunk, and a delay between two
+ * chunks keeps the writes throttled. The cursor of the last chunk is saved in the same batch as
+ * its documents, so a migration stopped for any reason resumes after the last committed chunk.
+ * <p>
+ * The whole-collection run is a one-off job for an operator, run against the emulator or with an
+ * account the security rules let write every user, never by the app itself. The app only
+ * upgrades the document of the signed-in user, see {@link #upgrade(DocumentSnapshot, List)}.
+ */
+public class UserSchemaMigrator {
+
+
+    // private static
+    private static final String TAG = UserSchemaMigrator.class.getSimpleName();
+    private static final String VERSION_FIELD = "version";
+    private static final String LAST_DOCUMENT_ID_FIELD = "lastDocumentId";
+    private static final String SCANNED_FIELD = "scanned";
+    private static final String MIGRATED_FIELD = "migrated";
+    private static final String DONE_FIELD = "done";
+    // Set on the progress document to let the clients upgrade their own document
+    private static final String CLIENT_UPGRADE_FIELD = "clientUpgrade";
+
+
+    // public static
+    public static final String MIGRATION_COLLECTION_NAME = "migrations";
+    public static final String PROGRESS_DOCUMENT_NAME = "users";
+    // A WriteBatch holds at most 500 writes, one of them is the cursor
+    public static final int DEFAULT_CHUNK_SIZE = 100;
+    public static final long DEFAULT_CHUNK_DELAY_MILLIS = 1000;
+
+    /**
+     * Upgrades the document of the signed-in user, read by its snapshot listener, if it is of an
+     * older version and the progress document of the migration enables it. The flag is only read
+     * for an outdated document, from the cache when offline, so an up to date user costs nothing.
+     */
+    public static void upgrade(final DocumentSnapshot snapshot, final List<UserSchema.Migration> migrations) {
+        Map<String, Object> data = snapshot.getData();
+        if (data == null || getUpdates(data, migrations) == null) {
+            return;
+        }
+        snapshot.getReference().getFirestore()
+                .collection(MIGRATION_COLLECTION_NAME).document(PROGRESS_DOCUMENT_NAME)
+                .get().addOnCompleteListener(task -> {
+            if (!task.isSuccessful() || task.getResult() == null
+                    || !Boolean.TRUE.equals(task.getResult().getBoolean(CLIENT_UPGRADE_FIELD))) {
+                return;
+            }
+            Log.d(TAG, "upgrade: " + snapshot.getId());
+            // Written against the document as read, a field changed meanwhile is upgraded on the next read
+            snapshot.getReference().update(getUpdates(data, migrations))
+                    .addOnFailureListener(e -> Log.e(TAG, "upgrade: " + snapshot.getId(), e));
+        });
+    }
+
+    /**
+     * @return the writes bringing a document to the last version, or null if it is up to date.
+     * Removed fields are deleted, and a list which only gained elements is written as an array
+     * union so that a like added by the app meanwhile is kept.
+     */
+    @Nullable
+    public static Map<String, Object> getUpdates(Map<String, Object> data, List<UserSchema.Migration> migrations) {
+        if (migrations.isEmpty() || UserSchema.getVersion(data) >= getTargetVersion(migrations)) {
+            return null;
+        }
+
+        Map<String, Object> migrated = UserSchema.migrate(data, migrations);
+        Map<String, Object> updates = new HashMap<>();
+        for (Map.Entry<String, Object> field : UserSchema.getChangedFields(data, migrated).entrySet()) {
+            List<Object> added = UserSchema.getAddedElements(data.get(field.getKey()), field.getValue());
+            updates.put(field.getKey(), added != null ? FieldValue.arrayUnion(added.toArray()) : field.getValue());
+        }
+        for (String field : UserSchema.getRemovedFields(data, migrated)) {
+            updates.put(field, FieldValue.delete());
+        }
+        return updates;
+    }
+
+    private static int getTargetVersion(List<UserSchema.Migration> migrations) {
+        return migrations.isEmpty() ? 0 : migrations.get(migrations.size() - 1).getVersion();
+    }
+
+
+    // variables
+    private final FirebaseFirestore mFirestore;
+    private final List<UserSchema.Migration> mMigrations;
+    private final int mTargetVersion;
+    private final int mChunkSize;
+    private final long mChunkDelayMillis;
+    private final Scheduler mScheduler;
+    private ProgressListener mListener;
+    private Disposable mTimer;
+    private boolean mRunning;
+    private long mScanned;
+    private long mMigrated;
+
+
+    // constructor
+
+    /**
+     * @param firestore        the Firestore instance, e.g. one connected to the emulator.
+     * @param migrations       the migrations, in the order of their versions.
+     * @param chunkSize        the number of documents read and written at once.
+     * @param chunkDelayMillis the delay between two chunks.
+     * @param scheduler        the scheduler of the delay.
+     */
+    public UserSchemaMigrator(FirebaseFirestore firestore, List<UserSchema.Migration> migrations,
+                              int chunkSize, long chunkDelayMillis, Scheduler scheduler) {
+        mFirestore = firestore;
+        mMigrations = migrations;
+        mTargetVersion = getTargetVersion(migrations);
+        mChunkSize = chunkSize;
+        mChunkDelayMillis = chunkDelayMillis;
+        mScheduler = scheduler;
+    }
+
+
+    // methods
+
+    /**
+     * Starts, or resumes, the migration of the whole collection. A migration already done for
+     * the last version only costs the read of its progress. To be run once per version by an
+     * operator, concurrent runs would share the same cursor.
+     */
+    public void start(ProgressListener listener) {
+        if (mRunning) {
+            return;
+        }
+        Log.d(TAG, "start: version " + mTargetVersion);
+
+        mRunning = true;
+        mListener = listener;
+        getProgressDocument().get(Source.SERVER).addOnCompleteListener(task -> {
+            if (!mRunning) {
+                return;
+            }
+            if (!task.isSuccessful() || task.getResult() == null) {
+                fail(task.getException());
+                return;
+            }
+
+            DocumentSnapshot progress = task.getResult();
+            Long version = progress.getLong(VERSION_FIELD);
+            if (version == null || version != mTargetVersion) {
+                // A new version scans the whole collection again
+                mScanned = 0;
+                mMigrated = 0;
+                migrateChunk(null);
+            } else if (Boolean.TRUE.equals(progress.getBoolean(DONE_FIELD))) {
+                mRunning = false;
+                mListener.onComplete(getLong(progress, MIGRATED_FIELD));
+            } else {
+                mScanned = getLong(progress, SCANNED_FIELD);
+                mMigrated = getLong(progress, MIGRATED_FIELD);
+                migrateChunk(progress.getString(LAST_DOCUMENT_ID_FIELD));
+            }
+        });
+    }
+
+    /**
+     * Stops the migration after the chunk being written, it resumes from there on the next start.
+     */
+    public void stop() {
+        Log.d(TAG, "stop");
+
+        mRunning = false;
+        if (mTimer != null) {
+            mTimer.dispose();
+            mTimer = null;
+        }
+    }
+
+    public DocumentReference getProgressDocument() {
+        return mFirestore.collection(MIGRATION_COLLECTION_NAME).document(PROGRESS_DOCUMENT_NAME);
+    }
+
+    private void migrateChunk(@Nullable String lastDocumentId) {
+        mTimer = null;
+        if (!mRunning) {
+            return;
+        }
+        Log.d(TAG, "migrateChunk: after " + lastDocumentId);
+
+        Query query = mFirestore.collection(UserRepository.USER_COLLECTION_NAME)
+                .orderBy(FieldPath.documentId())
+                .limit(mChunkSize);
+        if (lastDocumentId != null) {
+            query = query.startAfter(lastDocumentId);
+        }
+        // The cache may not hold every document, nor their last version
+        query.get(Source.SERVER).addOnCompleteListener(task -> {
+            if (!task.isSuccessful() || task.getResult() == null) {
+                fail(task.getException());
+                return;
+            }
+
+            List<DocumentSnapshot> snapshots = task.getResult().getDocuments();
+            WriteBatch batch = mFirestore.batch();
+            long migrated = 0;
+            for (DocumentSnapshot snapshot : snapshots) {
+                if (addMigration(batch, snapshot)) {
+                    migrated++;
+                }
+            }
+
+            final long scanned = mScanned + snapshots.size();
+            final long total = mMigrated + migrated;
+            final boolean done = snapshots.size() < mChunkSize;
+            final String last = snapshots.isEmpty() ? lastDocumentId : snapshots.get(snapshots.size() - 1).getId();
+            batch.set(getProgressDocument(), getProgress(last, scanned, total, done), SetOptions.merge());
+
+            batch.commit().addOnCompleteListener(commit -> {
+                if (!commit.isSuccessful()) {
+                    fail(commit.getException());
+                    return;
+                }
+                mScanned = scanned;
+                mMigrated = total;
+                if (done) {
+                    Log.d(TAG, "migrateChunk: done, " + total + " documents migrated");
+                    mRunning = false;
+                    mListener.onComplete(total);
+                    return;
+                }
+                mListener.onProgress(scanned, total);
+                if (mRunning) {
+                    mTimer = Observable.timer(mChunkDelayMillis, TimeUnit.MILLISECONDS, mScheduler)
+                            .subscribe(tick -> migrateChunk(last));
+                }
+            });
+        });
+    }
+
+    /**
+     * Adds the rewrite of a document of an older version to the batch.
+     *
+     * @return true if the document needed a rewrite.
+     */
+    private boolean addMigration(WriteBatch batch, DocumentSnapshot snapshot) {
+        Map<String, Object> data = snapshot.getData();
+        Map<String, Object> updates = data != null ? getUpdates(data, mMigrations) : null;
+        if (updates == null) {
+            return false;
+        }
+        batch.update(snapshot.getReference(), updates);
+        return true;
+    }
+
+    private Map<String, Object> getProgress(@Nullable String lastDocumentId, long scanned, long migrated, boolean done) {
+        Map<String, Object> progress = new HashMap<>();
+        progress.put(VERSION_FIELD, mTargetVersion);
+        progress.put(LAST_DOCUMENT_ID_FIELD, lastDocumentId);
+        progress.put(SCANNED_FIELD, scanned);
+        progress.put(MIGRATED_FIELD, migrated);
+        progress.put(DONE_FIELD, done);
+        return progress;
+    }
+
+    private static long getLong(DocumentSnapshot snapshot, String field) {
+        Long value = snapshot.getLong(field);
+        return value != null ? value : 0;
+    }
+
+    private void fail(@Nullable Exception e) {
+        Log.e(TAG, "migration stopped, it resumes on the next start", e);
+        mRunning = false;
+        mListener.onError(e);
+    }
+
+
+    /**
+     * Listener of the progress of a migration, on the main thread.
+     */
+    public interface ProgressListener {
+
+        /**
+         * @param scanned  the documents read so far.
+         * @param migrated the documents rewritten so far.
+         */
+        void onProgress(long scanned, long migrated);
+
+        void onComplete(long migrated);
+
+        void onError(@Nullable Exception e);
+    }
+}
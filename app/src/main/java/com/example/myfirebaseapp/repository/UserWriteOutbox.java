@@ -0,0 +1,200 @@
+package com.example.myfirebaseapp.repository;
+
+import androidx.annotation.Nullable;
+
+import com.example.myfirebaseapp.models.LunchChoice;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Observable;
+import io.reactivex.Scheduler;
+import io.reactivex.disposables.Disposable;
+
+/**
+ * Outbox of the preference writes of the signed-in user (restaurant choice and likes). Writes to
+ * the same key within the window collapse into the last one, writes which end up on the value
+ * Firestore already has are dropped, and the remaining ones are handed over together so that a
+ * burst of taps costs a single batch.
+ */
+public class UserWriteOutbox {
+
+
+    // public static
+    public static final long DEFAULT_WINDOW_MILLIS = 500;
+    public static final String KEY_RESTAURANT = "restaurantId";
+    private static final String KEY_LIKE = "like/";
+
+
+    // variables
+    private final Map<String, Write> mWrites = new LinkedHashMap<>();
+    private final Sender mSender;
+    private final long mWindowMillis;
+    private final Scheduler mScheduler;
+    private Disposable mTimer;
+
+
+    // constructor
+    public UserWriteOutbox(Sender sender, long windowMillis, Scheduler scheduler) {
+        mSender = sender;
+        mWindowMillis = windowMillis;
+        mScheduler = scheduler;
+    }
+
+
+    // methods
+
+    /**
+     * Queues a write, replacing the pending write to the same key, and starts the window if it
+     * is not running yet.
+     */
+    public void enqueue(Write write) {
+        Write previous = mWrites.remove(write.mKey);
+        if (previous != null) {
+            write = previous.supersededBy(write);
+            mSender.cancel(previous);
+        }
+
+        if (write.isNoOp()) {
+            // Back to its saved value, nothing to send
+            mSender.cancel(write);
+        } else {
+            mWrites.put(write.mKey, write);
+        }
+
+        if (mTimer == null && !mWrites.isEmpty()) {
+            mTimer = Observable.timer(mWindowMillis, TimeUnit.MILLISECONDS, mScheduler)
+                    .subscribe(tick -> flush());
+        }
+    }
+
+    /**
+     * Hands over the pending writes right away.
+     */
+    public void flush() {
+        if (mTimer != null) {
+            mTimer.dispose();
+            mTimer = null;
+        }
+        if (mWrites.isEmpty()) {
+            return;
+        }
+        List<Write> writes = new ArrayList<>(mWrites.values());
+        mWrites.clear();
+        mSender.send(writes);
+    }
+
+    /**
+     * Drops the pending writes without sending them, e.g. on sign-out.
+     */
+    public void clear() {
+        if (mTimer != null) {
+            mTimer.dispose();
+            mTimer = null;
+        }
+        mWrites.clear();
+    }
+
+    public int size() {
+        return mWrites.size();
+    }
+
+
+    /**
+     * A write of one preference of the user, with the value Firestore had before it.
+     */
+    public static final class Write {
+
+        private final String mKey;
+        private final String mPlaceId;
+        private final LunchChoice mChoice;
+        private final Object mSavedValue;
+        private final Object mValue;
+        private final CurrentUserState.Mutation mMutation;
+
+        private Write(String key, String placeId, LunchChoice choice, Object savedValue, Object value, CurrentUserState.Mutation mutation) {
+            mKey = key;
+            mPlaceId = placeId;
+            mChoice = choice;
+            mSavedValue = savedValue;
+            mValue = value;
+            mMutation = mutation;
+        }
+
+        /**
+         * @param savedId the restaurant saved in Firestore for today, or null.
+         * @param choice  the lunch choice, or null to leave the restaurant.
+         */
+        public static Write chooseRestaurant(@Nullable String savedId, @Nullable LunchChoice choice, CurrentUserState.Mutation mutation) {
+            String placeId = choice != null ? choice.getPlaceId() : null;
+            return new Write(KEY_RESTAURANT, placeId, choice, savedId, placeId, mutation);
+        }
+
+        public static Write like(String placeId, boolean savedLiked, boolean liked, CurrentUserState.Mutation mutation) {
+            return new Write(KEY_LIKE + placeId, placeId, null, savedLiked, liked, mutation);
+        }
+
+        public String getKey() {
+            return mKey;
+        }
+
+        /**
+         * @return the chosen restaurant, or the liked one.
+         */
+        @Nullable
+        public String getPlaceId() {
+            return mPlaceId;
+        }
+
+        /**
+         * @return the restaurant saved in Firestore before the window, for a restaurant choice.
+         */
+        @Nullable
+        public String getSavedPlaceId() {
+            return isRestaurantChoice() ? (String) mSavedValue : null;
+        }
+
+        /**
+         * @return the lunch choice, or null when leaving the restaurant or for a like.
+         */
+        @Nullable
+        public LunchChoice getChoice() {
+            return mChoice;
+        }
+
+        public boolean isRestaurantChoice() {
+            return KEY_RESTAURANT.equals(mKey);
+        }
+
+        public boolean isLiked() {
+            return Boolean.TRUE.equals(mValue);
+        }
+
+        public CurrentUserState.Mutation getMutation() {
+            return mMutation;
+        }
+
+        private boolean isNoOp() {
+            return mSavedValue == null ? mValue == null : mSavedValue.equals(mValue);
+        }
+
+        // The saved value stays the one before the first write of the window
+        private Write supersededBy(Write newer) {
+            return new Write(mKey, newer.mPlaceId, newer.mChoice, mSavedValue, newer.mValue, newer.mMutation);
+        }
+    }
+
+
+    /**
+     * Sends the writes of a window, and is told about the writes dropped from the outbox so
+     * that their optimistic value can be removed.
+     */
+    public interface Sender {
+        void send(List<Write> writes);
+
+        void cancel(Write write);
+    }
+}
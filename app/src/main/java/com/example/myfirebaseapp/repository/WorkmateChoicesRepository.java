@@ -0,0 +1,181 @@
+package com.example.myfirebaseapp.repository;
+
+import android.util.Log;
+
+import com.example.myfirebaseapp.api.LunchHelper;
+import com.example.myfirebaseapp.models.LunchChoice;
+import com.example.myfirebaseapp.utils.TimeUtils;
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Observable;
+import io.reactivex.android.schedulers.AndroidSchedulers;
+import io.reactivex.disposables.Disposable;
+
+/**
+ * Class which keeps the lunch choices of today, and the number of workmates having chosen each
+ * restaurant, with a single Firestore snapshot listener on the partition of today (see
+ * {@link LunchHelper}). Counts are updated from the document changes only, so that the
+ * restaurant list reads them without any Firestore request and is only notified of the
+ * restaurants whose count changed. At midnight the listener moves to the new, empty partition.
+ */
+public class WorkmateChoicesRepository {
+
+
+    // private static
+    private static final String TAG = WorkmateChoicesRepository.class.getSimpleName();
+    private static WorkmateChoicesRepository WORKMATE_CHOICES_REPOSITORY;
+
+
+    // public static
+    public static WorkmateChoicesRepository getInstance() {
+        Log.d(TAG, "getInstance");
+
+        if (WORKMATE_CHOICES_REPOSITORY == null) {
+            WORKMATE_CHOICES_REPOSITORY = new WorkmateChoicesRepository();
+        }
+        return WORKMATE_CHOICES_REPOSITORY;
+    }
+
+
+    // variables
+    private final WorkmateCounts mCounts;
+    private final Map<String, LunchChoice> mChoices;
+    private final Set<OnCountsChangedListener> mListeners;
+    private ListenerRegistration mRegistration;
+    private Disposable mMidnight;
+
+
+    // constructor
+    private WorkmateChoicesRepository() {
+        mCounts = new WorkmateCounts();
+        mChoices = new HashMap<>();
+        mListeners = new HashSet<>();
+    }
+
+
+    // methods
+
+    /**
+     * @return the number of workmates who chose this restaurant, from memory.
+     */
+    public int getCount(String placeId) {
+        return mCounts.getCount(placeId);
+    }
+
+    /**
+     * @return the lunch choice of a workmate for today, from memory, or null.
+     */
+    public LunchChoice getChoice(String uid) {
+        return mChoices.get(uid);
+    }
+
+    /**
+     * @return the lunch choices of today by uid, from memory.
+     */
+    public Map<String, LunchChoice> getChoices() {
+        return Collections.unmodifiableMap(mChoices);
+    }
+
+    /**
+     * Registers a listener and starts listening to Firestore when it is the first one.
+     * Listeners are called on the main thread.
+     */
+    public void addListener(OnCountsChangedListener listener) {
+        Log.d(TAG, "addListener");
+
+        mListeners.add(listener);
+        if (mRegistration == null) {
+            startListening();
+        }
+    }
+
+    /**
+     * Unregisters a listener and stops listening to Firestore when it was the last one.
+     */
+    public void removeListener(OnCountsChangedListener listener) {
+        Log.d(TAG, "removeListener");
+
+        mListeners.remove(listener);
+        if (mListeners.isEmpty() && mRegistration != null) {
+            stopListening();
+            mCounts.clear();
+            mChoices.clear();
+        }
+    }
+
+    private void startListening() {
+        mRegistration = LunchHelper.getTodayChoicesCollection()
+                .addSnapshotListener((snapshots, e) -> {
+                    if (e != null) {
+                        Log.e(TAG, "startListening: onEvent", e);
+                        return;
+                    }
+                    if (snapshots != null) {
+                        applyChanges(snapshots);
+                    }
+                });
+        mMidnight = Observable.timer(TimeUtils.getMillisUntilTomorrow(), TimeUnit.MILLISECONDS)
+                .observeOn(AndroidSchedulers.mainThread())
+                .subscribe(tick -> onNewDay());
+    }
+
+    private void stopListening() {
+        mRegistration.remove();
+        mRegistration = null;
+        mMidnight.dispose();
+        mMidnight = null;
+    }
+
+    // Nothing is written at midnight: the choices of yesterday are just not read anymore
+    private void onNewDay() {
+        Log.d(TAG, "onNewDay");
+
+        stopListening();
+        mChoices.clear();
+        notifyListeners(mCounts.clear());
+        startListening();
+    }
+
+    private void applyChanges(QuerySnapshot snapshots) {
+        Set<String> changed = new HashSet<>();
+        for (DocumentChange change : snapshots.getDocumentChanges()) {
+            String uid = change.getDocument().getId();
+            LunchChoice choice = change.getType() == DocumentChange.Type.REMOVED
+                    ? null
+                    : change.getDocument().toObject(LunchChoice.class);
+
+            if (choice != null) {
+                mChoices.put(uid, choice);
+            } else {
+                mChoices.remove(uid);
+            }
+            changed.addAll(mCounts.apply(uid, choice != null ? choice.getPlaceId() : null));
+        }
+        notifyListeners(changed);
+    }
+
+    private void notifyListeners(Set<String> changed) {
+        if (!changed.isEmpty()) {
+            for (OnCountsChangedListener listener : new HashSet<>(mListeners)) {
+                listener.onCountsChanged(changed);
+            }
+        }
+    }
+
+
+    /**
+     * Listener notified with the placeIds whose workmate count changed.
+     */
+    public interface OnCountsChangedListener {
+        void onCountsChanged(Set<String> placeIds);
+    }
+}
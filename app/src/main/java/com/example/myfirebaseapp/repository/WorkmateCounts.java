@@ -0,0 +1,112 @@
+package com.example.myfirebaseapp.repository;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-memory count of the workmates who chose each restaurant, kept up to date one source at a
+ * time. A source is usually the lunch choice of a workmate.
+ */
+public class WorkmateCounts {
+
+    // variables
+    private final Map<String, Contribution> mContributions = new HashMap<>();
+    private final Map<String, Integer> mCounts = new HashMap<>();
+
+
+    // methods
+
+    /**
+     * Applies the restaurant choice of a workmate.
+     *
+     * @param uid     the workmate.
+     * @param placeId the chosen restaurant, or null if the workmate has no choice anymore.
+     * @return the placeIds whose count changed.
+     */
+    public Set<String> apply(String uid, String placeId) {
+        return apply(uid, placeId, 1);
+    }
+
+    /**
+     * Applies the count of a source, replacing its previous count.
+     *
+     * @param key     the source, e.g. the uid of a workmate.
+     * @param placeId the restaurant counted by the source, or null if the source is gone.
+     * @param count   the count of the source.
+     * @return the placeIds whose count changed.
+     */
+    public Set<String> apply(String key, String placeId, int count) {
+        if (placeId == null || placeId.isEmpty() || count <= 0) {
+            placeId = null;
+            count = 0;
+        }
+        Contribution previous = placeId != null
+                ? mContributions.put(key, new Contribution(placeId, count))
+                : mContributions.remove(key);
+        if (previous == null ? placeId == null : previous.mPlaceId.equals(placeId) && previous.mCount == count) {
+            return Collections.emptySet();
+        }
+
+        Set<String> changed = new HashSet<>();
+        if (previous != null) {
+            add(previous.mPlaceId, -previous.mCount);
+            changed.add(previous.mPlaceId);
+        }
+        if (placeId != null) {
+            add(placeId, count);
+            changed.add(placeId);
+        }
+        return changed;
+    }
+
+    /**
+     * @return the number of workmates who chose this restaurant.
+     */
+    public int getCount(String placeId) {
+        Integer count = mCounts.get(placeId);
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * @return the restaurant counted by this source, or null.
+     */
+    public String getChoice(String key) {
+        Contribution contribution = mContributions.get(key);
+        return contribution == null ? null : contribution.mPlaceId;
+    }
+
+    /**
+     * Forgets every source.
+     *
+     * @return the placeIds whose count changed.
+     */
+    public Set<String> clear() {
+        Set<String> changed = new HashSet<>(mCounts.keySet());
+        mContributions.clear();
+        mCounts.clear();
+        return changed;
+    }
+
+    private void add(String placeId, int delta) {
+        int count = getCount(placeId) + delta;
+        if (count > 0) {
+            mCounts.put(placeId, count);
+        } else {
+            mCounts.remove(placeId);
+        }
+    }
+
+
+    private static class Contribution {
+        private final String mPlaceId;
+        private final int mCount;
+
+        private Contribution(String placeId, int count) {
+            mPlaceId = placeId;
+            mCount = count;
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.example.myfirebaseapp.repository;
+
+import android.util.Log;
+
+import com.example.myfirebaseapp.api.ReadPolicy;
+import com.example.myfirebaseapp.models.User;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.Query;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.reactivex.disposables.Disposable;
+
+/**
+ * Class which loads the workmates page by page as the list is scrolled, instead of listening to
+ * the whole users collection. Pages are read once, painted from the cache before the server
+ * answers, and a snapshot listener is only kept on the pages around the visible rows, so that
+ * the reads and the listeners stay bounded whatever the size of the company.
+ */
+public class WorkmatesPager {
+
+
+    // private static
+    private static final String TAG = WorkmatesPager.class.getSimpleName();
+
+
+    // public static
+    public static final int PAGE_SIZE = 25;
+    public static final int PREFETCH_DISTANCE = 10;
+    public static final int LISTENED_MARGIN = 1;
+
+    /**
+     * @param sizes the number of rows of each page.
+     * @return the page holding a row, the last page if the row is after it.
+     */
+    public static int pageOf(int index, List<Integer> sizes) {
+        int end = 0;
+        for (int page = 0; page < sizes.size(); page++) {
+            end += sizes.get(page);
+            if (index < end) {
+                return page;
+            }
+        }
+        return sizes.size() - 1;
+    }
+
+    /**
+     * @return true if the next page must be loaded for the last visible row.
+     */
+    public static boolean shouldLoadMore(int lastVisible, int loaded, int prefetchDistance) {
+        return lastVisible >= loaded - prefetchDistance;
+    }
+
+
+    // variables
+    private final Query mQuery;
+    private final OnUsersChangedListener mListener;
+    private final List<Page> mPages;
+    private boolean mLoading;
+    private Disposable mLoadDisposable;
+    private boolean mLastPageLoaded;
+    private boolean mReleased;
+    private int mFirstVisible;
+    private int mLastVisible;
+
+
+    // constructor
+
+    /**
+     * @param query the ordered query of the workmates, without any limit.
+     */
+    public WorkmatesPager(Query query, OnUsersChangedListener listener) {
+        mQuery = query;
+        mListener = listener;
+        mPages = new ArrayList<>();
+    }
+
+
+    // methods
+
+    /**
+     * Reads the next page, painted from the cache at once and then reconciled with the server.
+     */
+    public void loadNextPage() {
+        if (mLoading || mLastPageLoaded || mReleased) {
+            return;
+        }
+        Log.d(TAG, "loadNextPage: " + mPages.size());
+
+        mLoading = true;
+        Query query = mQuery.limit(PAGE_SIZE);
+        if (!mPages.isEmpty()) {
+            query = query.startAfter(mPages.get(mPages.size() - 1).getLastSnapshot());
+        }
+        final int index = mPages.size();
+        mLoadDisposable = ReadPolicy.CACHE_FIRST_THEN_SERVER.get(query).subscribe(
+                result -> onPageRead(index, result.getDocuments()),
+                throwable -> {
+                    Log.e(TAG, "loadNextPage", throwable);
+                    mLoading = false;
+                },
+                () -> mLoading = false);
+    }
+
+    // The page is read once from the cache, then from the server which replaces it
+    private void onPageRead(int index, List<DocumentSnapshot> snapshots) {
+        mLastPageLoaded = snapshots.size() < PAGE_SIZE;
+        if (index < mPages.size()) {
+            mPages.get(index).stopListening();
+            if (snapshots.isEmpty()) {
+                mPages.remove(index);
+            } else {
+                mPages.get(index).mSnapshots = snapshots;
+            }
+        } else if (!snapshots.isEmpty()) {
+            mPages.add(new Page(snapshots));
+        }
+        publish();
+        updateListenedPages();
+    }
+
+    /**
+     * Loads the next page when the end of the loaded rows gets close, and keeps the listeners on
+     * the pages around the visible rows only.
+     *
+     * @param firstVisible the first visible row, in the rows published by this pager.
+     * @param lastVisible  the last visible row, in the rows published by this pager.
+     */
+    public void onVisibleRangeChanged(int firstVisible, int lastVisible) {
+        mFirstVisible = Math.max(firstVisible, 0);
+        mLastVisible = Math.max(lastVisible, mFirstVisible);
+
+        if (shouldLoadMore(mLastVisible, getLoadedCount(), PREFETCH_DISTANCE)) {
+            loadNextPage();
+        }
+        updateListenedPages();
+    }
+
+    /**
+     * Stops every listener, e.g. when the screen stops.
+     */
+    public void release() {
+        Log.d(TAG, "release");
+
+        mReleased = true;
+        if (mLoadDisposable != null) {
+            mLoadDisposable.dispose();
+        }
+        for (Page page : mPages) {
+            page.stopListening();
+        }
+    }
+
+    private int getLoadedCount() {
+        int count = 0;
+        for (Page page : mPages) {
+            count += page.mSnapshots.size();
+        }
+        return count;
+    }
+
+    private void updateListenedPages() {
+        if (mPages.isEmpty() || mReleased) {
+            return;
+        }
+        List<Integer> sizes = new ArrayList<>();
+        for (Page page : mPages) {
+            sizes.add(page.mSnapshots.size());
+        }
+        int first = Math.max(pageOf(mFirstVisible, sizes) - LISTENED_MARGIN, 0);
+        int last = Math.min(pageOf(mLastVisible, sizes) + LISTENED_MARGIN, mPages.size() - 1);
+
+        for (int index = 0; index < mPages.size(); index++) {
+            if (index >= first && index <= last) {
+                mPages.get(index).startListening();
+            } else {
+                mPages.get(index).stopListening();
+            }
+        }
+    }
+
+    private void publish() {
+        List<User> users = new ArrayList<>();
+        for (Page page : mPages) {
+            for (DocumentSnapshot snapshot : page.mSnapshots) {
+                User user = snapshot.toObject(User.class);
+                if (user != null) {
+                    users.add(user);
+                }
+            }
+        }
+        mListener.onUsersChanged(users);
+    }
+
+
+    private class Page {
+
+        private List<DocumentSnapshot> mSnapshots;
+        private ListenerRegistration mRegistration;
+
+        private Page(List<DocumentSnapshot> snapshots) {
+            mSnapshots = snapshots;
+        }
+
+        private DocumentSnapshot getLastSnapshot() {
+            return mSnapshots.get(mSnapshots.size() - 1);
+        }
+
+        // Listens to the rows between the bounds of the page when it was read
+        private void startListening() {
+            if (mRegistration != null || mSnapshots.isEmpty()) {
+                return;
+            }
+            mRegistration = mQuery.startAt(mSnapshots.get(0)).endAt(getLastSnapshot())
+                    .addSnapshotListener((snapshots, e) -> {
+                        if (e != null) {
+                            Log.e(TAG, "startListening: onEvent", e);
+                            return;
+                        }
+                        if (snapshots != null && !snapshots.isEmpty()) {
+                            mSnapshots = snapshots.getDocuments();
+                            publish();
+                        }
+                    });
+        }
+
+        private void stopListening() {
+            if (mRegistration != null) {
+                mRegistration.remove();
+                mRegistration = null;
+            }
+        }
+    }
+
+
+    /**
+     * Listener notified with all the loaded workmates, in the order of the query.
+     */
+    public interface OnUsersChangedListener {
+        void onUsersChanged(List<User> users);
+    }
+}
@@ -0,0 +1,309 @@
+package com.example.myfirebaseapp.service;
+
+import com.example.myfirebaseapp.models.api.Autocomplete;
+import com.example.myfirebaseapp.models.api.NearbySearch;
+import com.example.myfirebaseapp.utils.GeoUtils;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Client-side prefix index of the recently seen autocomplete predictions and nearby
+ * restaurants, keyed by location cell.
+ * Google returns at most {@link #MAX_PREDICTIONS} predictions, so a response with fewer of
+ * them holds every match of its query. A narrowing query ("piz" after "pi") is then answered
+ * locally by filtering the indexed names, and only goes to the network when no complete
+ * response of one of its prefixes is known for the same cell, radius and type.
+ * Nearby restaurants are indexed in the cell of their own location and only join a local
+ * answer when they are within its radius, local answers hold at most {@link #MAX_PREDICTIONS}
+ * predictions as Google does.
+ */
+public class AutocompletePrefixIndex {
+
+    // private static
+    public static final int MAX_PREDICTIONS = 5;
+    public static final long DEFAULT_TTL_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    private static final int MAX_CELLS = 16;
+    // About 1 km, the nearby and autocomplete radius used by the app are 2 to 3 km
+    private static final double CELL_SIZE_DEGREES = 0.01;
+    private static final List<String> RESTAURANT_TYPES = Arrays.asList("restaurant", "food", "establishment");
+    private static AutocompletePrefixIndex AUTOCOMPLETE_PREFIX_INDEX;
+
+
+    // public static
+    public static synchronized AutocompletePrefixIndex getInstance() {
+        if (AUTOCOMPLETE_PREFIX_INDEX == null) {
+            AUTOCOMPLETE_PREFIX_INDEX = new AutocompletePrefixIndex(DEFAULT_TTL_MILLIS);
+        }
+        return AUTOCOMPLETE_PREFIX_INDEX;
+    }
+
+
+    // variables
+    private final long mTtlMillis;
+    private final LinkedHashMap<String, Cell> mCells;
+
+
+    // constructor
+    public AutocompletePrefixIndex(long ttlMillis) {
+        mTtlMillis = ttlMillis;
+        mCells = new LinkedHashMap<String, Cell>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Cell> eldest) {
+                return size() > MAX_CELLS;
+            }
+        };
+    }
+
+
+    // methods
+
+    /**
+     * @return the predictions matching the input if a complete response of one of its prefixes
+     * is known for this location, radius and type, or null if the network must be asked.
+     */
+    public synchronized Autocomplete lookup(String location, int radius, String type, String input) {
+        double[] latLng = GeoUtils.parseLocation(location);
+        Cell cell = getFreshCell(cellKey(location));
+        String query = normalize(input);
+        if (cell == null || query.isEmpty() || !cell.hasCompletePrefix(scope(radius, type), query, now() - mTtlMillis)) {
+            return null;
+        }
+
+        Autocomplete autocomplete = new Autocomplete();
+        autocomplete.setPredictions(cell.find(query, latLng[0], latLng[1], radius));
+        autocomplete.setStatus(autocomplete.getPredictions().isEmpty() ? "ZERO_RESULTS" : "OK");
+        return autocomplete;
+    }
+
+    /**
+     * Indexes the predictions of an autocomplete response and remembers whether it was
+     * complete for its query.
+     */
+    public synchronized void record(String location, int radius, String type, String input, Autocomplete autocomplete) {
+        String status = autocomplete == null ? null : autocomplete.getStatus();
+        if (!"OK".equals(status) && !"ZERO_RESULTS".equals(status)) {
+            return;
+        }
+        Cell cell = getOrCreateCell(cellKey(location));
+        String query = normalize(input);
+        if (cell == null || query.isEmpty()) {
+            return;
+        }
+
+        List<Autocomplete.Prediction> predictions = autocomplete.getPredictions() != null
+                ? autocomplete.getPredictions()
+                : new ArrayList<Autocomplete.Prediction>();
+        for (Autocomplete.Prediction prediction : predictions) {
+            cell.add(prediction);
+        }
+        if (predictions.size() < MAX_PREDICTIONS) {
+            cell.mCompleteQueries.put(scope(radius, type) + query, now());
+        }
+    }
+
+    /**
+     * Indexes the names of the loaded nearby restaurants in the cell of their location, so that
+     * they can also be found by the local answers. Restaurants without location are ignored.
+     */
+    public synchronized void recordRestaurants(List<NearbySearch.Result> results) {
+        if (results == null) {
+            return;
+        }
+        for (NearbySearch.Result result : results) {
+            if (result.getPlaceId() == null || result.getName() == null || result.getGeometry() == null
+                    || result.getGeometry().getLocation() == null) {
+                continue;
+            }
+            double lat = result.getGeometry().getLocation().getLat();
+            double lng = result.getGeometry().getLocation().getLng();
+            Cell cell = getOrCreateCell(cellKey(lat, lng));
+
+            Autocomplete.StructuredFormatting structuredFormatting = new Autocomplete.StructuredFormatting();
+            structuredFormatting.setMainText(result.getName());
+            structuredFormatting.setSecondaryText(result.getVicinity());
+
+            Autocomplete.Prediction prediction = new Autocomplete.Prediction();
+            prediction.setPlaceId(result.getPlaceId());
+            prediction.setDescription(result.getVicinity() != null ? result.getName() + ", " + result.getVicinity() : result.getName());
+            prediction.setStructuredFormatting(structuredFormatting);
+            prediction.setTypes(RESTAURANT_TYPES);
+            cell.addRestaurant(prediction, lat, lng);
+        }
+    }
+
+    public synchronized void clear() {
+        mCells.clear();
+    }
+
+    private Cell getFreshCell(String key) {
+        Cell cell = key == null ? null : mCells.get(key);
+        if (cell != null && now() - cell.mCreatedAt > mTtlMillis) {
+            mCells.remove(key);
+            return null;
+        }
+        return cell;
+    }
+
+    private Cell getOrCreateCell(String key) {
+        Cell cell = getFreshCell(key);
+        if (cell == null && key != null) {
+            cell = new Cell(now());
+            mCells.put(key, cell);
+        }
+        return cell;
+    }
+
+    /**
+     * @param location a "latitude,longitude" string.
+     * @return the key of the cell holding this location, or null if it cannot be parsed.
+     */
+    static String cellKey(String location) {
+        double[] latLng = GeoUtils.parseLocation(location);
+        if (latLng == null) {
+            return null;
+        }
+        return cellKey(latLng[0], latLng[1]);
+    }
+
+    static String cellKey(double lat, double lng) {
+        return Math.round(lat / CELL_SIZE_DEGREES) + ":" + Math.round(lng / CELL_SIZE_DEGREES);
+    }
+
+    private static String scope(int radius, String type) {
+        return radius + "|" + type + "|";
+    }
+
+    /**
+     * Lower case without accents, so that "cafe" matches "Café".
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text.trim(), Normalizer.Form.NFD);
+        return decomposed.replaceAll("\\p{M}", "").toLowerCase(Locale.ROOT);
+    }
+
+    protected long now() {
+        return System.currentTimeMillis();
+    }
+
+
+    /**
+     * Indexed predictions of one location cell. Every word of a prediction starts a key of the
+     * trie, so that "hut" finds "Pizza Hut" as Google does. The location of a nearby restaurant
+     * is kept until an autocomplete response of the cell returns it as well.
+     */
+    private static class Cell {
+        private final long mCreatedAt;
+        private final TrieNode mRoot;
+        private final Map<String, Autocomplete.Prediction> mPredictions;
+        private final Map<String, double[]> mRestaurantLocations;
+        private final Map<String, Long> mCompleteQueries;
+
+        private Cell(long createdAt) {
+            mCreatedAt = createdAt;
+            mRoot = new TrieNode();
+            mPredictions = new HashMap<>();
+            mRestaurantLocations = new HashMap<>();
+            mCompleteQueries = new HashMap<>();
+        }
+
+        private void add(Autocomplete.Prediction prediction) {
+            if (prediction.getPlaceId() == null || prediction.getDescription() == null) {
+                return;
+            }
+            mRestaurantLocations.remove(prediction.getPlaceId());
+            index(prediction);
+        }
+
+        private void addRestaurant(Autocomplete.Prediction prediction, double lat, double lng) {
+            // A prediction returned by Google is kept rather than the nearby restaurant
+            if (mPredictions.containsKey(prediction.getPlaceId()) && !mRestaurantLocations.containsKey(prediction.getPlaceId())) {
+                return;
+            }
+            mRestaurantLocations.put(prediction.getPlaceId(), new double[]{lat, lng});
+            index(prediction);
+        }
+
+        private void index(Autocomplete.Prediction prediction) {
+            boolean known = mPredictions.containsKey(prediction.getPlaceId());
+            mPredictions.put(prediction.getPlaceId(), prediction);
+            if (known) {
+                return;
+            }
+
+            String text = normalize(prediction.getDescription());
+            for (int start = 0; start < text.length(); start++) {
+                if (start == 0 || !Character.isLetterOrDigit(text.charAt(start - 1))) {
+                    insert(text.substring(start), prediction.getPlaceId());
+                }
+            }
+        }
+
+        private void insert(String key, String placeId) {
+            TrieNode node = mRoot;
+            for (int i = 0; i < key.length(); i++) {
+                TrieNode child = node.mChildren.get(key.charAt(i));
+                if (child == null) {
+                    child = new TrieNode();
+                    node.mChildren.put(key.charAt(i), child);
+                }
+                child.mPlaceIds.add(placeId);
+                node = child;
+            }
+        }
+
+        private boolean hasCompletePrefix(String scope, String query, long freshAfter) {
+            for (int length = query.length(); length > 0; length--) {
+                Long recordedAt = mCompleteQueries.get(scope + query.substring(0, length));
+                if (recordedAt != null && recordedAt >= freshAfter) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * @return at most {@link #MAX_PREDICTIONS} predictions matching the query, the nearby
+         * restaurants being kept within radius of the location of the lookup.
+         */
+        private List<Autocomplete.Prediction> find(String query, double lat, double lng, int radius) {
+            TrieNode node = mRoot;
+            for (int i = 0; i < query.length() && node != null; i++) {
+                node = node.mChildren.get(query.charAt(i));
+            }
+            List<Autocomplete.Prediction> predictions = new ArrayList<>();
+            if (node == null) {
+                return predictions;
+            }
+            for (String placeId : node.mPlaceIds) {
+                double[] restaurantLocation = mRestaurantLocations.get(placeId);
+                if (restaurantLocation != null
+                        && GeoUtils.distanceMeters(lat, lng, restaurantLocation[0], restaurantLocation[1]) > radius) {
+                    continue;
+                }
+                predictions.add(mPredictions.get(placeId));
+                if (predictions.size() == MAX_PREDICTIONS) {
+                    break;
+                }
+            }
+            return predictions;
+        }
+    }
+
+    private static class TrieNode {
+        private final Map<Character, TrieNode> mChildren = new HashMap<>();
+        private final Set<String> mPlaceIds = new LinkedHashSet<>();
+    }
+}
@@ -0,0 +1,195 @@
+package com.example.myfirebaseapp.service;
+
+import android.content.ContentResolver;
+import android.database.Cursor;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Matrix;
+import android.net.Uri;
+import android.os.Build;
+import android.provider.MediaStore;
+import android.util.Log;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+
+import io.reactivex.Single;
+import io.reactivex.android.schedulers.AndroidSchedulers;
+import io.reactivex.schedulers.Schedulers;
+
+/**
+ * Class which turns a picture of the gallery into the images sent in the chat: the picture is
+ * decoded with sampling, so that a photo of several megapixels is never held in memory at full
+ * size, bounded in resolution, and encoded in WebP, once for the full image and once for the
+ * thumbnail shown in the list.
+ */
+public class ChatImageCompressor {
+
+
+    // private static
+    private static final String TAG = ChatImageCompressor.class.getSimpleName();
+
+
+    // public static
+    public static final int FULL_MAX_SIZE = 1280;
+    public static final int FULL_QUALITY = 80;
+    public static final int THUMBNAIL_MAX_SIZE = 320;
+    public static final int THUMBNAIL_QUALITY = 70;
+
+    /**
+     * @return the largest power of two dividing the picture whose longest side stays at least
+     * maxSize, the sampled picture is then scaled down to maxSize exactly.
+     */
+    public static int getInSampleSize(int width, int height, int maxSize) {
+        int longest = Math.max(width, height);
+        int sampleSize = 1;
+        while (longest / (sampleSize * 2) >= maxSize) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    /**
+     * @return the width and height of the picture with its longest side bounded by maxSize,
+     * a smaller picture keeps its size.
+     */
+    public static int[] getScaledSize(int width, int height, int maxSize) {
+        int longest = Math.max(width, height);
+        if (longest <= maxSize) {
+            return new int[]{width, height};
+        }
+        float scale = (float) maxSize / longest;
+        return new int[]{Math.max(1, Math.round(width * scale)), Math.max(1, Math.round(height * scale))};
+    }
+
+
+    // variables
+    private final ContentResolver mContentResolver;
+
+
+    // constructor
+    public ChatImageCompressor(ContentResolver contentResolver) {
+        mContentResolver = contentResolver;
+    }
+
+
+    // methods
+
+    /**
+     * @param uri the picture chosen in the gallery.
+     * @return a Single emitting the encoded images, decoded and encoded on the io scheduler.
+     */
+    public Single<ChatImage> compress(final Uri uri) {
+        return Single.fromCallable(() -> compressNow(uri))
+                .subscribeOn(Schedulers.io())
+                .observeOn(AndroidSchedulers.mainThread());
+    }
+
+    private ChatImage compressNow(Uri uri) throws IOException {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        decode(uri, options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            throw new IOException("Not an image: " + uri);
+        }
+        Log.d(TAG, "compress: " + options.outWidth + "x" + options.outHeight);
+
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = getInSampleSize(options.outWidth, options.outHeight, FULL_MAX_SIZE);
+        Bitmap sampled = decode(uri, options);
+        if (sampled == null) {
+            throw new IOException("Cannot decode: " + uri);
+        }
+
+        int orientation = getOrientation(uri);
+        Bitmap full = scale(sampled, FULL_MAX_SIZE, orientation);
+        if (full != sampled) {
+            sampled.recycle();
+        }
+        Bitmap thumbnail = scale(full, THUMBNAIL_MAX_SIZE, 0);
+
+        ChatImage image = new ChatImage(encode(full, FULL_QUALITY), encode(thumbnail, THUMBNAIL_QUALITY));
+        if (thumbnail != full) {
+            thumbnail.recycle();
+        }
+        full.recycle();
+        return image;
+    }
+
+    private Bitmap decode(Uri uri, BitmapFactory.Options options) throws IOException {
+        InputStream stream = mContentResolver.openInputStream(uri);
+        if (stream == null) {
+            throw new FileNotFoundException(uri.toString());
+        }
+        try {
+            return BitmapFactory.decodeStream(stream, null, options);
+        } finally {
+            stream.close();
+        }
+    }
+
+    // The gallery keeps the rotation of a photo apart from its pixels
+    private int getOrientation(Uri uri) {
+        String[] projection = {MediaStore.Images.ImageColumns.ORIENTATION};
+        Cursor cursor = null;
+        try {
+            cursor = mContentResolver.query(uri, projection, null, null, null);
+            if (cursor != null && cursor.moveToFirst()) {
+                return cursor.getInt(0);
+            }
+        } catch (RuntimeException e) {
+            Log.w(TAG, "getOrientation: " + uri, e);
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+        return 0;
+    }
+
+    private static Bitmap scale(Bitmap bitmap, int maxSize, int orientation) {
+        int[] size = getScaledSize(bitmap.getWidth(), bitmap.getHeight(), maxSize);
+        if (size[0] == bitmap.getWidth() && size[1] == bitmap.getHeight() && orientation == 0) {
+            return bitmap;
+        }
+        Matrix matrix = new Matrix();
+        matrix.postScale((float) size[0] / bitmap.getWidth(), (float) size[1] / bitmap.getHeight());
+        matrix.postRotate(orientation);
+        return Bitmap.createBitmap(bitmap, 0, 0, bitmap.getWidth(), bitmap.getHeight(), matrix, true);
+    }
+
+    @SuppressWarnings("deprecation")
+    private static byte[] encode(Bitmap bitmap, int quality) {
+        Bitmap.CompressFormat format = Build.VERSION.SDK_INT >= Build.VERSION_CODES.R
+                ? Bitmap.CompressFormat.WEBP_LOSSY
+                : Bitmap.CompressFormat.WEBP;
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        bitmap.compress(format, quality, stream);
+        return stream.toByteArray();
+    }
+
+
+    /**
+     * The encoded images of a picture, in WebP.
+     */
+    public static class ChatImage {
+
+        private final byte[] mFull;
+        private final byte[] mThumbnail;
+
+        public ChatImage(byte[] full, byte[] thumbnail) {
+            mFull = full;
+            mThumbnail = thumbnail;
+        }
+
+        public byte[] getFull() {
+            return mFull;
+        }
+
+        public byte[] getThumbnail() {
+            return mThumbnail;
+        }
+    }
+}
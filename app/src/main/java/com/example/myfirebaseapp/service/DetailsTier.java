@@ -0,0 +1,26 @@
+package com.example.myfirebaseapp.service;
+
+/**
+ * Field masks used for the Google Places Details requests.
+ * CARD holds what list rows, map markers and workmate rows display, CONTACT the fields only
+ * needed once a restaurant is opened, and FULL both of them.
+ */
+public enum DetailsTier {
+
+    CARD("place_id,name,vicinity,photos,rating,geometry/location,opening_hours"),
+    CONTACT("place_id,formatted_phone_number,website"),
+    FULL("place_id,name,vicinity,photos,rating,geometry/location,opening_hours,formatted_phone_number,website");
+
+    private final String mFields;
+
+    DetailsTier(String fields) {
+        mFields = fields;
+    }
+
+    /**
+     * @return the value of the "fields" parameter of the Details request.
+     */
+    public String getFields() {
+        return mFields;
+    }
+}
@@ -20,15 +20,23 @@ public interface GoogleMapsApi {
 
     // Nearby Search Request
     @GET("maps/api/place/nearbysearch/json?key="+GOOGLE_MAP_API_KEY)
-    Observable<NearbySearch> getNearbyRestaurants(@Query("location") String location, @Query("radius") int radius, @Query("type") String type);
+    Observable<NearbySearch> getNearbyRestaurants(@Query("location") String location, @Query("radius") int radius, @Query("type") String type, @Query("keyword") String keyword);
 
-    // Place Details Request
+    // Next page of a Nearby Search Request, the page token carries the original parameters
+    @GET("maps/api/place/nearbysearch/json?key="+GOOGLE_MAP_API_KEY)
+    Observable<NearbySearch> getNearbyRestaurantsPage(@Query("pagetoken") String pageToken);
+
+    // Place Details Request, fields is one of the DetailsTier field masks
+    @GET("maps/api/place/details/json?key="+GOOGLE_MAP_API_KEY)
+    Observable<Place> getRestaurantDetails(@Query("place_id") String placeId, @Query("fields") String fields);
+
+    // Place Details Request of the prediction selected in an autocomplete session, it ends the session
     @GET("maps/api/place/details/json?key="+GOOGLE_MAP_API_KEY)
-    Observable<Place> getRestaurantDetails(@Query("place_id") String placeId);
+    Observable<Place> getRestaurantDetails(@Query("place_id") String placeId, @Query("fields") String fields, @Query("sessiontoken") String sessionToken);
 
     // Place Autocomplete Request
     @GET("maps/api/place/autocomplete/json?strictbounds&key="+GOOGLE_MAP_API_KEY)
-    Observable<Autocomplete> getAutocomplete(@Query("input") String input, @Query("radius") int radius, @Query("location") String location, @Query("type") String type);
+    Observable<Autocomplete> getAutocomplete(@Query("input") String input, @Query("radius") int radius, @Query("location") String location, @Query("type") String type, @Query("sessiontoken") String sessionToken);
     String queryPlaceNearbySearch = "maps/api/place/nearbysearch/json?key=" + GOOGLE_MAP_API_KEY;
     String queryPlaceDetails = "maps/api/place/details/json?" +
             "fields=place_id,name,vicinity,photos,rating,geometry,international_phone_number,website" +
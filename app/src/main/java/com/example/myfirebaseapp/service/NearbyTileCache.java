@@ -0,0 +1,194 @@
+package com.example.myfirebaseapp.service;
+
+import com.example.myfirebaseapp.models.api.NearbySearch;
+import com.example.myfirebaseapp.utils.GeoUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Observable;
+
+/**
+ * Process-wide cache of the Nearby Search results per tile of the search center, radius and
+ * place type. Tiles are geohash cells of about a {@link #TILE_FRACTION_OF_RADIUS}th of the
+ * radius, so the small movements of the user reuse the search of their tile, and the results
+ * missed at the far edge of the circle are bounded by the size of a tile.
+ * Concurrent requests for the same tile share a single in-flight search.
+ */
+public class NearbyTileCache {
+
+    // private static
+    public static final int DEFAULT_MAX_TILES = 64;
+    // Same freshness as the nearby responses of the HTTP cache
+    public static final long DEFAULT_TTL_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    public static final int TILE_FRACTION_OF_RADIUS = 8;
+    private static NearbyTileCache NEARBY_TILE_CACHE;
+
+
+    // public static
+    public static synchronized NearbyTileCache getInstance() {
+        if (NEARBY_TILE_CACHE == null) {
+            NEARBY_TILE_CACHE = new NearbyTileCache(DEFAULT_MAX_TILES, DEFAULT_TTL_MILLIS);
+        }
+        return NEARBY_TILE_CACHE;
+    }
+
+    /**
+     * @return the geohash of the tile holding the center of a search of this radius.
+     */
+    public static String tileOf(double lat, double lng, int radius) {
+        return GeoUtils.encode(lat, lng, GeoUtils.precisionForCellSize(lat, (double) radius / TILE_FRACTION_OF_RADIUS));
+    }
+
+
+    // variables
+    private final long mTtlMillis;
+    private final LinkedHashMap<String, Entry> mEntries;
+    private final Map<String, Observable<NearbySearch>> mInFlight;
+
+
+    // constructor
+    public NearbyTileCache(final int maxTiles, long ttlMillis) {
+        mTtlMillis = ttlMillis;
+        mEntries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxTiles;
+            }
+        };
+        mInFlight = new HashMap<>();
+    }
+
+
+    // methods
+
+    /**
+     * @param tile   the tile of the search center, see {@link #tileOf}.
+     * @param radius the radius of the search.
+     * @param type   the place type searched.
+     * @param loader the paginated nearby search, subscribed to when the tile is not cached and
+     *               no search of this tile is already running.
+     * @return an Observable emitting the cached results of the tile as one page, or the pages
+     * of the shared in-flight search. The tile is cached once all its pages are loaded.
+     */
+    public Observable<NearbySearch> get(final String tile, final int radius, final String type, final Observable<NearbySearch> loader) {
+        return Observable.defer(() -> {
+            synchronized (NearbyTileCache.this) {
+                NearbySearch cached = getIfPresent(tile, radius, type);
+                if (cached != null) {
+                    return Observable.just(cached);
+                }
+
+                final String key = key(tile, radius, type);
+                Observable<NearbySearch> inFlight = mInFlight.get(key);
+                if (inFlight == null) {
+                    final List<NearbySearch.Result> results = new ArrayList<>();
+                    inFlight = loader
+                            .doOnNext(page -> results.addAll(page.getResults()))
+                            .doOnComplete(() -> put(tile, radius, type, results))
+                            .doFinally(() -> removeInFlight(key))
+                            .replay()
+                            .refCount();
+                    mInFlight.put(key, inFlight);
+                }
+                return inFlight;
+            }
+        });
+    }
+
+    /**
+     * @return the cached results of a tile as one page, or null if they are missing or expired.
+     */
+    public synchronized NearbySearch getIfPresent(String tile, int radius, String type) {
+        String key = key(tile, radius, type);
+        Entry entry = mEntries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (now() - entry.mCreatedAt > mTtlMillis) {
+            mEntries.remove(key);
+            return null;
+        }
+        NearbySearch nearbySearch = new NearbySearch();
+        nearbySearch.setStatus(entry.mResults.isEmpty() ? "ZERO_RESULTS" : "OK");
+        nearbySearch.setResults(new ArrayList<>(entry.mResults));
+        return nearbySearch;
+    }
+
+    public synchronized void put(String tile, int radius, String type, List<NearbySearch.Result> results) {
+        mEntries.put(key(tile, radius, type), new Entry(new ArrayList<>(results), now()));
+    }
+
+    /**
+     * Removes the search of a center and radius, e.g. to force a refresh of the restaurants
+     * around the user.
+     */
+    public synchronized void invalidate(double lat, double lng, int radius) {
+        invalidate(tileOf(lat, lng, radius));
+    }
+
+    public synchronized void invalidate(String tile) {
+        Iterator<String> keys = mEntries.keySet().iterator();
+        while (keys.hasNext()) {
+            if (keys.next().startsWith(tile + "|")) {
+                keys.remove();
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        mEntries.clear();
+    }
+
+    public synchronized int size() {
+        return mEntries.size();
+    }
+
+    /**
+     * @return a copy of the page holding only the results within radius meters of a location.
+     */
+    public static NearbySearch within(NearbySearch page, double lat, double lng, int radius) {
+        List<NearbySearch.Result> results = new ArrayList<>();
+        for (NearbySearch.Result result : page.getResults()) {
+            if (result.getGeometry() == null || result.getGeometry().getLocation() == null) {
+                continue;
+            }
+            NearbySearch.Location location = result.getGeometry().getLocation();
+            if (GeoUtils.distanceMeters(lat, lng, location.getLat(), location.getLng()) <= radius) {
+                results.add(result);
+            }
+        }
+        NearbySearch nearbySearch = new NearbySearch();
+        nearbySearch.setStatus(page.getStatus());
+        nearbySearch.setResults(results);
+        return nearbySearch;
+    }
+
+    private synchronized void removeInFlight(String key) {
+        mInFlight.remove(key);
+    }
+
+    private static String key(String tile, int radius, String type) {
+        return tile + "|" + radius + "|" + type;
+    }
+
+    protected long now() {
+        return System.currentTimeMillis();
+    }
+
+
+    private static class Entry {
+        private final List<NearbySearch.Result> mResults;
+        private final long mCreatedAt;
+
+        private Entry(List<NearbySearch.Result> results, long createdAt) {
+            mResults = results;
+            mCreatedAt = createdAt;
+        }
+    }
+}
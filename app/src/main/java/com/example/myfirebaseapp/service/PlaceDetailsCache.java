@@ -0,0 +1,159 @@
+package com.example.myfirebaseapp.service;
+
+import com.example.myfirebaseapp.models.api.Place;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Observable;
+
+/**
+ * Process-wide, size-bounded LRU cache of Place Details responses keyed by placeId and
+ * {@link DetailsTier}. Entries expire after a time to live, and concurrent requests for the
+ * same placeId and tier share a single in-flight call. A FULL entry also answers the
+ * requests for the smaller tiers.
+ */
+public class PlaceDetailsCache {
+
+    // private static
+    private static final String STATUS_OK = "OK";
+    public static final int DEFAULT_MAX_ENTRIES = 200;
+    public static final long DEFAULT_TTL_MILLIS = TimeUnit.MINUTES.toMillis(30);
+    private static PlaceDetailsCache PLACE_DETAILS_CACHE;
+
+
+    // public static
+    public static synchronized PlaceDetailsCache getInstance() {
+        if (PLACE_DETAILS_CACHE == null) {
+            PLACE_DETAILS_CACHE = new PlaceDetailsCache(DEFAULT_MAX_ENTRIES, DEFAULT_TTL_MILLIS);
+        }
+        return PLACE_DETAILS_CACHE;
+    }
+
+
+    // variables
+    private final long mTtlMillis;
+    private final LinkedHashMap<String, Entry> mEntries;
+    private final Map<String, Observable<Place>> mInFlight;
+
+
+    // constructor
+    public PlaceDetailsCache(final int maxEntries, long ttlMillis) {
+        mTtlMillis = ttlMillis;
+        mEntries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        mInFlight = new HashMap<>();
+    }
+
+
+    // methods
+
+    /**
+     * @param placeId the placeId of the Details to get.
+     * @param tier    the fields the Details must hold.
+     * @param loader  the network request to subscribe to when no fresh entry is cached and no
+     *                request for this placeId and tier is already running.
+     * @return an Observable emitting the cached {@link Place}, or the result of the shared
+     * in-flight request.
+     */
+    public Observable<Place> get(final String placeId, final DetailsTier tier, final Observable<Place> loader) {
+        return Observable.defer(() -> {
+            synchronized (PlaceDetailsCache.this) {
+                Place cached = getIfPresent(placeId, tier);
+                if (cached != null) {
+                    return Observable.just(cached);
+                }
+
+                final String key = key(placeId, tier);
+                Observable<Place> inFlight = mInFlight.get(key);
+                if (inFlight == null) {
+                    inFlight = loader
+                            .doOnNext(place -> put(placeId, tier, place))
+                            .doFinally(() -> removeInFlight(key))
+                            .replay(1)
+                            .refCount();
+                    mInFlight.put(key, inFlight);
+                }
+                return inFlight;
+            }
+        });
+    }
+
+    /**
+     * @return the cached {@link Place} holding at least the fields of this tier, or null if it
+     * is missing or expired.
+     */
+    public synchronized Place getIfPresent(String placeId, DetailsTier tier) {
+        Place place = getFresh(key(placeId, tier));
+        if (place == null && tier != DetailsTier.FULL) {
+            place = getFresh(key(placeId, DetailsTier.FULL));
+        }
+        return place;
+    }
+
+    /**
+     * Stores a Details response. Responses without a result (e.g. INVALID_REQUEST or
+     * NOT_FOUND) are not cached.
+     */
+    public synchronized void put(String placeId, DetailsTier tier, Place place) {
+        if (place == null || place.getResult() == null || !STATUS_OK.equals(place.getStatus())) {
+            return;
+        }
+        mEntries.put(key(placeId, tier), new Entry(place, now()));
+    }
+
+    public synchronized void invalidate(String placeId) {
+        for (DetailsTier tier : DetailsTier.values()) {
+            mEntries.remove(key(placeId, tier));
+        }
+    }
+
+    public synchronized void clear() {
+        mEntries.clear();
+    }
+
+    public synchronized int size() {
+        return mEntries.size();
+    }
+
+    private Place getFresh(String key) {
+        Entry entry = mEntries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (now() - entry.mCreatedAt > mTtlMillis) {
+            mEntries.remove(key);
+            return null;
+        }
+        return entry.mPlace;
+    }
+
+    private synchronized void removeInFlight(String key) {
+        mInFlight.remove(key);
+    }
+
+    private static String key(String placeId, DetailsTier tier) {
+        return tier.name() + ":" + placeId;
+    }
+
+    protected long now() {
+        return System.currentTimeMillis();
+    }
+
+
+    private static class Entry {
+        private final Place mPlace;
+        private final long mCreatedAt;
+
+        private Entry(Place place, long createdAt) {
+            mPlace = place;
+            mCreatedAt = createdAt;
+        }
+    }
+}
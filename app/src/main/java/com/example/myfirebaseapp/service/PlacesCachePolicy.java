@@ -0,0 +1,172 @@
+package com.example.myfirebaseapp.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+import okhttp3.Cache;
+import okhttp3.CacheControl;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * On-disk HTTP cache of the Google Places responses and its freshness rules.
+ * Google does not send usable cache headers, so they are rewritten per endpoint: Details are
+ * kept for a long time, nearby search and autocomplete only for a few minutes. When the
+ * network fails, the last good response is served even if it is stale.
+ */
+public class PlacesCachePolicy {
+
+    // private static
+    private static final String CACHE_DIRECTORY = "places_http_cache";
+    private static final long CACHE_SIZE_BYTES = 10 * 1024 * 1024;
+    private static final long MAX_PEEK_BYTES = 1024 * 1024;
+
+    // Freshness per endpoint, in seconds
+    private static final int DETAILS_MAX_AGE = (int) TimeUnit.HOURS.toSeconds(24);
+    private static final int NEARBY_SEARCH_MAX_AGE = (int) TimeUnit.MINUTES.toSeconds(10);
+    private static final int AUTOCOMPLETE_MAX_AGE = (int) TimeUnit.MINUTES.toSeconds(5);
+    private static final int STALE_IF_ERROR_MAX_STALE_DAYS = 7;
+
+    // Only successful Places payloads are worth caching, errors also come with a 200 code
+    private static final Pattern CACHEABLE_STATUS = Pattern.compile("\"status\"\\s*:\\s*\"(OK|ZERO_RESULTS)\"");
+
+
+    // variables
+    private final Cache mCache;
+    private final AtomicInteger mStaleIfErrorCount;
+
+
+    // constructor
+    public PlacesCachePolicy(File cacheDirectory) {
+        mCache = new Cache(new File(cacheDirectory, CACHE_DIRECTORY), CACHE_SIZE_BYTES);
+        mStaleIfErrorCount = new AtomicInteger();
+    }
+
+
+    // methods
+    public Cache getCache() {
+        return mCache;
+    }
+
+    /**
+     * @return an application interceptor serving the last cached response when the network
+     * request fails or the server answers with an error.
+     */
+    public Interceptor getStaleIfErrorInterceptor() {
+        return chain -> {
+            Request request = chain.request();
+            Response response;
+            try {
+                response = chain.proceed(request);
+                if (response.code() < 500) {
+                    return response;
+                }
+            } catch (IOException e) {
+                Response stale = proceedFromCache(chain, request);
+                if (stale == null) {
+                    throw e;
+                }
+                return stale;
+            }
+
+            // The error must be closed before the cache is asked, only its code, headers and
+            // the start of its body are kept in case the cache has nothing
+            ResponseBody errorBody = response.peekBody(MAX_PEEK_BYTES);
+            response.close();
+            Response stale = proceedFromCache(chain, request);
+            if (stale == null) {
+                return response.newBuilder().body(errorBody).build();
+            }
+            return stale;
+        };
+    }
+
+    /**
+     * @return a network interceptor applying the Places freshness rules to the responses
+     * before they are written to the disk cache.
+     */
+    public Interceptor getFreshnessInterceptor() {
+        return chain -> {
+            Response response = chain.proceed(chain.request());
+            int maxAge = maxAgeFor(chain.request().url().encodedPath());
+
+            if (maxAge <= 0 || !response.isSuccessful() || !hasCacheableStatus(response)) {
+                return response.newBuilder()
+                        .removeHeader("Pragma")
+                        .header("Cache-Control", "no-store")
+                        .build();
+            }
+            return response.newBuilder()
+                    .removeHeader("Pragma")
+                    .removeHeader("Expires")
+                    .header("Cache-Control", "public, max-age=" + maxAge)
+                    .build();
+        };
+    }
+
+    /**
+     * @return the number of requests served by the cache without reaching the network.
+     */
+    public int getHitCount() {
+        return mCache.hitCount();
+    }
+
+    /**
+     * @return the number of requests that went to the network.
+     */
+    public int getNetworkCount() {
+        return mCache.networkCount();
+    }
+
+    /**
+     * @return the number of HTTP requests that went through the cache.
+     */
+    public int getRequestCount() {
+        return mCache.requestCount();
+    }
+
+    /**
+     * @return the number of failed requests that were answered with a stale response.
+     */
+    public int getStaleIfErrorCount() {
+        return mStaleIfErrorCount.get();
+    }
+
+    private Response proceedFromCache(Interceptor.Chain chain, Request request) throws IOException {
+        Request cacheRequest = request.newBuilder()
+                .cacheControl(new CacheControl.Builder()
+                        .onlyIfCached()
+                        .maxStale(STALE_IF_ERROR_MAX_STALE_DAYS, TimeUnit.DAYS)
+                        .build())
+                .build();
+        Response cached = chain.proceed(cacheRequest);
+
+        // OkHttp answers 504 when the cache cannot satisfy an only-if-cached request
+        if (cached.code() == 504) {
+            cached.close();
+            return null;
+        }
+        mStaleIfErrorCount.incrementAndGet();
+        return cached;
+    }
+
+    private static int maxAgeFor(String path) {
+        if (path.contains("/details/")) {
+            return DETAILS_MAX_AGE;
+        } else if (path.contains("/nearbysearch/")) {
+            return NEARBY_SEARCH_MAX_AGE;
+        } else if (path.contains("/autocomplete/")) {
+            return AUTOCOMPLETE_MAX_AGE;
+        }
+        return 0;
+    }
+
+    private static boolean hasCacheableStatus(Response response) throws IOException {
+        return CACHEABLE_STATUS.matcher(response.peekBody(MAX_PEEK_BYTES).string()).find();
+    }
+}
@@ -3,78 +3,316 @@ package com.example.myfirebaseapp.service;
 import com.example.myfirebaseapp.models.api.Autocomplete;
 import com.example.myfirebaseapp.models.api.NearbySearch;
 import com.example.myfirebaseapp.models.api.Place;
+import com.example.myfirebaseapp.utils.GeoUtils;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
 
 import io.reactivex.Observable;
 import io.reactivex.ObservableSource;
+import io.reactivex.ObservableTransformer;
+import io.reactivex.Scheduler;
 import io.reactivex.Single;
 import io.reactivex.android.schedulers.AndroidSchedulers;
+import io.reactivex.functions.BiFunction;
+import io.reactivex.functions.Consumer;
 import io.reactivex.functions.Function;
+import io.reactivex.functions.Predicate;
 import io.reactivex.schedulers.Schedulers;
 
 public class PlacesRepository {
 
+    // Number of Place Details requests allowed in flight at the same time during a fan-out
+    public static final int DEFAULT_DETAILS_CONCURRENCY = 4;
+
+    // Google serves at most 3 Nearby Search pages of 20 results
+    public static final int MAX_NEARBY_PAGES = 3;
+    // A next_page_token is only valid about 2 seconds after it is issued
+    public static final long NEXT_PAGE_TOKEN_DELAY_MILLIS = 2000;
+    private static final int NEXT_PAGE_TOKEN_MAX_RETRIES = 3;
+    private static final String STATUS_INVALID_REQUEST = "INVALID_REQUEST";
+
     // --- Place Details ---
     public static Observable<Place> getRestaurantDetailStream(String placeId) {
-        GoogleMapsApi service = RetrofitService.retrofit.create(GoogleMapsApi.class);
-        return service.getRestaurantDetails(placeId)
+        return getRestaurantDetailStream(placeId, DetailsTier.CARD);
+    }
+
+    public static Observable<Place> getRestaurantDetailStream(String placeId, DetailsTier tier) {
+        GoogleMapsApi service = RetrofitService.getGoogleMapsApi();
+        Observable<Place> request = service.getRestaurantDetails(placeId, tier.getFields())
+                .subscribeOn(Schedulers.io());
+
+        // Details are shared through the process-wide cache, a null placeId goes to the network as before
+        Observable<Place> details = placeId != null
+                ? PlaceDetailsCache.getInstance().get(placeId, tier, request)
+                : request;
+
+        return details
+                .observeOn(AndroidSchedulers.mainThread())
+                .timeout(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Details of the prediction selected in an autocomplete session. The request carries the
+     * session token so that Google bills the session with it, it always goes to the network and
+     * its response is kept in the {@link PlaceDetailsCache}. A null sessionToken reads the cache.
+     */
+    public static Observable<Place> getRestaurantDetailStream(final String placeId, final DetailsTier tier, String sessionToken) {
+        if (sessionToken == null || placeId == null) {
+            return getRestaurantDetailStream(placeId, tier);
+        }
+        GoogleMapsApi service = RetrofitService.getGoogleMapsApi();
+
+        return service.getRestaurantDetails(placeId, tier.getFields(), sessionToken)
                 .subscribeOn(Schedulers.io())
+                .doOnNext(new Consumer<Place>() {
+                    @Override
+                    public void accept(Place place) throws Exception {
+                        PlaceDetailsCache.getInstance().put(placeId, tier, place);
+                    }
+                })
                 .observeOn(AndroidSchedulers.mainThread())
                 .timeout(10, TimeUnit.SECONDS);
     }
 
     // --- Nearby Search ---
     public static Observable<NearbySearch> getNearbyRestaurantStream(String location, int radius, String type) {
-        GoogleMapsApi service = RetrofitService.retrofit.create(GoogleMapsApi.class);
+        GoogleMapsApi service = RetrofitService.getGoogleMapsApi();
 
-        return service.getNearbyRestaurants(location, radius, type)
+        return service.getNearbyRestaurants(location, radius, type, null)
                 .subscribeOn(Schedulers.io())
                 .observeOn(AndroidSchedulers.mainThread())
                 .timeout(10, TimeUnit.SECONDS);
     }
 
-    public static Single<List<Place>> getRestaurantDetailNearbySearchStream(String location, int radius, String type) {
-        return getNearbyRestaurantStream(location, radius, type)
+    public static Observable<NearbySearch> getNearbyRestaurantPagesStream(String location, int radius, String type) {
+        return getNearbyRestaurantPagesStream(location, radius, type, null);
+    }
+
+    /**
+     * Paginated Nearby Search: emits the first page as soon as it arrives, then follows the
+     * next_page_token of each page, up to {@link #MAX_NEARBY_PAGES} pages.
+     */
+    public static Observable<NearbySearch> getNearbyRestaurantPagesStream(String location, int radius, String type, String keyword) {
+        final GoogleMapsApi service = RetrofitService.getGoogleMapsApi();
+
+        Observable<NearbySearch> firstPage = service.getNearbyRestaurants(location, radius, type, keyword)
+                .subscribeOn(Schedulers.io())
+                .timeout(10, TimeUnit.SECONDS);
+
+        return paginate(firstPage, new Function<String, Observable<NearbySearch>>() {
+            @Override
+            public Observable<NearbySearch> apply(String pageToken) throws Exception {
+                return service.getNearbyRestaurantsPage(pageToken)
+                        .subscribeOn(Schedulers.io())
+                        .timeout(10, TimeUnit.SECONDS);
+            }
+        }, MAX_NEARBY_PAGES, NEXT_PAGE_TOKEN_DELAY_MILLIS, Schedulers.io())
+                .doOnNext(new Consumer<NearbySearch>() {
+                    @Override
+                    public void accept(NearbySearch nearbySearch) throws Exception {
+                        // Loaded restaurants can then be found by the local autocomplete answers
+                        AutocompletePrefixIndex.getInstance().recordRestaurants(nearbySearch.getResults());
+                    }
+                })
+                .observeOn(AndroidSchedulers.mainThread());
+    }
+
+    /**
+     * Nearby Search cached by {@link NearbyTileCache}. A missing tile runs a single paginated
+     * search around the location itself, whose pages are emitted as they arrive. A later search
+     * with the same radius and type centered in the same tile is answered by the cached results
+     * as one page, only the results within radius of the new location being kept.
+     */
+    public static Observable<NearbySearch> getNearbyRestaurantTilesStream(String location, final int radius, String type) {
+        final double[] latLng = GeoUtils.parseLocation(location);
+        if (latLng == null) {
+            return getNearbyRestaurantPagesStream(location, radius, type);
+        }
+
+        String tile = NearbyTileCache.tileOf(latLng[0], latLng[1], radius);
+        return NearbyTileCache.getInstance().get(tile, radius, type, getNearbyRestaurantPagesStream(location, radius, type))
+                .map(new Function<NearbySearch, NearbySearch>() {
+                    @Override
+                    public NearbySearch apply(NearbySearch page) throws Exception {
+                        return NearbyTileCache.within(page, latLng[0], latLng[1], radius);
+                    }
+                })
+                .observeOn(AndroidSchedulers.mainThread());
+    }
+
+    /**
+     * Follows the next_page_token of the Nearby Search pages.
+     * A token only becomes valid a short time after it is issued, so each next page is requested
+     * after tokenDelayMillis and requested again while Google answers INVALID_REQUEST. A next
+     * page that still fails ends the pagination without dropping the pages already emitted.
+     *
+     * @param firstPage the request of the first page.
+     * @param nextPage  builds the request of the page of a token.
+     * @param maxPages  the maximum number of pages to emit, Google serves at most 3.
+     */
+    public static Observable<NearbySearch> paginate(Observable<NearbySearch> firstPage,
+                                                    final Function<String, Observable<NearbySearch>> nextPage,
+                                                    int maxPages, long tokenDelayMillis, Scheduler scheduler) {
+        return followPage(firstPage, nextPage, 1, maxPages, tokenDelayMillis, scheduler);
+    }
+
+    private static Observable<NearbySearch> followPage(Observable<NearbySearch> page,
+                                                       final Function<String, Observable<NearbySearch>> nextPage,
+                                                       final int pageNumber, final int maxPages,
+                                                       final long tokenDelayMillis, final Scheduler scheduler) {
+        return page.concatMap(new Function<NearbySearch, ObservableSource<NearbySearch>>() {
+            @Override
+            public ObservableSource<NearbySearch> apply(NearbySearch nearbySearch) throws Exception {
+                String pageToken = nearbySearch.getNextPageToken();
+                if (pageToken == null || pageToken.isEmpty() || pageNumber >= maxPages) {
+                    return Observable.just(nearbySearch);
+                }
+
+                Observable<NearbySearch> next = nextPage.apply(pageToken)
+                        .delaySubscription(tokenDelayMillis, TimeUnit.MILLISECONDS, scheduler)
+                        .flatMap(new Function<NearbySearch, ObservableSource<NearbySearch>>() {
+                            @Override
+                            public ObservableSource<NearbySearch> apply(NearbySearch nextSearch) throws Exception {
+                                // Google answers INVALID_REQUEST while the token is not active yet
+                                if (STATUS_INVALID_REQUEST.equals(nextSearch.getStatus())) {
+                                    return Observable.error(new PageTokenNotReadyException());
+                                }
+                                return Observable.just(nextSearch);
+                            }
+                        })
+                        .retry(NEXT_PAGE_TOKEN_MAX_RETRIES, new Predicate<Throwable>() {
+                            @Override
+                            public boolean test(Throwable throwable) throws Exception {
+                                return throwable instanceof PageTokenNotReadyException;
+                            }
+                        })
+                        .onErrorResumeNext(Observable.<NearbySearch>empty());
+
+                return Observable.just(nearbySearch)
+                        .concatWith(followPage(next, nextPage, pageNumber + 1, maxPages, tokenDelayMillis, scheduler));
+            }
+        });
+    }
+
+    /**
+     * The Details of the nearby restaurants, the way the list and the map show them.
+     * At most maxConcurrency Details requests run at the same time, and a growing list is
+     * emitted each time one of them returns, so the first rows can be displayed without waiting
+     * for the slowest place. A place whose Details request fails is skipped.
+     * Nearby Search pages are followed, the places of the first page being enriched while the
+     * next pages are still loading, and the searches cached by {@link NearbyTileCache} are reused.
+     */
+    public static Observable<List<Place>> getRestaurantDetailNearbySearchProgressiveStream(String location, int radius, String type, int maxConcurrency) {
+        return getNearbyRestaurantTilesStream(location, radius, type)
                 .flatMapIterable(new Function<NearbySearch, List<NearbySearch.Result>>() {
                     @Override
                     public List<NearbySearch.Result> apply(NearbySearch nearbySearch) throws Exception {
                         return nearbySearch.getResults();
                     }
                 })
+                .distinct(new Function<NearbySearch.Result, String>() {
+                    @Override
+                    public String apply(NearbySearch.Result result) throws Exception {
+                        return result.getPlaceId();
+                    }
+                })
                 .flatMap(new Function<NearbySearch.Result, Observable<Place>>() {
                     @Override
                     public Observable<Place> apply(NearbySearch.Result resultSearch) throws Exception {
-                        return getRestaurantDetailStream(resultSearch.getPlaceId());
+                        return getRestaurantDetailStream(resultSearch.getPlaceId())
+                                .onErrorResumeNext(Observable.<Place>empty());
                     }
-                })
-                .toList()
+                }, maxConcurrency)
+                .compose(PlacesRepository.<Place>accumulate())
                 .subscribeOn(Schedulers.io())
                 .observeOn(AndroidSchedulers.mainThread());
     }
 
+    /**
+     * Turns a stream of items into a stream of growing lists, a new copy being emitted for
+     * every item so that observers can keep the list they received. A stream completing without
+     * any item emits an empty list, so that observers clear what they showed.
+     */
+    public static <T> ObservableTransformer<T, List<T>> accumulate() {
+        return new ObservableTransformer<T, List<T>>() {
+            @Override
+            public ObservableSource<List<T>> apply(Observable<T> upstream) {
+                return upstream
+                        .scanWith(new Callable<List<T>>() {
+                            @Override
+                            public List<T> call() throws Exception {
+                                return new ArrayList<>();
+                            }
+                        }, new BiFunction<List<T>, T, List<T>>() {
+                            @Override
+                            public List<T> apply(List<T> list, T item) throws Exception {
+                                List<T> newList = new ArrayList<>(list);
+                                newList.add(item);
+                                return newList;
+                            }
+                        })
+                        .skip(1)
+                        .switchIfEmpty(Observable.fromCallable(new Callable<List<T>>() {
+                            @Override
+                            public List<T> call() throws Exception {
+                                return new ArrayList<>();
+                            }
+                        }));
+            }
+        };
+    }
+
 
     // --- Autocomplete ---
     public static Observable<Autocomplete> getAutocompleteStream(String input, int radius, String location, String type) {
-        GoogleMapsApi service = RetrofitService.retrofit.create(GoogleMapsApi.class);
+        return getAutocompleteStream(input, radius, location, type, null);
+    }
 
-        return service.getAutocomplete(input, radius, location, type)
+    /**
+     * Narrowing queries are answered by the {@link AutocompletePrefixIndex} when it holds a
+     * complete response for one of their prefixes, the other ones go to the network.
+     */
+    public static Observable<Autocomplete> getAutocompleteStream(final String input, final int radius, final String location, final String type, String sessionToken) {
+        final AutocompletePrefixIndex prefixIndex = AutocompletePrefixIndex.getInstance();
+        GoogleMapsApi service = RetrofitService.getGoogleMapsApi();
+        final Observable<Autocomplete> request = service.getAutocomplete(input, radius, location, type, sessionToken)
                 .subscribeOn(Schedulers.io())
+                .doOnNext(new Consumer<Autocomplete>() {
+                    @Override
+                    public void accept(Autocomplete autocomplete) throws Exception {
+                        prefixIndex.record(location, radius, type, input, autocomplete);
+                    }
+                });
+
+        return Observable.defer(new Callable<ObservableSource<Autocomplete>>() {
+            @Override
+            public ObservableSource<Autocomplete> call() throws Exception {
+                Autocomplete local = prefixIndex.lookup(location, radius, type, input);
+                return local != null ? Observable.just(local) : request;
+            }
+        })
                 .observeOn(AndroidSchedulers.mainThread())
                 .timeout(10, TimeUnit.SECONDS);
     }
 
 
     public static Single<List<Place>> getRestaurantDetailAutocompleteStream(String input, int radius, String location, String type) {
-        return getAutocompleteStream(input, radius, location, type)
-                .flatMapIterable(new Function<Autocomplete, List<Autocomplete.Prediction>>() {
-                    List<Autocomplete.Prediction> predictionList = new ArrayList<>();
+        return getRestaurantDetailAutocompleteStream(input, radius, location, type, null);
+    }
 
+    /**
+     * Details of the food predictions of an autocomplete request, the requests of a typing
+     * session sharing the same sessionToken. A prediction whose Details request fails is skipped.
+     */
+    public static Single<List<Place>> getRestaurantDetailAutocompleteStream(String input, int radius, String location, String type, String sessionToken) {
+        return getAutocompleteStream(input, radius, location, type, sessionToken)
+                .flatMapIterable(new Function<Autocomplete, List<Autocomplete.Prediction>>() {
                     @Override
                     public List<Autocomplete.Prediction> apply(Autocomplete autocompleteResult) throws Exception {
-
+                        List<Autocomplete.Prediction> predictionList = new ArrayList<>();
                         for (Autocomplete.Prediction prediction : autocompleteResult.getPredictions()) {
                             if (prediction.getTypes().contains("food")) {
                                 predictionList.add(prediction);
@@ -86,11 +324,21 @@ public class PlacesRepository {
                 .flatMap(new Function<Autocomplete.Prediction, ObservableSource<Place>>() {
                     @Override
                     public ObservableSource<Place> apply(Autocomplete.Prediction prediction) throws Exception {
-                        return getRestaurantDetailStream(prediction.getPlaceId());
+                        return getRestaurantDetailStream(prediction.getPlaceId())
+                                .onErrorResumeNext(Observable.<Place>empty());
                     }
-                })
+                }, DEFAULT_DETAILS_CONCURRENCY)
                 .toList()
                 .subscribeOn(Schedulers.io())
                 .observeOn(AndroidSchedulers.mainThread());
     }
-}
\ No newline at end of file
+
+    /**
+     * Raised when a next_page_token is used before Google has activated it.
+     */
+    static class PageTokenNotReadyException extends Exception {
+        PageTokenNotReadyException() {
+            super("Nearby Search next_page_token is not active yet");
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.myfirebaseapp.service;
+
+import com.example.myfirebaseapp.models.api.Place;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Observable;
+import io.reactivex.ObservableSource;
+import io.reactivex.Scheduler;
+import io.reactivex.functions.Consumer;
+import io.reactivex.functions.Function;
+import io.reactivex.schedulers.Schedulers;
+import io.reactivex.subjects.PublishSubject;
+
+/**
+ * Turns the text typed in the toolbar SearchView into restaurant results.
+ * Queries are debounced and deduplicated, and a new query cancels the search still running
+ * for the previous one. An empty query shows the nearby restaurants, any other query goes
+ * to autocomplete with a session token shared by all the requests of the typing session.
+ */
+public class PlacesSearchPipeline {
+
+    // private static
+    public static final long DEFAULT_DEBOUNCE_MILLIS = 300;
+
+
+    // variables
+    private final Source mSource;
+    private final long mDebounceMillis;
+    private final Scheduler mScheduler;
+    private final PublishSubject<String> mQueries;
+    private final PublishSubject<Object> mRefreshes;
+    private volatile String mCurrentQuery;
+    private String mSessionToken;
+
+
+    // constructor
+    public PlacesSearchPipeline(Source source) {
+        this(source, DEFAULT_DEBOUNCE_MILLIS, Schedulers.computation());
+    }
+
+    public PlacesSearchPipeline(Source source, long debounceMillis, Scheduler scheduler) {
+        mSource = source;
+        mDebounceMillis = debounceMillis;
+        mScheduler = scheduler;
+        mQueries = PublishSubject.create();
+        mRefreshes = PublishSubject.create();
+        mCurrentQuery = "";
+    }
+
+
+    // methods
+
+    /**
+     * Pushes the text of the SearchView, typically from onQueryTextChange.
+     */
+    public void setQuery(String query) {
+        mQueries.onNext(query == null ? "" : query.trim());
+    }
+
+    /**
+     * Runs the current query again without waiting for the debounce, e.g. when the location
+     * of the user changed.
+     */
+    public void refresh() {
+        mRefreshes.onNext(mCurrentQuery);
+    }
+
+    /**
+     * Ends the autocomplete session, the next query starts a new one. The token returned is to
+     * be sent with the Details request of the selected prediction, which closes the session.
+     *
+     * @return the token of the session ended, null if no session was running.
+     */
+    public synchronized String endSession() {
+        String sessionToken = mSessionToken;
+        mSessionToken = null;
+        return sessionToken;
+    }
+
+    /**
+     * @return the results of the latest query. Only the search of the latest query is running,
+     * a failed search emits nothing and leaves the pipeline usable for the next query.
+     */
+    public Observable<List<Place>> results() {
+        Observable<String> typedQueries = mQueries
+                .debounce(mDebounceMillis, TimeUnit.MILLISECONDS, mScheduler)
+                .distinctUntilChanged()
+                .doOnNext(new Consumer<String>() {
+                    @Override
+                    public void accept(String query) throws Exception {
+                        mCurrentQuery = query;
+                    }
+                });
+        Observable<String> refreshedQueries = mRefreshes.map(new Function<Object, String>() {
+            @Override
+            public String apply(Object ignored) throws Exception {
+                return mCurrentQuery;
+            }
+        });
+
+        return Observable.merge(typedQueries, refreshedQueries)
+                .switchMap(new Function<String, ObservableSource<List<Place>>>() {
+                    @Override
+                    public ObservableSource<List<Place>> apply(String query) throws Exception {
+                        Observable<List<Place>> search;
+                        if (query.isEmpty()) {
+                            endSession();
+                            search = mSource.nearby();
+                        } else {
+                            search = mSource.autocomplete(query, getSessionToken());
+                        }
+                        return search.onErrorResumeNext(Observable.<List<Place>>empty());
+                    }
+                });
+    }
+
+    /**
+     * @return the session token of the current typing session, created on its first query.
+     */
+    public synchronized String getSessionToken() {
+        if (mSessionToken == null) {
+            mSessionToken = UUID.randomUUID().toString();
+        }
+        return mSessionToken;
+    }
+
+
+    /**
+     * Searches run by the pipeline.
+     */
+    public interface Source {
+        Observable<List<Place>> nearby();
+
+        Observable<List<Place>> autocomplete(String input, String sessionToken);
+    }
+}
@@ -0,0 +1,690 @@
+package com.example.myfirebaseapp.service;
+
+import com.example.myfirebaseapp.models.api.Autocomplete;
+import com.example.myfirebaseapp.models.api.Details;
+import com.example.myfirebaseapp.models.api.NearbySearch;
+import com.example.myfirebaseapp.models.api.Place;
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Streaming decoders for the Google Places responses.
+ * Responses are read token by token and only the fields displayed by the app are kept: html
+ * attributions, reviews, viewports, address components and every other unused subtree are
+ * skipped without being materialized. Only the first photo of a place is kept, it is the only
+ * one displayed. Serialization still goes through the reflective Gson adapters.
+ */
+public class PlacesTypeAdapterFactory implements TypeAdapterFactory {
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        Class<? super T> rawType = type.getRawType();
+        if (rawType == Place.class) {
+            return (TypeAdapter<T>) new PlaceAdapter(gson.getDelegateAdapter(this, TypeToken.get(Place.class)));
+        } else if (rawType == NearbySearch.class) {
+            return (TypeAdapter<T>) new NearbySearchAdapter(gson.getDelegateAdapter(this, TypeToken.get(NearbySearch.class)));
+        } else if (rawType == Autocomplete.class) {
+            return (TypeAdapter<T>) new AutocompleteAdapter(gson.getDelegateAdapter(this, TypeToken.get(Autocomplete.class)));
+        } else if (rawType == Details.class) {
+            return (TypeAdapter<T>) new DetailsAdapter(gson.getDelegateAdapter(this, TypeToken.get(Details.class)));
+        }
+        return null;
+    }
+
+
+    /**
+     * Base class of the streaming adapters, writing is left to the reflective adapter.
+     */
+    private abstract static class StreamingAdapter<T> extends TypeAdapter<T> {
+
+        private final TypeAdapter<T> mDelegate;
+
+        StreamingAdapter(TypeAdapter<T> delegate) {
+            mDelegate = delegate;
+        }
+
+        @Override
+        public void write(JsonWriter out, T value) throws IOException {
+            mDelegate.write(out, value);
+        }
+
+        @Override
+        public T read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            return readObject(in);
+        }
+
+        abstract T readObject(JsonReader in) throws IOException;
+    }
+
+
+    // --- Place Details (Rx endpoint) ---
+    private static class PlaceAdapter extends StreamingAdapter<Place> {
+
+        PlaceAdapter(TypeAdapter<Place> delegate) {
+            super(delegate);
+        }
+
+        @Override
+        Place readObject(JsonReader in) throws IOException {
+            Place place = new Place();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "result":
+                        place.setResult(readResult(in));
+                        break;
+                    case "status":
+                        place.setStatus(nextString(in));
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return place;
+        }
+
+        private static Place.Result readResult(JsonReader in) throws IOException {
+            if (skipNull(in)) {
+                return null;
+            }
+            Place.Result result = new Place.Result();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "place_id":
+                        result.setPlaceId(nextString(in));
+                        break;
+                    case "name":
+                        result.setName(nextString(in));
+                        break;
+                    case "vicinity":
+                        result.setVicinity(nextString(in));
+                        break;
+                    case "rating":
+                        result.setRating(nextDouble(in));
+                        break;
+                    case "formatted_phone_number":
+                        result.setFormattedPhoneNumber(nextString(in));
+                        break;
+                    case "website":
+                        result.setWebsite(nextString(in));
+                        break;
+                    case "geometry":
+                        result.setGeometry(readGeometry(in));
+                        break;
+                    case "photos":
+                        result.setPhotos(readPhotos(in));
+                        break;
+                    case "opening_hours":
+                        result.setOpeningHours(readOpeningHours(in));
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return result;
+        }
+
+        private static Place.Geometry readGeometry(JsonReader in) throws IOException {
+            if (skipNull(in)) {
+                return null;
+            }
+            Place.Geometry geometry = new Place.Geometry();
+            double[] latLng = readGeometryLocation(in);
+            if (latLng != null) {
+                Place.Location location = new Place.Location();
+                location.setLat(latLng[0]);
+                location.setLng(latLng[1]);
+                geometry.setLocation(location);
+            }
+            return geometry;
+        }
+
+        private static List<Place.Photo> readPhotos(JsonReader in) throws IOException {
+            String photoReference = readFirstPhotoReference(in);
+            if (photoReference == null) {
+                return null;
+            }
+            Place.Photo photo = new Place.Photo();
+            photo.setPhotoReference(photoReference);
+            return Collections.singletonList(photo);
+        }
+
+        private static Place.OpeningHours readOpeningHours(JsonReader in) throws IOException {
+            if (skipNull(in)) {
+                return null;
+            }
+            Place.OpeningHours openingHours = new Place.OpeningHours();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "open_now":
+                        openingHours.setOpenNow(nextBoolean(in));
+                        break;
+                    case "periods":
+                        openingHours.setPeriods(readPeriods(in));
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return openingHours;
+        }
+
+        private static List<Place.Period> readPeriods(JsonReader in) throws IOException {
+            if (skipNull(in)) {
+                return null;
+            }
+            List<Place.Period> periods = new ArrayList<>();
+            in.beginArray();
+            while (in.hasNext()) {
+                Place.Period period = new Place.Period();
+                in.beginObject();
+                while (in.hasNext()) {
+                    switch (in.nextName()) {
+                        case "open":
+                            period.setOpen(readOpen(in));
+                            break;
+                        case "close":
+                            period.setClose(readClose(in));
+                            break;
+                        default:
+                            in.skipValue();
+                    }
+                }
+                in.endObject();
+                periods.add(period);
+            }
+            in.endArray();
+            return periods;
+        }
+
+        private static Place.Open readOpen(JsonReader in) throws IOException {
+            if (skipNull(in)) {
+                return null;
+            }
+            Place.Open open = new Place.Open();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "day":
+                        open.setDay(nextLong(in));
+                        break;
+                    case "time":
+                        open.setTime(nextString(in));
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return open;
+        }
+
+        private static Place.Close readClose(JsonReader in) throws IOException {
+            if (skipNull(in)) {
+                return null;
+            }
+            Place.Close close = new Place.Close();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "day":
+                        close.setDay(nextLong(in));
+                        break;
+                    case "time":
+                        close.setTime(nextString(in));
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return close;
+        }
+    }
+
+
+    // --- Nearby Search ---
+    private static class NearbySearchAdapter extends StreamingAdapter<NearbySearch> {
+
+        NearbySearchAdapter(TypeAdapter<NearbySearch> delegate) {
+            super(delegate);
+        }
+
+        @Override
+        NearbySearch readObject(JsonReader in) throws IOException {
+            NearbySearch nearbySearch = new NearbySearch();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "next_page_token":
+                        nearbySearch.setNextPageToken(nextString(in));
+                        break;
+                    case "results":
+                        nearbySearch.setResults(readResults(in));
+                        break;
+                    case "status":
+                        nearbySearch.setStatus(nextString(in));
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            if (nearbySearch.getResults() == null) {
+                nearbySearch.setResults(new ArrayList<NearbySearch.Result>());
+            }
+            return nearbySearch;
+        }
+
+        private static List<NearbySearch.Result> readResults(JsonReader in) throws IOException {
+            if (skipNull(in)) {
+                return null;
+            }
+            List<NearbySearch.Result> results = new ArrayList<>();
+            in.beginArray();
+            while (in.hasNext()) {
+                results.add(readResult(in));
+            }
+            in.endArray();
+            return results;
+        }
+
+        private static NearbySearch.Result readResult(JsonReader in) throws IOException {
+            NearbySearch.Result result = new NearbySearch.Result();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "place_id":
+                        result.setPlaceId(nextString(in));
+                        break;
+                    case "name":
+                        result.setName(nextString(in));
+                        break;
+                    case "vicinity":
+                        result.setVicinity(nextString(in));
+                        break;
+                    case "rating":
+                        result.setRating(nextDouble(in));
+                        break;
+                    case "geometry":
+                        result.setGeometry(readGeometry(in));
+                        break;
+                    case "photos":
+                        result.setPhotos(readPhotos(in));
+                        break;
+                    case "opening_hours":
+                        result.setOpeningHours(readOpeningHours(in));
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return result;
+        }
+
+        private static NearbySearch.Geometry readGeometry(JsonReader in) throws IOException {
+            if (skipNull(in)) {
+                return null;
+            }
+            NearbySearch.Geometry geometry = new NearbySearch.Geometry();
+            double[] latLng = readGeometryLocation(in);
+            if (latLng != null) {
+                NearbySearch.Location location = new NearbySearch.Location();
+                location.setLat(latLng[0]);
+                location.setLng(latLng[1]);
+                geometry.setLocation(location);
+            }
+            return geometry;
+        }
+
+        private static List<NearbySearch.Photo> readPhotos(JsonReader in) throws IOException {
+            String photoReference = readFirstPhotoReference(in);
+            if (photoReference == null) {
+                return null;
+            }
+            NearbySearch.Photo photo = new NearbySearch.Photo();
+            photo.setPhotoReference(photoReference);
+            return Collections.singletonList(photo);
+        }
+
+        private static NearbySearch.OpeningHours readOpeningHours(JsonReader in) throws IOException {
+            if (skipNull(in)) {
+                return null;
+            }
+            NearbySearch.OpeningHours openingHours = new NearbySearch.OpeningHours();
+            in.beginObject();
+            while (in.hasNext()) {
+                if ("open_now".equals(in.nextName())) {
+                    openingHours.setOpenNow(nextBoolean(in));
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return openingHours;
+        }
+    }
+
+
+    // --- Autocomplete ---
+    private static class AutocompleteAdapter extends StreamingAdapter<Autocomplete> {
+
+        AutocompleteAdapter(TypeAdapter<Autocomplete> delegate) {
+            super(delegate);
+        }
+
+        @Override
+        Autocomplete readObject(JsonReader in) throws IOException {
+            Autocomplete autocomplete = new Autocomplete();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "predictions":
+                        autocomplete.setPredictions(readPredictions(in));
+                        break;
+                    case "status":
+                        autocomplete.setStatus(nextString(in));
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            if (autocomplete.getPredictions() == null) {
+                autocomplete.setPredictions(new ArrayList<Autocomplete.Prediction>());
+            }
+            return autocomplete;
+        }
+
+        private static List<Autocomplete.Prediction> readPredictions(JsonReader in) throws IOException {
+            if (skipNull(in)) {
+                return null;
+            }
+            List<Autocomplete.Prediction> predictions = new ArrayList<>();
+            in.beginArray();
+            while (in.hasNext()) {
+                predictions.add(readPrediction(in));
+            }
+            in.endArray();
+            return predictions;
+        }
+
+        private static Autocomplete.Prediction readPrediction(JsonReader in) throws IOException {
+            Autocomplete.Prediction prediction = new Autocomplete.Prediction();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "place_id":
+                        prediction.setPlaceId(nextString(in));
+                        break;
+                    case "description":
+                        prediction.setDescription(nextString(in));
+                        break;
+                    case "types":
+                        prediction.setTypes(readStrings(in));
+                        break;
+                    case "structured_formatting":
+                        prediction.setStructuredFormatting(readStructuredFormatting(in));
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            if (prediction.getTypes() == null) {
+                prediction.setTypes(new ArrayList<String>());
+            }
+            return prediction;
+        }
+
+        private static Autocomplete.StructuredFormatting readStructuredFormatting(JsonReader in) throws IOException {
+            if (skipNull(in)) {
+                return null;
+            }
+            Autocomplete.StructuredFormatting structuredFormatting = new Autocomplete.StructuredFormatting();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "main_text":
+                        structuredFormatting.setMainText(nextString(in));
+                        break;
+                    case "secondary_text":
+                        structuredFormatting.setSecondaryText(nextString(in));
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return structuredFormatting;
+        }
+    }
+
+
+    // --- Place Details (Call endpoint) ---
+    private static class DetailsAdapter extends StreamingAdapter<Details> {
+
+        DetailsAdapter(TypeAdapter<Details> delegate) {
+            super(delegate);
+        }
+
+        @Override
+        Details readObject(JsonReader in) throws IOException {
+            Details details = new Details();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "result":
+                        details.setResult(readResult(in));
+                        break;
+                    case "status":
+                        details.setStatus(nextString(in));
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return details;
+        }
+
+        private static Details.Result readResult(JsonReader in) throws IOException {
+            if (skipNull(in)) {
+                return null;
+            }
+            Details.Result result = new Details.Result();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "place_id":
+                        result.setPlaceId(nextString(in));
+                        break;
+                    case "name":
+                        result.setName(nextString(in));
+                        break;
+                    case "vicinity":
+                        result.setVicinity(nextString(in));
+                        break;
+                    case "rating":
+                        result.setRating(nextDouble(in));
+                        break;
+                    case "international_phone_number":
+                        result.setInternationalPhoneNumber(nextString(in));
+                        break;
+                    case "website":
+                        result.setWebsite(nextString(in));
+                        break;
+                    case "geometry":
+                        result.setGeometry(readGeometry(in));
+                        break;
+                    case "photos":
+                        String photoReference = readFirstPhotoReference(in);
+                        if (photoReference != null) {
+                            Details.Photo photo = new Details.Photo();
+                            photo.setPhotoReference(photoReference);
+                            result.setPhotos(Collections.singletonList(photo));
+                        }
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return result;
+        }
+
+        private static Details.Geometry readGeometry(JsonReader in) throws IOException {
+            if (skipNull(in)) {
+                return null;
+            }
+            Details.Geometry geometry = new Details.Geometry();
+            double[] latLng = readGeometryLocation(in);
+            if (latLng != null) {
+                Details.Location location = new Details.Location();
+                location.setLat(latLng[0]);
+                location.setLng(latLng[1]);
+                geometry.setLocation(location);
+            }
+            return geometry;
+        }
+    }
+
+
+    // --- Shared readers ---
+
+    /**
+     * Consumes a JSON null if it is the next token.
+     *
+     * @return true if a null was consumed.
+     */
+    private static boolean skipNull(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return true;
+        }
+        return false;
+    }
+
+    private static String nextString(JsonReader in) throws IOException {
+        return skipNull(in) ? null : in.nextString();
+    }
+
+    private static Double nextDouble(JsonReader in) throws IOException {
+        return skipNull(in) ? null : in.nextDouble();
+    }
+
+    private static Long nextLong(JsonReader in) throws IOException {
+        return skipNull(in) ? null : in.nextLong();
+    }
+
+    private static Boolean nextBoolean(JsonReader in) throws IOException {
+        return skipNull(in) ? null : in.nextBoolean();
+    }
+
+    private static List<String> readStrings(JsonReader in) throws IOException {
+        if (skipNull(in)) {
+            return null;
+        }
+        List<String> strings = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            strings.add(nextString(in));
+        }
+        in.endArray();
+        return strings;
+    }
+
+    /**
+     * Reads a "geometry" object and keeps its location only, a null location is consumed and
+     * left unset.
+     *
+     * @return an array holding the latitude and the longitude, null without location.
+     */
+    private static double[] readGeometryLocation(JsonReader in) throws IOException {
+        double[] latLng = null;
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (!"location".equals(name)) {
+                in.skipValue();
+            } else if (!skipNull(in)) {
+                latLng = readLatLng(in);
+            }
+        }
+        in.endObject();
+        return latLng;
+    }
+
+    /**
+     * Reads a {"lat": .., "lng": ..} object.
+     *
+     * @return an array holding the latitude and the longitude.
+     */
+    private static double[] readLatLng(JsonReader in) throws IOException {
+        double[] latLng = new double[2];
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "lat":
+                    latLng[0] = in.nextDouble();
+                    break;
+                case "lng":
+                    latLng[1] = in.nextDouble();
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return latLng;
+    }
+
+    /**
+     * Reads a "photos" array and keeps the photo_reference of its first element only.
+     */
+    private static String readFirstPhotoReference(JsonReader in) throws IOException {
+        if (skipNull(in)) {
+            return null;
+        }
+        String photoReference = null;
+        in.beginArray();
+        while (in.hasNext()) {
+            if (photoReference != null) {
+                in.skipValue();
+                continue;
+            }
+            in.beginObject();
+            while (in.hasNext()) {
+                if ("photo_reference".equals(in.nextName())) {
+                    photoReference = nextString(in);
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+        }
+        in.endArray();
+        return photoReference;
+    }
+}
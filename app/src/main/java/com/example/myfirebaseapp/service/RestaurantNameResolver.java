@@ -0,0 +1,149 @@
+package com.example.myfirebaseapp.service;
+
+import android.util.Log;
+
+import com.example.myfirebaseapp.models.LunchChoice;
+import com.example.myfirebaseapp.models.api.Place;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import io.reactivex.Observable;
+import io.reactivex.Single;
+import io.reactivex.functions.Function;
+
+/**
+ * Resolves the names of the restaurants shown in the workmates lists. Most choices carry the
+ * name of their restaurant, the others (e.g. written by an older version of the app) are
+ * resolved by placeId: every distinct placeId of a snapshot once, from the names already known
+ * first, then with a bounded number of Place Details requests, and all the names are delivered
+ * in a single update. The Places traffic grows with the distinct restaurants, not the workmates.
+ */
+public class RestaurantNameResolver {
+
+    // private static
+    private static final String TAG = RestaurantNameResolver.class.getSimpleName();
+    public static final int DEFAULT_MAX_ENTRIES = 200;
+    private static RestaurantNameResolver RESTAURANT_NAME_RESOLVER;
+
+
+    // public static
+    public static synchronized RestaurantNameResolver getInstance() {
+        if (RESTAURANT_NAME_RESOLVER == null) {
+            RESTAURANT_NAME_RESOLVER = new RestaurantNameResolver(
+                    placeId -> PlacesRepository.getRestaurantDetailStream(placeId, DetailsTier.CARD),
+                    DEFAULT_MAX_ENTRIES,
+                    PlacesRepository.DEFAULT_DETAILS_CONCURRENCY);
+        }
+        return RESTAURANT_NAME_RESOLVER;
+    }
+
+    /**
+     * @param known the names already known, by placeId.
+     * @return the distinct placeIds of the choices whose name is neither on the choice nor known.
+     */
+    public static Set<String> getMissingPlaceIds(Collection<LunchChoice> choices, Map<String, String> known) {
+        Set<String> missing = new LinkedHashSet<>();
+        for (LunchChoice choice : choices) {
+            String placeId = choice.getPlaceId();
+            if (placeId != null && choice.getRestaurantName() == null && !known.containsKey(placeId)) {
+                missing.add(placeId);
+            }
+        }
+        return missing;
+    }
+
+
+    // variables
+    private final Function<String, Observable<Place>> mLoader;
+    private final int mMaxConcurrency;
+    private final LinkedHashMap<String, String> mNames;
+
+
+    // constructor
+
+    /**
+     * @param loader         the Details request of a placeId.
+     * @param maxEntries     the number of names kept in memory.
+     * @param maxConcurrency the number of Details requests allowed in flight at the same time.
+     */
+    public RestaurantNameResolver(Function<String, Observable<Place>> loader, final int maxEntries, int maxConcurrency) {
+        mLoader = loader;
+        mMaxConcurrency = maxConcurrency;
+        mNames = new LinkedHashMap<String, String>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+
+    // methods
+
+    /**
+     * Resolves the names of the restaurants of these choices.
+     *
+     * @return a Single emitting once the names of every restaurant which could be resolved, by
+     * placeId. A restaurant whose Details request failed is left out.
+     */
+    public Single<Map<String, String>> resolve(final Collection<LunchChoice> choices) {
+        remember(choices);
+        Set<String> missing = getMissingPlaceIds(choices, getKnownNames());
+        if (missing.isEmpty()) {
+            return Single.just(getNames(choices));
+        }
+        Log.d(TAG, "resolve: " + missing.size() + " restaurants for " + choices.size() + " choices");
+
+        return Observable.fromIterable(missing)
+                .flatMap(placeId -> mLoader.apply(placeId)
+                        .take(1)
+                        .filter(place -> place.getResult() != null && place.getResult().getName() != null)
+                        .doOnNext(place -> put(placeId, place.getResult().getName()))
+                        .onErrorResumeNext(Observable.<Place>empty()), mMaxConcurrency)
+                .ignoreElements()
+                .andThen(Single.fromCallable(() -> getNames(choices)));
+    }
+
+    /**
+     * Keeps the names carried by these choices, so that a later choice of the same restaurant
+     * without its name needs no request.
+     */
+    public synchronized void remember(Collection<LunchChoice> choices) {
+        for (LunchChoice choice : choices) {
+            if (choice.getPlaceId() != null && choice.getRestaurantName() != null) {
+                mNames.put(choice.getPlaceId(), choice.getRestaurantName());
+            }
+        }
+    }
+
+    public synchronized void put(String placeId, String name) {
+        mNames.put(placeId, name);
+    }
+
+    public synchronized Map<String, String> getKnownNames() {
+        return new HashMap<>(mNames);
+    }
+
+    /**
+     * @return the known names of the restaurants of these choices, by placeId.
+     */
+    public synchronized Map<String, String> getNames(Collection<LunchChoice> choices) {
+        Map<String, String> names = new HashMap<>();
+        for (LunchChoice choice : choices) {
+            String name = choice.getPlaceId() != null ? mNames.get(choice.getPlaceId()) : null;
+            if (name != null) {
+                names.put(choice.getPlaceId(), name);
+            }
+        }
+        return names;
+    }
+
+    public synchronized void clear() {
+        mNames.clear();
+    }
+}
@@ -1,33 +1,157 @@
 package com.example.myfirebaseapp.service;
 
+import android.content.Context;
 import android.util.Log;
 
+import androidx.annotation.Nullable;
+
+import com.google.gson.GsonBuilder;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
 import retrofit2.Retrofit;
 import retrofit2.adapter.rxjava2.RxJava2CallAdapterFactory;
 import retrofit2.converter.gson.GsonConverterFactory;
 
+/**
+ * Single HTTP stack shared by every Google Places request of the app.
+ * One {@link OkHttpClient} keeps warm connections to maps.googleapis.com, and service
+ * proxies are created once and reused.
+ */
 public class RetrofitService {
 
-
-
     private static final String TAG = RetrofitService.class.getSimpleName();
     private static final String BASE_URL = "https://maps.googleapis.com/";
-    private static final Retrofit RETROFIT = new Retrofit.Builder()
-            .baseUrl(BASE_URL)
-            .addConverterFactory(GsonConverterFactory.create())
-            .build();
 
-    public static <S> S createService(Class<S> serviceClass) {
-        Log.d(TAG, "createService");
+    // Sized for the Details fan-out, see PlacesRepository.DEFAULT_DETAILS_CONCURRENCY
+    private static final int MAX_IDLE_CONNECTIONS = 8;
+    private static final int MAX_REQUESTS_PER_HOST = 8;
+    private static final long KEEP_ALIVE_MINUTES = 5;
+
+    // Per-endpoint timeouts, in seconds
+    private static final int CONNECT_TIMEOUT = 10;
+    private static final int DETAILS_READ_TIMEOUT = 10;
+    private static final int NEARBY_SEARCH_READ_TIMEOUT = 15;
+    private static final int AUTOCOMPLETE_READ_TIMEOUT = 5;
+
+    private static PlacesCachePolicy CACHE_POLICY;
+    private static OkHttpClient OK_HTTP_CLIENT;
+    private static Retrofit RETROFIT;
+    private static final Map<Class<?>, Object> SERVICES = new HashMap<>();
 
-        return RETROFIT.create(serviceClass);
+
+    /**
+     * Enables the on-disk cache of the Places responses. Must be called before the first
+     * request, from {@link com.example.myfirebaseapp.Go4LunchApplication}.
+     */
+    public static synchronized void init(Context context) {
+        if (CACHE_POLICY == null && OK_HTTP_CLIENT == null) {
+            CACHE_POLICY = new PlacesCachePolicy(context.getApplicationContext().getCacheDir());
+        }
+    }
+
+    /**
+     * @return the cache policy holding the hit and miss counters, or null if
+     * {@link #init(Context)} was not called.
+     */
+    @Nullable
+    public static synchronized PlacesCachePolicy getCachePolicy() {
+        return CACHE_POLICY;
     }
 
+    /**
+     * @return the shared {@link OkHttpClient}. OkHttp negotiates HTTP/2 and handles gzip
+     * transparently: it sends "Accept-Encoding: gzip" and decompresses the responses.
+     */
+    public static synchronized OkHttpClient getOkHttpClient() {
+        if (OK_HTTP_CLIENT == null) {
+            Dispatcher dispatcher = new Dispatcher();
+            dispatcher.setMaxRequestsPerHost(MAX_REQUESTS_PER_HOST);
 
-    public static Retrofit retrofit = new Retrofit.Builder()
-            .baseUrl("https://maps.googleapis.com/")
-            .addConverterFactory(GsonConverterFactory.create())
-            .addCallAdapterFactory(RxJava2CallAdapterFactory.create())
-            .build();
+            OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                    .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+                    .dispatcher(dispatcher)
+                    .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                    .connectTimeout(CONNECT_TIMEOUT, TimeUnit.SECONDS)
+                    .readTimeout(DETAILS_READ_TIMEOUT, TimeUnit.SECONDS);
+
+            if (CACHE_POLICY != null) {
+                builder.cache(CACHE_POLICY.getCache())
+                        .addInterceptor(CACHE_POLICY.getStaleIfErrorInterceptor())
+                        .addNetworkInterceptor(CACHE_POLICY.getFreshnessInterceptor());
+            }
+
+            OK_HTTP_CLIENT = builder
+                    .addInterceptor(new EndpointTimeoutInterceptor())
+                    .build();
+        }
+        return OK_HTTP_CLIENT;
+    }
 
-}
\ No newline at end of file
+    public static synchronized Retrofit getRetrofit() {
+        if (RETROFIT == null) {
+            RETROFIT = new Retrofit.Builder()
+                    .baseUrl(BASE_URL)
+                    .client(getOkHttpClient())
+                    .addConverterFactory(GsonConverterFactory.create(new GsonBuilder()
+                            .registerTypeAdapterFactory(new PlacesTypeAdapterFactory())
+                            .create()))
+                    .addCallAdapterFactory(RxJava2CallAdapterFactory.create())
+                    .build();
+        }
+        return RETROFIT;
+    }
+
+    /**
+     * @return the service proxy for this interface, created on the first call and reused after.
+     */
+    public static synchronized <S> S createService(Class<S> serviceClass) {
+        Object service = SERVICES.get(serviceClass);
+        if (service == null) {
+            Log.d(TAG, "createService");
+
+            service = getRetrofit().create(serviceClass);
+            SERVICES.put(serviceClass, service);
+        }
+        return serviceClass.cast(service);
+    }
+
+    public static GoogleMapsApi getGoogleMapsApi() {
+        return createService(GoogleMapsApi.class);
+    }
+
+
+    /**
+     * Applies the read timeout matching the Places endpoint being called.
+     */
+    private static class EndpointTimeoutInterceptor implements Interceptor {
+
+        @Override
+        public Response intercept(Chain chain) throws IOException {
+            Request request = chain.request();
+            String path = request.url().encodedPath();
+
+            int readTimeout = DETAILS_READ_TIMEOUT;
+            if (path.contains("/nearbysearch/")) {
+                readTimeout = NEARBY_SEARCH_READ_TIMEOUT;
+            } else if (path.contains("/autocomplete/")) {
+                readTimeout = AUTOCOMPLETE_READ_TIMEOUT;
+            }
+
+            return chain
+                    .withReadTimeout(readTimeout, TimeUnit.SECONDS)
+                    .proceed(request);
+        }
+    }
+}
@@ -3,7 +3,6 @@ package com.example.myfirebaseapp.ui.activities;
 import android.content.Intent;
 import android.os.Bundle;
 import android.text.TextUtils;
-import android.util.Log;
 import android.view.MenuItem;
 import android.view.View;
 
@@ -21,10 +20,11 @@ import androidx.fragment.app.Fragment;
 import com.bumptech.glide.Glide;
 import com.bumptech.glide.request.RequestOptions;
 import com.example.myfirebaseapp.R;
-import com.example.myfirebaseapp.api.UserHelper;
+import com.example.myfirebaseapp.api.LunchHelper;
+import com.example.myfirebaseapp.models.LunchChoice;
 import com.example.myfirebaseapp.models.User;
 import com.example.myfirebaseapp.models.api.Place;
-import com.example.myfirebaseapp.service.PlacesRepository;
+import com.example.myfirebaseapp.repository.CurrentUserRepository;
 import com.example.myfirebaseapp.ui.fragments.ChatFragment;
 import com.example.myfirebaseapp.ui.fragments.ListViewFragment;
 import com.example.myfirebaseapp.ui.fragments.MapViewFragment;
@@ -33,11 +33,6 @@ import com.google.android.material.bottomnavigation.BottomNavigationView;
 import com.google.android.material.navigation.NavigationView;
 import com.google.firebase.auth.FirebaseAuth;
 
-import java.util.Objects;
-
-import io.reactivex.disposables.Disposable;
-import io.reactivex.observers.DisposableObserver;
-
 import static com.example.myfirebaseapp.api.UserHelper.getCurrentUser;
 import static com.example.myfirebaseapp.utils.ViewUtils.setSnackBar;
 import static com.example.myfirebaseapp.utils.Constant.RESTAURANT_ID;
@@ -50,9 +45,6 @@ public class MainActivity extends AppCompatActivity implements NavigationView.On
     private BottomNavigationView bottomNavigationView;
     private DrawerLayout drawerLayout;
     private NavigationView navigationView;
-    private Disposable disposable;
-    private Place place;
-    private String restaurantId;
     private FirebaseAuth auth;
 
 
@@ -139,15 +131,13 @@ public class MainActivity extends AppCompatActivity implements NavigationView.On
         int id = item.getItemId();
 
         if (item.getItemId() == R.id.menu_drawer_lunch) {
-            if (getCurrentUser() != null) {
-                UserHelper.getUser(getCurrentUser().getUid()).addOnSuccessListener(documentSnapshot -> {
-                    User user = documentSnapshot.toObject(User.class);
-                    if (Objects.requireNonNull(user).getRestaurantId() != null) {
-                        getUserRestaurant(user);
-                    } else {
-                        setSnackBar(drawerLayout,getString(R.string.no_restaurant_choose));
-                    }
-                });
+            User user = CurrentUserRepository.getInstance().getUser();
+            if (user != null) {
+                if (user.getRestaurantId() != null) {
+                    getUserRestaurant(user);
+                } else {
+                    setSnackBar(drawerLayout,getString(R.string.no_restaurant_choose));
+                }
             }
 
         } else if (item.getItemId() == R.id.menu_drawer_settings) {
@@ -200,41 +190,24 @@ public class MainActivity extends AppCompatActivity implements NavigationView.On
     }
 
 
+    // Your lunch is opened from the summary of today's choice, without the Places API
     private void getUserRestaurant(User users) {
-        restaurantId = users.getRestaurantId();
-        getRestaurantDetail();
-    }
-
-
-    private void getRestaurantDetail() {
-        this.disposable = PlacesRepository.getRestaurantDetailStream(restaurantId)
-                .subscribeWith(new DisposableObserver<Place>() {
-
-                    @Override
-                    public void onNext(Place placeDetail) {
-                        place = placeDetail;
-                        startRestaurantActivity();
-                    }
-
-                    @Override
-                    public void onComplete() {
-                        if (restaurantId != null) {
-                            Log.d(TAG, "your lunch" + place.getResult());
-                        }
-                    }
-
-                    @Override
-                    public void onError(Throwable e) {
-                        Log.d(TAG, Log.getStackTraceString(e));
+        LunchHelper.getTodayChoicesCollection().document(users.getUid()).get()
+                .addOnSuccessListener(documentSnapshot -> {
+                    LunchChoice choice = documentSnapshot.toObject(LunchChoice.class);
+                    if (choice != null) {
+                        startRestaurantActivity(choice.toRestaurant());
+                    } else {
+                        setSnackBar(drawerLayout, getString(R.string.no_restaurant_choose));
                     }
                 });
     }
 
 
-    public void startRestaurantActivity() {
+    public void startRestaurantActivity(Place.Result restaurant) {
         Intent intent = new Intent(this, RestaurantActivity.class);
         Bundle bundle = new Bundle();
-        bundle.putSerializable(RESTAURANT_ID, place.getResult());
+        bundle.putSerializable(RESTAURANT_ID, restaurant);
         intent.putExtras(bundle);
         this.startActivity(intent);
     }
@@ -6,6 +6,7 @@ import android.content.Intent;
 import android.content.pm.PackageManager;
 import android.net.Uri;
 import android.os.Bundle;
+import android.util.Log;
 import android.view.View;
 import android.widget.Button;
 import android.widget.ImageView;
@@ -24,28 +25,28 @@ import com.bumptech.glide.Glide;
 import com.bumptech.glide.RequestManager;
 import com.bumptech.glide.request.RequestOptions;
 import com.example.myfirebaseapp.R;
-import com.example.myfirebaseapp.api.UserHelper;
+import com.example.myfirebaseapp.api.RestaurantHelper;
 import com.example.myfirebaseapp.models.User;
 import com.example.myfirebaseapp.models.api.Place;
+import com.example.myfirebaseapp.repository.CurrentUserRepository;
+import com.example.myfirebaseapp.service.DetailsTier;
+import com.example.myfirebaseapp.service.PlacesRepository;
 import com.example.myfirebaseapp.ui.adapters.RestaurantAdapter;
-import com.firebase.ui.firestore.FirestoreRecyclerOptions;
-import com.google.android.gms.tasks.OnSuccessListener;
+import com.example.myfirebaseapp.utils.TimeUtils;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
-import com.google.firebase.firestore.CollectionReference;
-import com.google.firebase.firestore.DocumentSnapshot;
-import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.ListenerRegistration;
 
 import java.io.Serializable;
-import java.util.Objects;
 
 import io.reactivex.disposables.Disposable;
+import io.reactivex.observers.DisposableObserver;
 
 
 import static com.example.myfirebaseapp.BuildConfig.GOOGLE_MAP_API_KEY;
 import static com.example.myfirebaseapp.utils.Constant.CHOOSEN;
 import static com.example.myfirebaseapp.utils.Constant.REQUEST_CALL;
 import static com.example.myfirebaseapp.utils.Constant.RESTAURANT_ID;
+import static com.example.myfirebaseapp.utils.Constant.SESSION_TOKEN;
 import static com.example.myfirebaseapp.utils.Constant.UNCHOOSEN;
 import static com.example.myfirebaseapp.utils.TimeUtils.getCurrentTime;
 
@@ -55,6 +56,7 @@ import static com.example.myfirebaseapp.utils.TimeUtils.getCurrentTime;
 public class RestaurantActivity extends AppCompatActivity implements Serializable {
 
     // --- Attribute ---
+    private static final String TAG = RestaurantActivity.class.getSimpleName();
     private ImageView photo;
     private TextView name;
     private RatingBar ratingBar;
@@ -67,11 +69,12 @@ public class RestaurantActivity extends AppCompatActivity implements Serializabl
 
     //private String GOOGLE_MAP_API_KEY = BuildConfig.GOOGLE_MAP_API_KEY;
     private RequestManager requestManager;
-    private FirebaseFirestore db = FirebaseFirestore.getInstance();
-    private CollectionReference collectionUsers = db.collection("users");
     private RestaurantAdapter adapter;
+    private ListenerRegistration participantsRegistration;
     private Disposable disposable;
+    private Disposable userDisposable;
     private String placeId;
+    private Place.Result placeResult;
 
 
     @Override
@@ -92,6 +95,8 @@ public class RestaurantActivity extends AppCompatActivity implements Serializabl
 
         this.updateUI();
         this.configureRecyclerView(placeId);
+        // The autocomplete session of the search ends with the first Details request only
+        this.loadContactDetails(savedInstanceState == null ? getIntent().getStringExtra(SESSION_TOKEN) : null);
 
         ActionBar actionBar = getSupportActionBar();
         if (actionBar != null) {
@@ -104,9 +109,8 @@ public class RestaurantActivity extends AppCompatActivity implements Serializabl
     private void updateUI() {
         Intent intent = this.getIntent();
         Bundle bundle = intent.getExtras();
-        Place.Result placeResult = null;
 
-        if (bundle != null) {
+        if (placeResult == null && bundle != null) {
             placeResult = (Place.Result) bundle.getSerializable(RESTAURANT_ID);
         }
         if (placeResult != null) {
@@ -140,39 +144,61 @@ public class RestaurantActivity extends AppCompatActivity implements Serializabl
         // Restaurant' rating
         restaurantRating(placeResult);
 
-        // Restaurant' like
-        final String placeRestaurantId = placeResult.getPlaceId();
-        UserHelper.getUser(Objects.requireNonNull(UserHelper.getCurrentUser()).getUid()).addOnSuccessListener(new OnSuccessListener<DocumentSnapshot>() {
-            @Override
-            public void onSuccess(DocumentSnapshot documentSnapshot) {
-                User user = documentSnapshot.toObject(User.class);
-                if (user != null) {
-                    if (user.getLike() != null && !user.getLike().isEmpty() && user.getLike().contains(placeRestaurantId)) {
-                        likeButton.setCompoundDrawablesWithIntrinsicBounds(null, ContextCompat.getDrawable(getApplicationContext(), R.drawable.ic_restaurant_like), null, null);
-                    } else {
-                        likeButton.setCompoundDrawablesWithIntrinsicBounds(null, ContextCompat.getDrawable(getApplicationContext(), R.drawable.ic_restaurant_like_unselected), null, null);
+        // Restaurant' like and choice, from the current user
+        User user = CurrentUserRepository.getInstance().getUser();
+        if (user != null) {
+            updateUserButtons(user);
+        }
+    }
+
+    // --- Like and choice of the current user, kept in sync with the session store ---
+    private void updateUserButtons(User user) {
+        final String placeRestaurantId = placeResult != null ? placeResult.getPlaceId() : null;
+        if (placeRestaurantId == null) {
+            return;
+        }
+
+        if (user.getLike() != null && user.getLike().contains(placeRestaurantId)) {
+            likeButton.setCompoundDrawablesWithIntrinsicBounds(null, ContextCompat.getDrawable(getApplicationContext(), R.drawable.ic_restaurant_like), null, null);
+        } else {
+            likeButton.setCompoundDrawablesWithIntrinsicBounds(null, ContextCompat.getDrawable(getApplicationContext(), R.drawable.ic_restaurant_like_unselected), null, null);
+        }
+
+        if (placeRestaurantId.equals(user.getRestaurantId())) {
+            okFloatingButton.setImageDrawable(getResources().getDrawable(R.drawable.ic_restaurant_check_selected));
+            okFloatingButton.setTag(CHOOSEN);
+        } else {
+            okFloatingButton.setImageDrawable(getResources().getDrawable(R.drawable.ic_restaurant_check_unselected));
+            okFloatingButton.setTag(UNCHOOSEN);
+        }
+    }
+
+    // --- Contact details, only requested once the restaurant is opened ---
+    private void loadContactDetails(String sessionToken) {
+        if (placeId == null) {
+            return;
+        }
+        this.disposable = PlacesRepository.getRestaurantDetailStream(placeId, DetailsTier.CONTACT, sessionToken)
+                .subscribeWith(new DisposableObserver<Place>() {
+                    @Override
+                    public void onNext(Place place) {
+                        // A response which is not OK has no result, and the screen may have lost its restaurant
+                        if (place != null && place.getResult() != null && placeResult != null) {
+                            placeResult.setFormattedPhoneNumber(place.getResult().getFormattedPhoneNumber());
+                            placeResult.setWebsite(place.getResult().getWebsite());
+                        }
                     }
-                }
-            }
-        });
-
-        // Restaurant
-        UserHelper.getUser(Objects.requireNonNull(UserHelper.getCurrentUser()).getUid()).addOnSuccessListener(new OnSuccessListener<DocumentSnapshot>() {
-            @Override
-            public void onSuccess(DocumentSnapshot documentSnapshot) {
-                User user = documentSnapshot.toObject(User.class);
-                if (user != null) {
-                    if (user.getRestaurantId() != null && !user.getRestaurantId().isEmpty() && user.getRestaurantId().contains(placeRestaurantId)) {
-                        okFloatingButton.setImageDrawable(getResources().getDrawable(R.drawable.ic_restaurant_check_selected));
-                        okFloatingButton.setTag(CHOOSEN);
-                    } else {
-                        okFloatingButton.setImageDrawable(getResources().getDrawable(R.drawable.ic_restaurant_check_unselected));
-                        okFloatingButton.setTag(UNCHOOSEN);
+
+                    @Override
+                    public void onComplete() {
+                        Log.d(TAG, "contact details loaded");
                     }
-                }
-            }
-        });
 
+                    @Override
+                    public void onError(Throwable e) {
+                        Log.d(TAG, Log.getStackTraceString(e));
+                    }
+                });
     }
 
     private void restaurantRating(Place.Result placeResult) {
@@ -212,31 +238,19 @@ public class RestaurantActivity extends AppCompatActivity implements Serializabl
                 placeDetailsResult = (Place.Result) bundle.getSerializable(RESTAURANT_ID);
             }
 
+            // The button follows the optimistic update of the session store
             if (placeDetailsResult != null) {
-                UserHelper.updateRestaurantId(Objects.requireNonNull(UserHelper.getCurrentUser()).getUid(), placeDetailsResult.getPlaceId(), getCurrentTime());
-                okFloatingButton.setImageDrawable(getResources().getDrawable(R.drawable.ic_restaurant_check_selected));
-                okFloatingButton.setTag(CHOOSEN);
-
+                CurrentUserRepository.getInstance().chooseRestaurant(placeDetailsResult, getCurrentTime());
             }
         } else {
-            UserHelper.deleteRestaurantId(Objects.requireNonNull(Objects.requireNonNull(UserHelper.getCurrentUser()).getUid()));
-            okFloatingButton.setImageDrawable(getResources().getDrawable(R.drawable.ic_restaurant_check_unselected));
-            okFloatingButton.setTag(UNCHOOSEN);
-
+            CurrentUserRepository.getInstance().leaveRestaurant();
         }
     }
 
 
     // --- Call Button ---
     public void callOnClick() {
-        Intent intent1 = this.getIntent();
-        Bundle bundle = intent1.getExtras();
-
-        Place.Result place = null;
-
-        if (bundle != null) place = (Place.Result) bundle.getSerializable(RESTAURANT_ID);
-
-        String formattedPhoneNumber = place.getFormattedPhoneNumber();
+        String formattedPhoneNumber = placeResult != null ? placeResult.getFormattedPhoneNumber() : null;
 
         if (ContextCompat.checkSelfPermission(RestaurantActivity.this, Manifest.permission.CALL_PHONE) != PackageManager.PERMISSION_GRANTED) {
             ActivityCompat.requestPermissions(RestaurantActivity.this, new String[]{Manifest.permission.CALL_PHONE}, REQUEST_CALL);
@@ -252,14 +266,7 @@ public class RestaurantActivity extends AppCompatActivity implements Serializabl
 
     // --- Website Button ---
     public void websiteOnClick() {
-        Intent intent1 = this.getIntent();
-        Bundle bundle = intent1.getExtras();
-
-        Place.Result place = null;
-
-        if (bundle != null) place = (Place.Result) bundle.getSerializable(RESTAURANT_ID);
-
-        String url = place.getWebsite();
+        String url = placeResult != null ? placeResult.getWebsite() : null;
 
         if (url != null && !url.isEmpty()) {
             Intent intent = new Intent(RestaurantActivity.this, WebsiteActivity.class);
@@ -283,52 +290,65 @@ public class RestaurantActivity extends AppCompatActivity implements Serializabl
             placeResult = (Place.Result) bundle.getSerializable(RESTAURANT_ID);
         }
 
-        if (placeResult != null) {
+        CurrentUserRepository currentUser = CurrentUserRepository.getInstance();
+        User user = currentUser.getUser();
+        if (placeResult != null && user != null) {
             final String placeRestaurantId = placeResult.getPlaceId();
-            UserHelper.getUser(UserHelper.getCurrentUser().getUid()).addOnSuccessListener(new OnSuccessListener<DocumentSnapshot>() {
-                @Override
-                public void onSuccess(DocumentSnapshot documentSnapshot) {
-                    User user = documentSnapshot.toObject(User.class);
-                    if (user != null) {
-                        if (user.getLike().contains(placeRestaurantId)) {
-                            UserHelper.deleteLike(UserHelper.getCurrentUser().getUid(), placeRestaurantId);
-                            likeButton.setCompoundDrawablesWithIntrinsicBounds(null, ContextCompat.getDrawable(getApplicationContext(), R.drawable.ic_restaurant_like_unselected), null, null);
-                        } else {
-                            UserHelper.updateLike(UserHelper.getCurrentUser().getUid(), placeRestaurantId);
-                            likeButton.setCompoundDrawablesWithIntrinsicBounds(null, ContextCompat.getDrawable(getApplicationContext(), R.drawable.ic_restaurant_like), null, null);
-                        }
-                    }
-                }
-            });
+            if (user.getLike().contains(placeRestaurantId)) {
+                currentUser.unlike(placeRestaurantId);
+            } else {
+                currentUser.like(placeRestaurantId);
+            }
         }
     }
 
 
     // --- Recycler View ---
     private void configureRecyclerView(String restaurantId) {
-        Query query = collectionUsers.whereEqualTo("restaurantId", restaurantId);
-
-        FirestoreRecyclerOptions<User> options = new FirestoreRecyclerOptions.Builder<User>()
-                .setQuery(query, User.class)
-                .build();
-        this.adapter = new RestaurantAdapter(options, Glide.with(this));
+        this.adapter = new RestaurantAdapter(Glide.with(this));
         recyclerViewRestaurant.setHasFixedSize(true);
         recyclerViewRestaurant.setAdapter(adapter);
         recyclerViewRestaurant.setLayoutManager(new LinearLayoutManager(this));
 
     }
 
+    // Workmates joining are read from the shards of the restaurant for today only
+    private void startListeningParticipants() {
+        if (placeId == null || participantsRegistration != null) {
+            return;
+        }
+        final String restaurantId = placeId;
+        participantsRegistration = RestaurantHelper.getShardsCollection(TimeUtils.getToday(), restaurantId)
+                .addSnapshotListener((shards, e) -> {
+                    if (e != null) {
+                        Log.e(TAG, "startListeningParticipants: onEvent", e);
+                        return;
+                    }
+                    if (shards != null) {
+                        adapter.setUsers(RestaurantHelper.getParticipants(restaurantId, shards));
+                    }
+                });
+    }
+
     // --- Life cycle method ---
     @Override
     public void onStart() {
         super.onStart();
-        adapter.startListening();
+        startListeningParticipants();
+        userDisposable = CurrentUserRepository.getInstance().getUserStream().subscribe(this::updateUserButtons);
     }
 
     @Override
     public void onStop() {
         super.onStop();
-        adapter.stopListening();
+        if (userDisposable != null) {
+            userDisposable.dispose();
+            userDisposable = null;
+        }
+        if (participantsRegistration != null) {
+            participantsRegistration.remove();
+            participantsRegistration = null;
+        }
     }
 
 
@@ -18,11 +18,16 @@ import com.bumptech.glide.RequestManager;
 import com.bumptech.glide.request.RequestOptions;
 import com.example.myfirebaseapp.R;
 import com.example.myfirebaseapp.models.Message;
-import com.firebase.ui.firestore.FirestoreRecyclerAdapter;
-import com.firebase.ui.firestore.FirestoreRecyclerOptions;
+import com.example.myfirebaseapp.models.MessageSender;
 
+import java.util.ArrayList;
+import java.util.List;
 
-public class ChatAdapter extends FirestoreRecyclerAdapter<Message, ChatAdapter.ChatViewHolder> {
+
+/**
+ * Messages of the chat, oldest first, as loaded by the window of the chat.
+ */
+public class ChatAdapter extends RecyclerView.Adapter<ChatAdapter.ChatViewHolder> {
 
     public interface Listener {
         void onDataChanged();
@@ -31,13 +36,13 @@ public class ChatAdapter extends FirestoreRecyclerAdapter<Message, ChatAdapter.C
     //FOR DATA
     private final RequestManager glide;
     private final String idCurrentUser;
+    private List<Message> messages = new ArrayList<>();
 
     //FOR COMMUNICATION
     private Listener callback;
 
     // Constructor
-    public ChatAdapter(@NonNull FirestoreRecyclerOptions<Message> options, RequestManager glide, Listener callback, String idCurrentUser) {
-        super(options);
+    public ChatAdapter(RequestManager glide, Listener callback, String idCurrentUser) {
         this.glide = glide;
         this.callback = callback;
         this.idCurrentUser = idCurrentUser;
@@ -53,13 +58,18 @@ public class ChatAdapter extends FirestoreRecyclerAdapter<Message, ChatAdapter.C
 
     // Update viewHolder
     @Override
-    protected void onBindViewHolder(@NonNull ChatViewHolder holder, int position, @NonNull Message model) {
-        holder.updateWithMessage(model, this.idCurrentUser, this.glide);
+    public void onBindViewHolder(@NonNull ChatViewHolder holder, int position) {
+        holder.updateWithMessage(messages.get(position), this.idCurrentUser, this.glide);
     }
 
     @Override
-    public void onDataChanged() {
-        super.onDataChanged();
+    public int getItemCount() {
+        return messages.size();
+    }
+
+    public void setMessages(List<Message> messages) {
+        this.messages = messages;
+        notifyDataSetChanged();
         this.callback.onDataChanged();
     }
 
@@ -115,23 +125,26 @@ public class ChatAdapter extends FirestoreRecyclerAdapter<Message, ChatAdapter.C
 
         //Update with message
         public void updateWithMessage(Message message, String currentUserId, RequestManager glide) {
-            Boolean isCurrentUser = message.getUserSender().getUid().equals(currentUserId);
+            // Older messages embed the whole user, newer ones only a snapshot of the sender
+            MessageSender sender = message.resolveSender();
+            Boolean isCurrentUser = sender != null && sender.getUid().equals(currentUserId);
 
             this.textViewMessage.setText(message.getMessage());
             this.textViewMessage.setTextAlignment(isCurrentUser ? View.TEXT_ALIGNMENT_TEXT_END : View.TEXT_ALIGNMENT_TEXT_START);
 
 
-            this.imageViewUser.setVisibility(message.getUserSender().getUserChat() ? View.VISIBLE : View.INVISIBLE);
+            this.imageViewUser.setVisibility(sender != null && sender.getUserChat() ? View.VISIBLE : View.INVISIBLE);
 
 
-            if (message.getUserSender().getUrlPicture() != null)
-                glide.load(message.getUserSender().getUrlPicture())
+            if (sender != null && sender.getUrlPicture() != null)
+                glide.load(sender.getUrlPicture())
                         .apply(RequestOptions.circleCropTransform())
                         .into(imageViewProfile);
 
 
             if (message.getUrlImage() != null) {
-                glide.load(message.getUrlImage())
+                // The card only needs the thumbnail
+                glide.load(message.resolveThumbnail())
                         .into(imageViewSent);
                 this.imageViewSent.setVisibility(View.VISIBLE);
             } else {
@@ -14,15 +14,12 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.bumptech.glide.RequestManager;
 import com.example.myfirebaseapp.R;
-import com.example.myfirebaseapp.api.UserHelper;
 import com.example.myfirebaseapp.models.api.Place;
-import com.google.android.gms.tasks.OnCompleteListener;
-import com.google.android.gms.tasks.Task;
-import com.google.firebase.firestore.QuerySnapshot;
+import com.example.myfirebaseapp.repository.WorkmateChoicesRepository;
 
 import java.util.Calendar;
 import java.util.List;
-import java.util.Objects;
+import java.util.Set;
 
 
 import static com.example.myfirebaseapp.BuildConfig.GOOGLE_MAP_API_KEY;
@@ -31,6 +28,8 @@ import static com.example.myfirebaseapp.utils.TimeUtils.getCurrentTime;
 public class ListRestaurantAdapter extends RecyclerView.Adapter<ListRestaurantAdapter.ListRestaurantViewHolder> {
 
     // Declarations
+    // Payload of the item changes where only the workmates count must be rebound
+    private static final Object PAYLOAD_WORKMATES = new Object();
     private String mPosition;
     private RequestManager glide;
     private List<Place> place;
@@ -63,6 +62,28 @@ public class ListRestaurantAdapter extends RecyclerView.Adapter<ListRestaurantAd
         viewHolder.updateWithRestaurantDetails(this.place.get(position).getResult(), this.glide, this.mPosition);
     }
 
+    //Update only the workmates count when it changed
+    @Override
+    public void onBindViewHolder(@NonNull ListRestaurantViewHolder viewHolder, int position, @NonNull List<Object> payloads) {
+        if (payloads.contains(PAYLOAD_WORKMATES)) {
+            viewHolder.numberWorkmates(this.place.get(position).getResult().getPlaceId());
+        } else {
+            onBindViewHolder(viewHolder, position);
+        }
+    }
+
+    /**
+     * Notifies the rows of the restaurants whose workmates count changed.
+     */
+    public void notifyWorkmatesChanged(Set<String> placeIds) {
+        for (int i = 0; i < this.place.size(); i++) {
+            Place.Result result = this.place.get(i).getResult();
+            if (result != null && placeIds.contains(result.getPlaceId())) {
+                notifyItemChanged(i, PAYLOAD_WORKMATES);
+            }
+        }
+    }
+
     //return the total count of items in the list
     @Override
     public int getItemCount() {
@@ -200,28 +221,17 @@ public class ListRestaurantAdapter extends RecyclerView.Adapter<ListRestaurantAd
         }
 
 
+        // Counts are kept in memory by the WorkmateChoicesRepository, binding a row reads no document
         private void numberWorkmates(String restaurantId) {
-            UserHelper.getUsersCollection()
-                    .whereEqualTo("restaurantId", restaurantId)
-                    .get()
-                    .addOnCompleteListener(new OnCompleteListener<QuerySnapshot>() {
-
-                        @Override
-                        public void onComplete(@NonNull Task<QuerySnapshot> task) {
-                            if (task.isSuccessful()) {
-
-                                int numberWorkmates = Objects.requireNonNull(task.getResult()).size();
-                                String workmatesNumber = "(" + numberWorkmates + ")";
-
-                                if(numberWorkmates > 0) {
-                                    workmates.setText(workmatesNumber);
-                                } else {
-                                    workmates.setVisibility(View.INVISIBLE);
-                                }
+            int numberWorkmates = WorkmateChoicesRepository.getInstance().getCount(restaurantId);
+            String workmatesNumber = "(" + numberWorkmates + ")";
 
-                            }
-                        }
-                    });
+            if (numberWorkmates > 0) {
+                workmates.setText(workmatesNumber);
+                workmates.setVisibility(View.VISIBLE);
+            } else {
+                workmates.setVisibility(View.INVISIBLE);
+            }
         }
 
         public static String convertStringToHours(String hour){
@@ -13,19 +13,28 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.bumptech.glide.RequestManager;
 import com.example.myfirebaseapp.R;
 import com.example.myfirebaseapp.models.User;
-import com.firebase.ui.firestore.FirestoreRecyclerAdapter;
-import com.firebase.ui.firestore.FirestoreRecyclerOptions;
 
-public class RestaurantAdapter extends FirestoreRecyclerAdapter<User, RestaurantAdapter.RestaurantViewHolder> {
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Workmates joining a restaurant, read from the lunch choices of today
+ */
+public class RestaurantAdapter extends RecyclerView.Adapter<RestaurantAdapter.RestaurantViewHolder> {
 
     private RequestManager glide;
+    private List<User> users = new ArrayList<>();
 
     // Constructor
-    public RestaurantAdapter(FirestoreRecyclerOptions<User> options, RequestManager glide) {
-        super(options);
+    public RestaurantAdapter(RequestManager glide) {
         this.glide = glide;
     }
 
+    public void setUsers(List<User> users) {
+        this.users = users;
+        notifyDataSetChanged();
+    }
+
     // View Holder
     @NonNull
     @Override
@@ -39,8 +48,13 @@ public class RestaurantAdapter extends FirestoreRecyclerAdapter<User, Restaurant
 
     // Update View Holder
     @Override
-    protected void onBindViewHolder(@NonNull RestaurantViewHolder restaurantViewHolder, int position, @NonNull User model) {
-        restaurantViewHolder.updateUIUserDetails(model, glide);
+    public void onBindViewHolder(@NonNull RestaurantViewHolder restaurantViewHolder, int position) {
+        restaurantViewHolder.updateUIUserDetails(users.get(position), glide);
+    }
+
+    @Override
+    public int getItemCount() {
+        return users.size();
     }
 
     public static class RestaurantViewHolder extends RecyclerView.ViewHolder {
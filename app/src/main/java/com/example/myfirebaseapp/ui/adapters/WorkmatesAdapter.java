@@ -3,7 +3,6 @@ package com.example.myfirebaseapp.ui.adapters;
 import android.content.Context;
 import android.content.Intent;
 import android.os.Bundle;
-import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -16,29 +15,92 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.bumptech.glide.RequestManager;
 import com.bumptech.glide.request.RequestOptions;
 import com.example.myfirebaseapp.R;
+import com.example.myfirebaseapp.models.LunchChoice;
 import com.example.myfirebaseapp.models.User;
-import com.example.myfirebaseapp.models.api.Place;
-import com.example.myfirebaseapp.service.PlacesRepository;
 import com.example.myfirebaseapp.ui.activities.RestaurantActivity;
 import com.example.myfirebaseapp.utils.ViewUtils;
-import com.firebase.ui.firestore.FirestoreRecyclerAdapter;
-import com.firebase.ui.firestore.FirestoreRecyclerOptions;
 
-import io.reactivex.disposables.Disposable;
-import io.reactivex.observers.DisposableObserver;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
 import static com.example.myfirebaseapp.utils.Constant.RESTAURANT_ID;
 
-public class WorkmatesAdapter extends FirestoreRecyclerAdapter<User, WorkmatesAdapter.WorkmatesViewHolder> {
+/**
+ * Workmates list. The workmates who decided come first, read from the lunch choices of today
+ * which already hold the workmate and the restaurant, then the pages of the other workmates.
+ */
+public class WorkmatesAdapter extends RecyclerView.Adapter<WorkmatesAdapter.WorkmatesViewHolder> {
 
-    private static final String TAG = WorkmatesAdapter.class.getSimpleName();
     private RequestManager glide;
+    private List<User> users = new ArrayList<>();
+    private Map<String, LunchChoice> choices = Collections.emptyMap();
+    private Map<String, String> restaurantNames = Collections.emptyMap();
+    private List<User> workmates = new ArrayList<>();
+    private int[] pagedIndexes = new int[0];
 
-    public WorkmatesAdapter(FirestoreRecyclerOptions<User> options, RequestManager glide) {
-        super(options);
+    public WorkmatesAdapter(RequestManager glide) {
         this.glide = glide;
     }
 
+    /**
+     * @param users the workmates loaded so far, in the order of their pages.
+     */
+    public void setUsers(List<User> users) {
+        this.users = users;
+        updateWorkmates();
+    }
+
+    public void setChoices(Map<String, LunchChoice> choices) {
+        this.choices = choices;
+        updateWorkmates();
+    }
+
+    /**
+     * @param restaurantNames the names of the restaurants missing from their choice, by placeId,
+     *                        resolved all at once for the rows instead of each row at bind time.
+     */
+    public void setRestaurantNames(Map<String, String> restaurantNames) {
+        this.restaurantNames = restaurantNames;
+        notifyDataSetChanged();
+    }
+
+    /**
+     * @return the index in the loaded workmates of the row at this position, or -1 for a
+     * workmate who decided.
+     */
+    public int getPagedIndex(int position) {
+        return position >= 0 && position < pagedIndexes.length ? pagedIndexes[position] : -1;
+    }
+
+    private void updateWorkmates() {
+        List<User> decided = new ArrayList<>();
+        for (LunchChoice choice : choices.values()) {
+            decided.add(choice.toUser());
+        }
+        Collections.sort(decided, (first, second) -> String.valueOf(first.getUsername()).compareToIgnoreCase(String.valueOf(second.getUsername())));
+
+        List<User> rows = new ArrayList<>(decided);
+        List<Integer> indexes = new ArrayList<>();
+        for (int i = 0; i < decided.size(); i++) {
+            indexes.add(-1);
+        }
+        for (int i = 0; i < users.size(); i++) {
+            if (!choices.containsKey(users.get(i).getUid())) {
+                rows.add(users.get(i));
+                indexes.add(i);
+            }
+        }
+
+        workmates = rows;
+        pagedIndexes = new int[indexes.size()];
+        for (int i = 0; i < pagedIndexes.length; i++) {
+            pagedIndexes[i] = indexes.get(i);
+        }
+        notifyDataSetChanged();
+    }
+
 
     @NonNull
     @Override
@@ -51,8 +113,19 @@ public class WorkmatesAdapter extends FirestoreRecyclerAdapter<User, WorkmatesAd
 
 
     @Override
-    protected void onBindViewHolder(@NonNull WorkmatesViewHolder workmatesViewHolder, int position, @NonNull User model) {
-        workmatesViewHolder.updateWithDetails(model, this.glide);
+    public void onBindViewHolder(@NonNull WorkmatesViewHolder workmatesViewHolder, int position) {
+        User user = workmates.get(position);
+        LunchChoice choice = choices.get(user.getUid());
+        String restaurantName = null;
+        if (choice != null) {
+            restaurantName = choice.getRestaurantName() != null ? choice.getRestaurantName() : restaurantNames.get(choice.getPlaceId());
+        }
+        workmatesViewHolder.updateWithDetails(user, choice, restaurantName, this.glide);
+    }
+
+    @Override
+    public int getItemCount() {
+        return workmates.size();
     }
 
     public static class WorkmatesViewHolder  extends RecyclerView.ViewHolder {
@@ -61,11 +134,7 @@ public class WorkmatesAdapter extends FirestoreRecyclerAdapter<User, WorkmatesAd
         private AppCompatImageView workmatesPhoto;
         private AppCompatTextView workmatesName;
 
-        private String restaurantId;
-        private String restaurantName;
-        private Place detail;
-        private String username;
-        private Disposable disposable;
+        private LunchChoice choice;
 
 
         public WorkmatesViewHolder(@NonNull View itemView) {
@@ -79,10 +148,11 @@ public class WorkmatesAdapter extends FirestoreRecyclerAdapter<User, WorkmatesAd
             itemView.setOnClickListener(new View.OnClickListener() {
                 @Override
                 public void onClick(View v) {
-                    if (detail.getResult() != null) {
+                    if (choice != null) {
+                        // Opened from the summary of the choice, RestaurantActivity loads the rest
                         Intent intent = new Intent(v.getContext(), RestaurantActivity.class);
                         Bundle bundle = new Bundle();
-                        bundle.putSerializable(RESTAURANT_ID, detail.getResult());
+                        bundle.putSerializable(RESTAURANT_ID, choice.toRestaurant());
                         intent.putExtras(bundle);
                         v.getContext().startActivity(intent);
                     } else {
@@ -93,11 +163,20 @@ public class WorkmatesAdapter extends FirestoreRecyclerAdapter<User, WorkmatesAd
         }
 
 
-        public void updateWithDetails(User users, RequestManager glide) {
-            username = users.getUsername();
-            restaurantId = users.getRestaurantId();
+        public void updateWithDetails(User users, LunchChoice choice, String restaurantName, RequestManager glide) {
+            this.choice = choice;
 
-            getRestaurantDetail();
+            if (choice != null) {
+                String description = users.getUsername() + " " + itemView.getContext().getString(R.string.is_eating);
+                // The name of an older choice shows up once resolved
+                if (restaurantName != null) {
+                    description += " (" + restaurantName + ")";
+                }
+                workmatesName.setText(description);
+            } else {
+                String description = users.getUsername() + " " + itemView.getContext().getString(R.string.no_decided);
+                workmatesName.setText(description);
+            }
 
             if (users.getUrlPicture() != null && !users.getUrlPicture().isEmpty()) {
                 glide.load(users.getUrlPicture()).apply(RequestOptions.circleCropTransform()).into(workmatesPhoto);
@@ -105,36 +184,6 @@ public class WorkmatesAdapter extends FirestoreRecyclerAdapter<User, WorkmatesAd
                 workmatesPhoto.setImageResource(R.drawable.ic_list_person_outline);
             }
         }
-
-
-        private void getRestaurantDetail() {
-            this.disposable = PlacesRepository.getRestaurantDetailStream(restaurantId)
-                    .subscribeWith(new DisposableObserver<Place>() {
-
-                        @Override
-                        public void onNext(Place place) {
-                            detail = place;
-                        }
-
-                        @Override
-                        public void onComplete() {
-                            if (restaurantId != null) {
-                                restaurantName = detail.getResult().getName();
-                                String description = username + " " + itemView.getContext().getString(R.string.is_eating) + " (" + restaurantName + ")";
-                                workmatesName.setText(description);
-
-                            } else {
-                                String description = username + " " + itemView.getContext().getString(R.string.no_decided);
-                                workmatesName.setText(description);
-                            }
-                        }
-
-                        @Override
-                        public void onError(Throwable e) {
-                            Log.d(TAG, Log.getStackTraceString(e));
-                        }
-                    });
-        }
     }
 
 
@@ -11,6 +11,7 @@ import android.net.Uri;
 import android.os.Bundle;
 import android.provider.MediaStore;
 import android.text.TextUtils;
+import android.text.format.Formatter;
 import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -31,24 +32,21 @@ import com.bumptech.glide.Glide;
 import com.bumptech.glide.request.RequestOptions;
 import com.example.myfirebaseapp.R;
 import com.example.myfirebaseapp.api.ChatHelper;
-import com.example.myfirebaseapp.api.UserHelper;
+import com.example.myfirebaseapp.models.ChatRoom;
 import com.example.myfirebaseapp.models.Message;
 import com.example.myfirebaseapp.models.User;
+import com.example.myfirebaseapp.repository.ChatUnreadCounter;
+import com.example.myfirebaseapp.repository.ChatUploadQueue;
+import com.example.myfirebaseapp.repository.ChatWindow;
+import com.example.myfirebaseapp.repository.CurrentUserRepository;
 import com.example.myfirebaseapp.ui.adapters.ChatAdapter;
-import com.firebase.ui.firestore.FirestoreRecyclerOptions;
-import com.google.android.gms.tasks.Continuation;
-import com.google.android.gms.tasks.OnCompleteListener;
-import com.google.android.gms.tasks.OnSuccessListener;
-import com.google.android.gms.tasks.Task;
-import com.google.firebase.firestore.DocumentSnapshot;
-import com.google.firebase.firestore.Query;
-import com.google.firebase.storage.FirebaseStorage;
-import com.google.firebase.storage.StorageReference;
-import com.google.firebase.storage.UploadTask;
+import com.google.android.material.tabs.TabLayout;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
-import java.util.UUID;
 
+import io.reactivex.disposables.Disposable;
 import pub.devrel.easypermissions.EasyPermissions;
 
 import static android.app.Activity.RESULT_OK;
@@ -65,15 +63,24 @@ public class ChatFragment extends BaseFragment implements ChatAdapter.Listener {
     private static final String TAG = ChatFragment.class.getSimpleName();
     private RecyclerView recyclerView;
     private TextView textViewRecyclerViewEmpty;
+    private TextView textViewUploadStatus;
     private EditText editTextMessage;
     private ImageView imageViewPreview;
     private ImageButton chatSendButton;
     private ImageButton chatAddFileButton;
 
     private ChatAdapter chatAdapter;
+    private LinearLayoutManager layoutManager;
+    private ChatWindow chatWindow;
+    private TabLayout roomTabs;
+    private List<ChatRoom> rooms = new ArrayList<>();
+    private ChatRoom activeRoom;
+    private ChatUnreadCounter unreadCounter;
+    private Disposable userDisposable;
+    private Disposable uploadDisposable;
+    private boolean updatingTabs;
     @Nullable
     private User modelCurrentUser;
-    private String chat;
     private Uri uriImageSelected;
 
 
@@ -90,13 +97,16 @@ public class ChatFragment extends BaseFragment implements ChatAdapter.Listener {
         //findViewById
         recyclerView = view.findViewById(R.id.chat_recycler_view);
         textViewRecyclerViewEmpty = view.findViewById(R.id.chat_text_view_recycler_view_empty);
+        textViewUploadStatus = view.findViewById(R.id.chat_upload_status);
         editTextMessage = view.findViewById(R.id.chat_message_edit_text);
         imageViewPreview = view.findViewById(R.id.chat_image_chosen_preview);
         chatSendButton = view.findViewById(R.id.chat_send_button);
         chatAddFileButton = view.findViewById(R.id.chat_add_file_button);
+        roomTabs = view.findViewById(R.id.chat_room_tabs);
 
+        this.activeRoom = ChatRoom.global(getString(R.string.chat_room_global));
         this.configureRecyclerView();
-        this.getCurrentUserFromFirestore();
+        this.configureRoomTabs();
 
         //Action on click button
         chatSendButton.setOnClickListener(new View.OnClickListener() {
@@ -107,7 +117,7 @@ public class ChatFragment extends BaseFragment implements ChatAdapter.Listener {
                     if (imageViewPreview.getDrawable() == null) {
                         //Send text message
                         Message message = new Message(editTextMessage.getText().toString(), modelCurrentUser);
-                        ChatHelper.createMessageForChat(message).addOnFailureListener(onFailureListener());
+                        ChatHelper.createMessageForChat(activeRoom, message).addOnFailureListener(onFailureListener());
                         editTextMessage.setText("");
                     } else {
                         //Send image and text
@@ -152,47 +162,36 @@ public class ChatFragment extends BaseFragment implements ChatAdapter.Listener {
     }
 
 
-    //Get current user from Firestore
-    private void getCurrentUserFromFirestore() {
-        UserHelper.getUser(Objects.requireNonNull(getCurrentUser()).getUid()).addOnSuccessListener(new OnSuccessListener<DocumentSnapshot>() {
-            @Override
-            public void onSuccess(DocumentSnapshot documentSnapshot) {
-                modelCurrentUser = documentSnapshot.toObject(User.class);
-            }
-        });
+    //Queue the picture, the message is sent once it is uploaded even if the chat is left
+    private void uploadPhotoInFirebaseAndSendMessage(final String message) {
+        // The message goes to the room it was written in
+        ChatUploadQueue.getInstance().enqueue(requireContext().getContentResolver(), this.uriImageSelected,
+                activeRoom, message, modelCurrentUser);
     }
 
 
-    //Upload a picture in Firebase and send a message
-    private void uploadPhotoInFirebaseAndSendMessage(final String message) {
-        String uuid = UUID.randomUUID().toString(); // GENERATE UNIQUE STRING
-        //  Upload
-        final StorageReference mImageRef = FirebaseStorage.getInstance().getReference(uuid);
-        UploadTask uploadTask = mImageRef.putFile(this.uriImageSelected);
-
-        Task<Uri> urlTask = uploadTask.continueWithTask(new Continuation<UploadTask.TaskSnapshot, Task<Uri>>() {
-            @Override
-            public Task<Uri> then(@NonNull Task<UploadTask.TaskSnapshot> task) throws Exception {
-                if (!task.isSuccessful()) {
-                    Log.e(TAG, "Error TASK_URI : " + task.getException());
-                    throw Objects.requireNonNull(task.getException());
-                }
+    //Show the images being sent, and tell the user about the dropped ones
+    private void updateUploadStatus(ChatUploadQueue.Status status) {
+        if (status.getDropped() > 0) {
+            Toast.makeText(getContext(), getString(R.string.chat_upload_dropped, status.getDropped()), Toast.LENGTH_LONG).show();
+            ChatUploadQueue.getInstance().acknowledgeDropped();
+        }
 
-                // Continue with the task to get the download URL
-                return mImageRef.getDownloadUrl();
-            }
-        }).addOnCompleteListener(new OnCompleteListener<Uri>() {
-            @Override
-            public void onComplete(@NonNull Task<Uri> task) {
-                if (task.isSuccessful()) {
-                    Uri downloadUri = task.getResult();
-                    Message message1 = new Message(Objects.requireNonNull(downloadUri).toString(), message, modelCurrentUser);
-                    ChatHelper.createMessageWithImageForChat(message1).addOnFailureListener(ChatFragment.this.onFailureListener());
-                } else {
-                    Log.e(TAG, "Error ON_COMPLETE : " + task.getException());
-                }
-            }
-        });
+        List<String> lines = new ArrayList<>();
+        int queued = status.getQueued();
+        if (status.getUploading() > 0 && status.getTotalBytes() > 0) {
+            lines.add(getString(R.string.chat_upload_progress, status.getUploading(),
+                    Formatter.formatShortFileSize(getContext(), status.getBytesTransferred()),
+                    Formatter.formatShortFileSize(getContext(), status.getTotalBytes())));
+        } else {
+            // Not started yet, or posting its message
+            queued += status.getUploading();
+        }
+        if (queued > 0) {
+            lines.add(getString(R.string.chat_upload_queued, queued));
+        }
+        textViewUploadStatus.setText(TextUtils.join("\n", lines));
+        textViewUploadStatus.setVisibility(status.isIdle() ? View.GONE : View.VISIBLE);
     }
 
 
@@ -222,23 +221,142 @@ public class ChatFragment extends BaseFragment implements ChatAdapter.Listener {
 
     private void configureRecyclerView() {
 
-        this.chatAdapter = new ChatAdapter(generateOptionsForAdapter(ChatHelper.getAllMessageForChat(chat)), Glide.with(this), this, Objects.requireNonNull(getCurrentUser()).getUid());
-        chatAdapter.registerAdapterDataObserver(new RecyclerView.AdapterDataObserver() {
+        this.chatAdapter = new ChatAdapter(Glide.with(this), this, Objects.requireNonNull(getCurrentUser()).getUid());
+        this.layoutManager = new LinearLayoutManager(getActivity());
+        layoutManager.setStackFromEnd(true);
+        recyclerView.setLayoutManager(layoutManager);
+        recyclerView.setAdapter(this.chatAdapter);
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
             @Override
-            public void onItemRangeInserted(int positionStart, int itemCount) {
-                recyclerView.smoothScrollToPosition(chatAdapter.getItemCount()); // Scroll to bottom on new messages
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                // Older messages are loaded while scrolling up
+                if (chatWindow != null && ChatWindow.shouldLoadOlder(layoutManager.findFirstVisibleItemPosition(), ChatWindow.PREFETCH_DISTANCE)) {
+                    chatWindow.loadOlderPage();
+                }
             }
         });
-        recyclerView.setLayoutManager(new LinearLayoutManager(getActivity()));
-        recyclerView.setAdapter(this.chatAdapter);
     }
 
+    private void updateMessages(List<Message> messages, int olderCount) {
+        int first = layoutManager.findFirstVisibleItemPosition();
+        View firstView = layoutManager.findViewByPosition(first);
+        boolean atBottom = layoutManager.findLastVisibleItemPosition() >= chatAdapter.getItemCount() - 1;
+
+        chatAdapter.setMessages(messages);
+        if (olderCount > 0 && first != RecyclerView.NO_POSITION) {
+            // Keep the rows being read where they are, above them the older page
+            layoutManager.scrollToPositionWithOffset(first + olderCount, firstView != null ? firstView.getTop() : 0);
+        } else if (atBottom) {
+            recyclerView.scrollToPosition(chatAdapter.getItemCount() - 1); // Scroll to bottom on new messages
+        }
+    }
+
+
+    // --- Rooms: everyone, and the lunch group of today ---
+    private void configureRoomTabs() {
+        roomTabs.addOnTabSelectedListener(new TabLayout.OnTabSelectedListener() {
+            @Override
+            public void onTabSelected(TabLayout.Tab tab) {
+                ChatRoom room = (ChatRoom) tab.getTag();
+                if (!updatingTabs && room != null && !room.getId().equals(activeRoom.getId())) {
+                    openRoom(room);
+                }
+            }
+
+            @Override
+            public void onTabUnselected(TabLayout.Tab tab) {
+            }
 
-    private FirestoreRecyclerOptions<Message> generateOptionsForAdapter(Query query) {
-        return new FirestoreRecyclerOptions.Builder<Message>()
-                .setQuery(query, Message.class)
-                .setLifecycleOwner(this)
-                .build();
+            @Override
+            public void onTabReselected(TabLayout.Tab tab) {
+            }
+        });
+    }
+
+    private void updateRooms(User user) {
+        // The sender of the next messages, kept up to date with a rename
+        modelCurrentUser = user;
+        List<ChatRoom> rooms = new ArrayList<>();
+        rooms.add(ChatRoom.global(getString(R.string.chat_room_global)));
+        if (user.getRestaurantId() != null && user.getLunchDay() != null) {
+            rooms.add(ChatRoom.lunch(user.getLunchDay(), user.getRestaurantId(), String.valueOf(user.getSelectedRestaurantName())));
+        }
+        this.rooms = rooms;
+        unreadCounter.setRooms(rooms);
+
+        // The lunch room of another day, or of another restaurant, is closed
+        ChatRoom active = rooms.get(0);
+        for (ChatRoom room : rooms) {
+            if (room.getId().equals(activeRoom.getId())) {
+                active = room;
+            }
+        }
+        if (!active.getId().equals(activeRoom.getId())) {
+            openRoom(active);
+        }
+        updateRoomTabs();
+    }
+
+    private void updateRoomTabs() {
+        if (roomTabs.getTabCount() != rooms.size()) {
+            updatingTabs = true;
+            roomTabs.removeAllTabs();
+            for (ChatRoom room : rooms) {
+                roomTabs.addTab(roomTabs.newTab().setTag(room), room.getId().equals(activeRoom.getId()));
+            }
+            updatingTabs = false;
+        }
+        for (int i = 0; i < rooms.size(); i++) {
+            ChatRoom room = rooms.get(i);
+            TabLayout.Tab tab = roomTabs.getTabAt(i);
+            if (tab == null) {
+                continue;
+            }
+            tab.setTag(room);
+            long unread = room.getId().equals(activeRoom.getId()) ? 0 : unreadCounter.getUnreadCount(room.getId());
+            tab.setText(unread > 0 ? getString(R.string.chat_room_unread, room.getName(), unread) : room.getName());
+        }
+    }
+
+    // The messages of the active room are read as they come
+    private void onUnreadChanged() {
+        unreadCounter.markRead(activeRoom.getId());
+        updateRoomTabs();
+    }
+
+    // Only the messages of the active room are listened to
+    private void openRoom(ChatRoom room) {
+        Log.d(TAG, "openRoom: " + room.getId());
+
+        activeRoom = room;
+        if (chatWindow != null) {
+            chatWindow.release();
+        }
+        chatAdapter.setMessages(new ArrayList<>());
+        chatWindow = new ChatWindow(ChatHelper.getMessageCollection(room.getId()), this::updateMessages);
+        chatWindow.start();
+    }
+
+
+    // --- Fragment' Life Cycle Method ---
+    @Override
+    public void onStart() {
+        super.onStart();
+        unreadCounter = new ChatUnreadCounter(Objects.requireNonNull(getCurrentUser()).getUid(), this::onUnreadChanged);
+        openRoom(activeRoom);
+        userDisposable = CurrentUserRepository.getInstance().getUserStream().subscribe(this::updateRooms);
+        uploadDisposable = ChatUploadQueue.getInstance().getStatus().subscribe(this::updateUploadStatus);
+    }
+
+    @Override
+    public void onStop() {
+        super.onStop();
+        userDisposable.dispose();
+        uploadDisposable.dispose();
+        chatWindow.release();
+        chatWindow = null;
+        unreadCounter.release();
+        unreadCounter = null;
     }
 
 
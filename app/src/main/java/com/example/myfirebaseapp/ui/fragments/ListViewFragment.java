@@ -21,7 +21,9 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.bumptech.glide.Glide;
 import com.example.myfirebaseapp.R;
 import com.example.myfirebaseapp.models.api.Place;
+import com.example.myfirebaseapp.repository.WorkmateChoicesRepository;
 import com.example.myfirebaseapp.service.PlacesRepository;
+import com.example.myfirebaseapp.service.PlacesSearchPipeline;
 import com.example.myfirebaseapp.ui.activities.RestaurantActivity;
 import com.example.myfirebaseapp.ui.adapters.ListRestaurantAdapter;
 import com.example.myfirebaseapp.utils.ItemClickSupport;
@@ -29,11 +31,14 @@ import com.example.myfirebaseapp.utils.ItemClickSupport;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
+import io.reactivex.Observable;
 import io.reactivex.disposables.Disposable;
-import io.reactivex.observers.DisposableSingleObserver;
+import io.reactivex.observers.DisposableObserver;
 
 import static com.example.myfirebaseapp.utils.Constant.RESTAURANT_ID;
+import static com.example.myfirebaseapp.utils.Constant.SESSION_TOKEN;
 
 /**
  * Fragment who display nearby restaurant as a list
@@ -45,6 +50,13 @@ public class ListViewFragment extends BaseFragment implements Serializable {
     private RecyclerView recyclerView;
     private String position;
     private ListRestaurantAdapter adapter;
+    private PlacesSearchPipeline searchPipeline;
+    private final WorkmateChoicesRepository.OnCountsChangedListener workmatesListener = new WorkmateChoicesRepository.OnCountsChangedListener() {
+        @Override
+        public void onCountsChanged(Set<String> placeIds) {
+            adapter.notifyWorkmatesChanged(placeIds);
+        }
+    };
     public Disposable disposable;
     public List<Place> placeDetails;
 
@@ -61,7 +73,7 @@ public class ListViewFragment extends BaseFragment implements Serializable {
 
         this.configureRecyclerView();
         this.configureOnClickRecyclerView();
-
+        this.configureSearchPipeline();
 
         setHasOptionsMenu(true);
 
@@ -92,10 +104,7 @@ public class ListViewFragment extends BaseFragment implements Serializable {
 
             @Override
             public boolean onQueryTextChange(String newText) {
-                if (newText.isEmpty()) {
-                    getRestaurantDetailNearbySearch();
-                }
-                getRestaurantDetailAutocomplete(newText);
+                searchPipeline.setQuery(newText);
                 return true;
             }
         });
@@ -110,6 +119,8 @@ public class ListViewFragment extends BaseFragment implements Serializable {
         this.recyclerView.setAdapter(adapter);
         //Set layout manager to position the items
         this.recyclerView.setLayoutManager(new LinearLayoutManager(getActivity()));
+        //Workmates counts are pushed by a single Firestore listener
+        WorkmateChoicesRepository.getInstance().addListener(workmatesListener);
     }
 
 
@@ -120,6 +131,8 @@ public class ListViewFragment extends BaseFragment implements Serializable {
                     Intent intent = new Intent(getActivity(), RestaurantActivity.class);
                     Bundle bundle = new Bundle();
                     bundle.putSerializable(RESTAURANT_ID, result);
+                    // Selecting a restaurant of the search closes its autocomplete session
+                    bundle.putString(SESSION_TOKEN, searchPipeline.endSession());
                     intent.putExtras(bundle);
                     startActivity(intent);
                 }));
@@ -131,7 +144,7 @@ public class ListViewFragment extends BaseFragment implements Serializable {
         double lng = location.getLongitude();
         position = lat + "," + lng;
         adapter.setPosition(position);
-        getRestaurantDetailNearbySearch();
+        searchPipeline.refresh();
     }
 
 
@@ -144,37 +157,40 @@ public class ListViewFragment extends BaseFragment implements Serializable {
         adapter.notifyDataSetChanged();
     }
 
-    private void getRestaurantDetailNearbySearch() {
-        this.disposable = PlacesRepository.getRestaurantDetailNearbySearchStream(position, 2000, "restaurant")
-                .subscribeWith(new DisposableSingleObserver<List<Place>>() {
+    // --- Search: nearby restaurants when the query is empty, autocomplete otherwise ---
+    private void configureSearchPipeline() {
+        this.searchPipeline = new PlacesSearchPipeline(new PlacesSearchPipeline.Source() {
+            @Override
+            public Observable<List<Place>> nearby() {
+                return PlacesRepository.getRestaurantDetailNearbySearchProgressiveStream(position, 2000, "restaurant", PlacesRepository.DEFAULT_DETAILS_CONCURRENCY)
+                        .doOnError(e -> Log.e(TAG, Log.getStackTraceString(e)));
+            }
 
-                    @Override
-                    public void onSuccess(List<Place> placeList) {
-                        updateUI(placeList);
-                    }
+            @Override
+            public Observable<List<Place>> autocomplete(String input, String sessionToken) {
+                return PlacesRepository.getRestaurantDetailAutocompleteStream(input, 2000, position, "establishment", sessionToken)
+                        .toObservable()
+                        .doOnError(e -> Log.e(TAG, Log.getStackTraceString(e)));
+            }
+        });
+
+        this.disposeWhenDestroy();
+        this.disposable = searchPipeline.results()
+                .subscribeWith(new DisposableObserver<List<Place>>() {
 
                     @Override
-                    public void onError(Throwable e) {
-                        Log.e(TAG, Log.getStackTraceString(e));
+                    public void onNext(List<Place> placeList) {
+                        updateUI(placeList);
                     }
-                });
-    }
-
-
-    private void getRestaurantDetailAutocomplete(String input) {
-
-        this.disposable = PlacesRepository.getRestaurantDetailAutocompleteStream(input, 2000, position, "establishment")
-                .subscribeWith(new DisposableSingleObserver<List<Place>>() {
 
                     @Override
-                    public void onSuccess(List<Place> placeList) {
-                        updateUI(placeList);
+                    public void onComplete() {
+                        Log.d(TAG, "search pipeline completed");
                     }
 
                     @Override
                     public void onError(Throwable e) {
                         Log.e(TAG, Log.getStackTraceString(e));
-
                     }
                 });
     }
@@ -189,6 +205,7 @@ public class ListViewFragment extends BaseFragment implements Serializable {
     public void onDestroy() {
         super.onDestroy();
         this.disposeWhenDestroy();
+        WorkmateChoicesRepository.getInstance().removeListener(workmatesListener);
     }
 
     private void disposeWhenDestroy() {
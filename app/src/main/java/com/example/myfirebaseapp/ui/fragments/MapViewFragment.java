@@ -23,6 +23,7 @@ import androidx.core.app.ActivityCompat;
 import com.example.myfirebaseapp.R;
 import com.example.myfirebaseapp.models.api.Place;
 import com.example.myfirebaseapp.service.PlacesRepository;
+import com.example.myfirebaseapp.service.PlacesSearchPipeline;
 import com.example.myfirebaseapp.ui.activities.RestaurantActivity;
 import com.google.android.gms.maps.CameraUpdateFactory;
 import com.google.android.gms.maps.GoogleMap;
@@ -33,12 +34,19 @@ import com.google.android.gms.maps.model.Marker;
 import com.google.android.gms.maps.model.MarkerOptions;
 
 import java.io.Serializable;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+import io.reactivex.Observable;
 import io.reactivex.disposables.Disposable;
-import io.reactivex.observers.DisposableSingleObserver;
+import io.reactivex.observers.DisposableObserver;
 
 import static com.example.myfirebaseapp.utils.Constant.RESTAURANT_ID;
+import static com.example.myfirebaseapp.utils.Constant.SESSION_TOKEN;
 
 /**
  * Fragment who display nearby restaurant as a map
@@ -49,9 +57,11 @@ public class MapViewFragment extends BaseFragment implements LocationListener, S
     private static final String TAG = MapViewFragment.class.getSimpleName();
     private GoogleMap map;
     private SupportMapFragment mapFragment;
+    private PlacesSearchPipeline searchPipeline;
     private Disposable disposable;
     private String position;
-    private Marker positionMarker;
+    // Markers on the map, by placeId
+    private final Map<String, Marker> markers = new HashMap<>();
 
 
     // --- Constructor ---
@@ -62,6 +72,7 @@ public class MapViewFragment extends BaseFragment implements LocationListener, S
     @Override
     public View onCreateView(LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
         View view = inflater.inflate(R.layout.fragment_map, container, false);
+        this.configureSearchPipeline();
         setHasOptionsMenu(true);
         return view;
     }
@@ -92,10 +103,7 @@ public class MapViewFragment extends BaseFragment implements LocationListener, S
 
             @Override
             public boolean onQueryTextChange(String newText) {
-                if (newText.isEmpty()) {
-                    getRestaurantDetailNearbySearch();
-                }
-                getRestaurantDetailAutocomplete(newText);
+                searchPipeline.setQuery(newText);
                 return true;
             }
         });
@@ -104,8 +112,22 @@ public class MapViewFragment extends BaseFragment implements LocationListener, S
     // --- Method to load the map check permission ---
     private void loadMap() {
         mapFragment.getMapAsync(googleMap -> {
+            if (map != googleMap) {
+                markers.clear();
+            }
             map = googleMap;
             googleMap.moveCamera(CameraUpdateFactory.zoomBy(15));
+            googleMap.setOnInfoWindowClickListener(marker -> {
+                //for retrieve result
+                Place.Result positionMarkerList = (Place.Result) marker.getTag();
+                Intent intent = new Intent(getContext(), RestaurantActivity.class);
+                Bundle bundle = new Bundle();
+                bundle.putSerializable(RESTAURANT_ID, positionMarkerList);
+                // Selecting a restaurant of the search closes its autocomplete session
+                bundle.putString(SESSION_TOKEN, searchPipeline.endSession());
+                intent.putExtras(bundle);
+                startActivity(intent);
+            });
             if (ActivityCompat.checkSelfPermission(getContext(), Manifest.permission.ACCESS_FINE_LOCATION) != PackageManager.PERMISSION_GRANTED &&
                     ActivityCompat.checkSelfPermission(getContext(), Manifest.permission.ACCESS_COARSE_LOCATION) != PackageManager.PERMISSION_GRANTED) {
                 ActivityCompat.requestPermissions((Activity) getContext(), new String[]{
@@ -127,64 +149,77 @@ public class MapViewFragment extends BaseFragment implements LocationListener, S
             LatLng googleLocation = new LatLng(lat, lng);
             map.moveCamera(CameraUpdateFactory.newLatLng(googleLocation));
             position = lat + "," + lng;
-            getRestaurantDetailNearbySearch();
+            searchPipeline.refresh();
         }
     }
 
-    // --- Method to place marker ---
+    // --- Method to place marker: only the restaurants new to the map get a marker, the ones no longer listed lose theirs ---
     private void positionMarker(List<Place> placeList) {
-        map.clear();
+        Set<String> placeIds = new HashSet<>();
         for (Place detail : placeList) {
-            LatLng latLng = new LatLng(detail.getResult().getGeometry().getLocation().getLat(),
-                    detail.getResult().getGeometry().getLocation().getLng()
-            );
-
-            positionMarker = map.addMarker(new MarkerOptions()
-                    .position(latLng)
-                    .icon(BitmapDescriptorFactory.fromResource(R.drawable.ic_map_pin))
-                    .title(detail.getResult().getName())
-                    .snippet(detail.getResult().getVicinity()));
-            positionMarker.showInfoWindow();
-            Place.Result placeDetailsResult = detail.getResult();
-            positionMarker.setTag(placeDetailsResult);
+            Place.Result result = detail.getResult();
+            if (result == null || result.getPlaceId() == null || result.getGeometry() == null
+                    || result.getGeometry().getLocation() == null) {
+                continue;
+            }
+            placeIds.add(result.getPlaceId());
+
+            Marker marker = markers.get(result.getPlaceId());
+            if (marker == null) {
+                LatLng latLng = new LatLng(result.getGeometry().getLocation().getLat(),
+                        result.getGeometry().getLocation().getLng()
+                );
+                marker = map.addMarker(new MarkerOptions()
+                        .position(latLng)
+                        .icon(BitmapDescriptorFactory.fromResource(R.drawable.ic_map_pin))
+                        .title(result.getName())
+                        .snippet(result.getVicinity()));
+                markers.put(result.getPlaceId(), marker);
+            }
+            marker.setTag(result);
+        }
 
+        Iterator<Map.Entry<String, Marker>> iterator = markers.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Marker> entry = iterator.next();
+            if (!placeIds.contains(entry.getKey())) {
+                entry.getValue().remove();
+                iterator.remove();
+            }
         }
     }
 
 
-    // --- Method to retrieve restaurant' detail ---
-    private void getRestaurantDetailNearbySearch() {
-        this.disposable = PlacesRepository.getRestaurantDetailNearbySearchStream(position, 3000, "restaurant")
-                .subscribeWith(new DisposableSingleObserver<List<Place>>() {
-                    @Override
-                    public void onSuccess(List<Place> place) {
-                        positionMarker(place);
-                    }
-
-                    @Override
-                    public void onError(Throwable e) {
-                        Log.e(TAG, Log.getStackTraceString(e));
-                    }
-                });
+    // --- Method to retrieve restaurant' detail: nearby when the query is empty, autocomplete otherwise ---
+    private void configureSearchPipeline() {
+        this.searchPipeline = new PlacesSearchPipeline(new PlacesSearchPipeline.Source() {
+            @Override
+            public Observable<List<Place>> nearby() {
+                return PlacesRepository.getRestaurantDetailNearbySearchProgressiveStream(position, 3000, "restaurant", PlacesRepository.DEFAULT_DETAILS_CONCURRENCY)
+                        .doOnError(e -> Log.e(TAG, Log.getStackTraceString(e)));
+            }
 
-        map.setOnInfoWindowClickListener(marker -> {
-            //for retrieve result
-            Place.Result positionMarkerList = (Place.Result) positionMarker.getTag();
-            Intent intent = new Intent(getContext(), RestaurantActivity.class);
-            Bundle bundle = new Bundle();
-            bundle.putSerializable(RESTAURANT_ID, positionMarkerList);
-            intent.putExtras(bundle);
-            startActivity(intent);
+            @Override
+            public Observable<List<Place>> autocomplete(String input, String sessionToken) {
+                return PlacesRepository.getRestaurantDetailAutocompleteStream(input, 2000, position, "establishment", sessionToken)
+                        .toObservable()
+                        .doOnError(e -> Log.e(TAG, Log.getStackTraceString(e)));
+            }
         });
-    }
 
-    private void getRestaurantDetailAutocomplete(String input) {
-        this.disposable = PlacesRepository.getRestaurantDetailAutocompleteStream(input, 2000, position, "establishment")
-                .subscribeWith(new DisposableSingleObserver<List<Place>>() {
+        this.disposeWhenDestroy();
+        this.disposable = searchPipeline.results()
+                .subscribeWith(new DisposableObserver<List<Place>>() {
+                    @Override
+                    public void onNext(List<Place> place) {
+                        if (map != null) {
+                            positionMarker(place);
+                        }
+                    }
 
                     @Override
-                    public void onSuccess(List<Place> placeDetails) {
-                        positionMarker(placeDetails);
+                    public void onComplete() {
+                        Log.d(TAG, "search pipeline completed");
                     }
 
                     @Override
@@ -192,15 +227,6 @@ public class MapViewFragment extends BaseFragment implements LocationListener, S
                         Log.e(TAG, Log.getStackTraceString(e));
                     }
                 });
-
-        map.setOnInfoWindowClickListener(marker -> {
-            Place.Result positionMarkerList = (Place.Result) positionMarker.getTag();
-            Intent intent = new Intent(getContext(), RestaurantActivity.class);
-            Bundle bundle = new Bundle();
-            bundle.putSerializable(RESTAURANT_ID, positionMarkerList);
-            intent.putExtras(bundle);
-            startActivity(intent);
-        });
     }
 
     // --- Fragment' Life Cycle Method ---
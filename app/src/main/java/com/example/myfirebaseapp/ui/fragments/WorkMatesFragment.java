@@ -5,17 +5,23 @@ import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 
+import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.bumptech.glide.Glide;
 import com.example.myfirebaseapp.R;
-import com.example.myfirebaseapp.models.User;
+import com.example.myfirebaseapp.models.LunchChoice;
+import com.example.myfirebaseapp.repository.WorkmateChoicesRepository;
+import com.example.myfirebaseapp.repository.WorkmatesPager;
+import com.example.myfirebaseapp.service.RestaurantNameResolver;
 import com.example.myfirebaseapp.ui.adapters.WorkmatesAdapter;
-import com.firebase.ui.firestore.FirestoreRecyclerOptions;
 import com.google.firebase.firestore.CollectionReference;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.Query;
+
+import java.util.Map;
+
 import io.reactivex.disposables.Disposable;
 
 /**
@@ -29,6 +35,11 @@ public class WorkMatesFragment extends BaseFragment {
     private WorkmatesAdapter adapter;
     private FirebaseFirestore db = FirebaseFirestore.getInstance();
     private CollectionReference collectionUsers = db.collection("users");
+    private LinearLayoutManager layoutManager;
+    private WorkmatesPager pager;
+    // Who is eating where is read from the choices of today only
+    private final WorkmateChoicesRepository.OnCountsChangedListener choicesListener =
+            placeIds -> updateChoices();
 
     public WorkMatesFragment() {
         // Required empty public constructor
@@ -50,23 +61,72 @@ public class WorkMatesFragment extends BaseFragment {
     }
 
     private void setUpRecyclerView() {
-        Query query = collectionUsers.orderBy("restaurantId", Query.Direction.DESCENDING);
-
-        FirestoreRecyclerOptions<User> options = new FirestoreRecyclerOptions.Builder<User>()
-                .setQuery(query, User.class)
-                .build();
-        this.adapter = new WorkmatesAdapter(options, Glide.with(this));
+        this.adapter = new WorkmatesAdapter(Glide.with(this));
         recyclerView.setHasFixedSize(true);
         recyclerView.setAdapter(adapter);
-        recyclerView.setLayoutManager(new LinearLayoutManager(getContext()));
+        this.layoutManager = new LinearLayoutManager(getContext());
+        recyclerView.setLayoutManager(layoutManager);
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                onVisibleRowsChanged();
+            }
+        });
+
+    }
 
+    // --- Pages of workmates, loaded while scrolling ---
+    private void onVisibleRowsChanged() {
+        if (pager == null) {
+            return;
+        }
+        int first = layoutManager.findFirstVisibleItemPosition();
+        int last = layoutManager.findLastVisibleItemPosition();
+        if (last == RecyclerView.NO_POSITION) {
+            return;
+        }
+
+        // Rows of the workmates who decided are not paged
+        int firstPaged = -1;
+        int lastPaged = -1;
+        for (int position = first; position <= last; position++) {
+            int index = adapter.getPagedIndex(position);
+            if (index >= 0) {
+                if (firstPaged < 0) firstPaged = index;
+                lastPaged = index;
+            }
+        }
+        if (firstPaged < 0) {
+            // Only decided workmates are visible: the first page is the next one to show
+            firstPaged = 0;
+            lastPaged = 0;
+        }
+        pager.onVisibleRangeChanged(firstPaged, lastPaged);
+    }
+
+    // --- Choices of today, with the names of their restaurants resolved at once ---
+    private void updateChoices() {
+        Map<String, LunchChoice> choices = WorkmateChoicesRepository.getInstance().getChoices();
+        adapter.setChoices(choices);
+
+        this.disposeWhenDestroy();
+        this.disposable = RestaurantNameResolver.getInstance().resolve(choices.values())
+                .subscribe(names -> adapter.setRestaurantNames(names),
+                        throwable -> adapter.setRestaurantNames(RestaurantNameResolver.getInstance().getNames(choices.values())));
     }
 
     // --- Fragment' Life Cycle Method ---
     @Override
     public void onStart() {
         super.onStart();
-        adapter.startListening();
+        pager = new WorkmatesPager(collectionUsers.orderBy("username", Query.Direction.ASCENDING), users -> {
+            adapter.setUsers(users);
+            // A short page may not fill the screen, and no scroll would load the next one
+            recyclerView.post(this::onVisibleRowsChanged);
+        });
+        pager.loadNextPage();
+        WorkmateChoicesRepository.getInstance().addListener(choicesListener);
+        updateChoices();
     }
 
     @Override
@@ -78,7 +138,10 @@ public class WorkMatesFragment extends BaseFragment {
     @Override
     public void onStop() {
         super.onStop();
-        adapter.stopListening();
+        pager.release();
+        pager = null;
+        WorkmateChoicesRepository.getInstance().removeListener(choicesListener);
+        this.disposeWhenDestroy();
     }
 
     @Override
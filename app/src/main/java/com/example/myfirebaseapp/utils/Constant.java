@@ -14,6 +14,7 @@ public class Constant {
     public static final int REQUEST_CALL = 100;
 
     public static final String RESTAURANT_ID = "restaurantId";
+    public static final String SESSION_TOKEN = "sessionToken";
 
     public static final int RC_LOCATION_PERMISSIONS = 1234;
     public static final int RC_CALL_PHONE_PERMISSION = 2345;
@@ -22,9 +23,6 @@ public class Constant {
     public static final int DEFAULT_INTERVAL = 10000;
     public static final int FASTEST_INTERVAL = 5000;
     public static final String RESTAURANT_ID_EXTRA = "restaurantId";
-    public static final String SELECTED_RESTAURANT_ID_FIELD = "selectedRestaurantId";
-    public static final String LIKED_RESTAURANTS_ID_FIELD = "likedRestaurants";
-    public static final String NAME_ID_FIELD = "name";
     public static final String URL_PICTURE_ID_FIELD = "urlPicture";
 
     public static final String CHOOSEN = "CHOOSEN";
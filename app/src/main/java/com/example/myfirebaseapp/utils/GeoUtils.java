@@ -0,0 +1,140 @@
+package com.example.myfirebaseapp.utils;
+
+/**
+ * Geohash and distance helpers used to cache the nearby searches
+ */
+public class GeoUtils {
+
+    private static final String BASE_32 = "0123456789bcdefghjkmnpqrstuvwxyz";
+    private static final double EARTH_RADIUS_METERS = 6371000;
+    private static final double METERS_PER_DEGREE = 111320;
+    public static final int MAX_PRECISION = 9;
+
+    /**
+     * @return the geohash of a location with the given number of characters.
+     */
+    public static String encode(double lat, double lng, int precision) {
+        double minLat = -90, maxLat = 90;
+        double minLng = -180, maxLng = 180;
+        StringBuilder geohash = new StringBuilder(precision);
+        boolean evenBit = true;
+        int bit = 0;
+        int character = 0;
+
+        while (geohash.length() < precision) {
+            if (evenBit) {
+                double middle = (minLng + maxLng) / 2;
+                if (lng >= middle) {
+                    character = (character << 1) | 1;
+                    minLng = middle;
+                } else {
+                    character = character << 1;
+                    maxLng = middle;
+                }
+            } else {
+                double middle = (minLat + maxLat) / 2;
+                if (lat >= middle) {
+                    character = (character << 1) | 1;
+                    minLat = middle;
+                } else {
+                    character = character << 1;
+                    maxLat = middle;
+                }
+            }
+            evenBit = !evenBit;
+
+            if (++bit == 5) {
+                geohash.append(BASE_32.charAt(character));
+                bit = 0;
+                character = 0;
+            }
+        }
+        return geohash.toString();
+    }
+
+    /**
+     * @return the bounds of a geohash cell as {minLat, minLng, maxLat, maxLng}.
+     */
+    public static double[] decodeBounds(String geohash) {
+        double minLat = -90, maxLat = 90;
+        double minLng = -180, maxLng = 180;
+        boolean evenBit = true;
+
+        for (int i = 0; i < geohash.length(); i++) {
+            int character = BASE_32.indexOf(geohash.charAt(i));
+            if (character < 0) {
+                throw new IllegalArgumentException("Invalid geohash: " + geohash);
+            }
+            for (int bit = 4; bit >= 0; bit--) {
+                boolean set = ((character >> bit) & 1) == 1;
+                if (evenBit) {
+                    double middle = (minLng + maxLng) / 2;
+                    if (set) minLng = middle;
+                    else maxLng = middle;
+                } else {
+                    double middle = (minLat + maxLat) / 2;
+                    if (set) minLat = middle;
+                    else maxLat = middle;
+                }
+                evenBit = !evenBit;
+            }
+        }
+        return new double[]{minLat, minLng, maxLat, maxLng};
+    }
+
+    /**
+     * @return the height and the width in degrees of the geohash cells of a precision.
+     */
+    public static double[] cellSizeDegrees(int precision) {
+        int bits = precision * 5;
+        int lngBits = (bits + 1) / 2;
+        int latBits = bits / 2;
+        return new double[]{180 / Math.pow(2, latBits), 360 / Math.pow(2, lngBits)};
+    }
+
+    /**
+     * @return the coarsest precision whose cells, at this latitude, are at most maxMeters high
+     * and wide.
+     */
+    public static int precisionForCellSize(double lat, double maxMeters) {
+        for (int precision = 1; precision < MAX_PRECISION; precision++) {
+            double[] size = cellSizeDegrees(precision);
+            double height = size[0] * METERS_PER_DEGREE;
+            double width = size[1] * METERS_PER_DEGREE * Math.cos(Math.toRadians(lat));
+            if (height <= maxMeters && width <= maxMeters) {
+                return precision;
+            }
+        }
+        return MAX_PRECISION;
+    }
+
+    /**
+     * @return the great-circle distance in meters between two locations.
+     */
+    public static double distanceMeters(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return 2 * EARTH_RADIUS_METERS * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+
+    /**
+     * @param location a "latitude,longitude" string, as sent to the Places API.
+     * @return {latitude, longitude}, or null if it cannot be parsed.
+     */
+    public static double[] parseLocation(String location) {
+        if (location == null) {
+            return null;
+        }
+        String[] latLng = location.split(",");
+        if (latLng.length != 2) {
+            return null;
+        }
+        try {
+            return new double[]{Double.parseDouble(latLng[0].trim()), Double.parseDouble(latLng[1].trim())};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
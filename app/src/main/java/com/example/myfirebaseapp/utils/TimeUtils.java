@@ -6,6 +6,7 @@ import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.Locale;
 
 /**
  * Class who manage user' time
@@ -23,4 +24,29 @@ public class TimeUtils {
         return Integer.parseInt(localTime);
     }
 
+    /**
+     * @return the day of a date as "yyyy-MM-dd", in the local time zone.
+     */
+    public static String getDay(Date date) {
+        return new SimpleDateFormat("yyyy-MM-dd", Locale.US).format(date);
+    }
+
+    public static String getToday() {
+        return getDay(Calendar.getInstance().getTime());
+    }
+
+    /**
+     * @return the milliseconds left until the next local midnight.
+     */
+    public static long getMillisUntilTomorrow() {
+        Calendar now = Calendar.getInstance();
+        Calendar tomorrow = (Calendar) now.clone();
+        tomorrow.add(Calendar.DAY_OF_YEAR, 1);
+        tomorrow.set(Calendar.HOUR_OF_DAY, 0);
+        tomorrow.set(Calendar.MINUTE, 0);
+        tomorrow.set(Calendar.SECOND, 0);
+        tomorrow.set(Calendar.MILLISECOND, 0);
+        return tomorrow.getTimeInMillis() - now.getTimeInMillis();
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,36 @@
+package com.example.myfirebaseapp;
+
+import com.example.myfirebaseapp.service.PlacesRepository;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import io.reactivex.Observable;
+import io.reactivex.observers.TestObserver;
+
+@RunWith(JUnit4.class)
+public class AccumulateTestUnit {
+
+    @Test
+    public void everyItemEmitsTheGrowingList() {
+        TestObserver<List<String>> observer = Observable.just("a", "b")
+                .compose(PlacesRepository.<String>accumulate())
+                .test();
+
+        observer.assertValues(Collections.singletonList("a"), Arrays.asList("a", "b")).assertComplete();
+    }
+
+    @Test
+    public void streamWithoutItemEmitsAnEmptyList() {
+        TestObserver<List<String>> observer = Observable.<String>empty()
+                .compose(PlacesRepository.<String>accumulate())
+                .test();
+
+        observer.assertValues(Collections.<String>emptyList()).assertComplete();
+    }
+}
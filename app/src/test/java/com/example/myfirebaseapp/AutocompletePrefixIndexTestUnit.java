@@ -0,0 +1,169 @@
+package com.example.myfirebaseapp;
+
+import com.example.myfirebaseapp.models.api.Autocomplete;
+import com.example.myfirebaseapp.models.api.NearbySearch;
+import com.example.myfirebaseapp.service.AutocompletePrefixIndex;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+@RunWith(JUnit4.class)
+public class AutocompletePrefixIndexTestUnit {
+
+    private static final String LOCATION = "48.8566,2.3522";
+    private static final String TYPE = "establishment";
+
+    private AutocompletePrefixIndex index;
+
+    @Before
+    public void setUp() {
+        index = new AutocompletePrefixIndex(60000);
+    }
+
+    private static Autocomplete autocomplete(String... descriptions) {
+        List<Autocomplete.Prediction> predictions = new ArrayList<>();
+        for (String description : descriptions) {
+            Autocomplete.Prediction prediction = new Autocomplete.Prediction();
+            prediction.setPlaceId("id-" + description);
+            prediction.setDescription(description);
+            predictions.add(prediction);
+        }
+        Autocomplete autocomplete = new Autocomplete();
+        autocomplete.setPredictions(predictions);
+        autocomplete.setStatus(predictions.isEmpty() ? "ZERO_RESULTS" : "OK");
+        return autocomplete;
+    }
+
+    private static List<String> descriptions(Autocomplete autocomplete) {
+        List<String> descriptions = new ArrayList<>();
+        for (Autocomplete.Prediction prediction : autocomplete.getPredictions()) {
+            descriptions.add(prediction.getDescription());
+        }
+        return descriptions;
+    }
+
+    @Test
+    public void narrowingQueryIsAnsweredLocally() {
+        index.record(LOCATION, 2000, TYPE, "pi", autocomplete("Pizza Hut, Paris", "Pita Bar, Paris", "Le Pied de Cochon, Paris"));
+
+        Autocomplete local = index.lookup(LOCATION, 2000, TYPE, "Piz");
+
+        assertNotNull(local);
+        assertEquals(Collections.singletonList("Pizza Hut, Paris"), descriptions(local));
+    }
+
+    @Test
+    public void wordsInsideTheNameAreMatched() {
+        index.record(LOCATION, 2000, TYPE, "h", autocomplete("Pizza Hut, Paris", "Café Hugo, Paris"));
+
+        assertEquals(Collections.singletonList("Pizza Hut, Paris"), descriptions(index.lookup(LOCATION, 2000, TYPE, "hut")));
+        assertEquals(Collections.singletonList("Café Hugo, Paris"), descriptions(index.lookup(LOCATION, 2000, TYPE, "hug")));
+    }
+
+    @Test
+    public void accentsAreIgnored() {
+        index.record(LOCATION, 2000, TYPE, "c", autocomplete("Café Hugo, Paris"));
+
+        assertEquals(Collections.singletonList("Café Hugo, Paris"), descriptions(index.lookup(LOCATION, 2000, TYPE, "cafe h")));
+    }
+
+    @Test
+    public void truncatedResponseIsNotConfident() {
+        index.record(LOCATION, 2000, TYPE, "p", autocomplete("P1", "P2", "P3", "P4", "P5"));
+
+        assertNull(index.lookup(LOCATION, 2000, TYPE, "p1"));
+    }
+
+    @Test
+    public void emptyResponseAnswersNarrowingQueries() {
+        index.record(LOCATION, 2000, TYPE, "zz", autocomplete());
+
+        Autocomplete local = index.lookup(LOCATION, 2000, TYPE, "zzz");
+
+        assertEquals("ZERO_RESULTS", local.getStatus());
+        assertEquals(0, local.getPredictions().size());
+    }
+
+    @Test
+    public void otherCellRadiusOrTypeGoesToTheNetwork() {
+        index.record(LOCATION, 2000, TYPE, "pi", autocomplete("Pizza Hut, Paris"));
+
+        assertNull(index.lookup("45.7640,4.8357", 2000, TYPE, "piz"));
+        assertNull(index.lookup(LOCATION, 5000, TYPE, "piz"));
+        assertNull(index.lookup(LOCATION, 2000, "restaurant", "piz"));
+    }
+
+    @Test
+    public void expiredResponseIsNotUsed() {
+        index = new AutocompletePrefixIndex(-1);
+        index.record(LOCATION, 2000, TYPE, "pi", autocomplete("Pizza Hut, Paris"));
+
+        assertNull(index.lookup(LOCATION, 2000, TYPE, "piz"));
+    }
+
+    private static NearbySearch.Result restaurant(String placeId, String name, double lat, double lng) {
+        NearbySearch.Location location = new NearbySearch.Location();
+        location.setLat(lat);
+        location.setLng(lng);
+        NearbySearch.Geometry geometry = new NearbySearch.Geometry();
+        geometry.setLocation(location);
+        NearbySearch.Result result = new NearbySearch.Result();
+        result.setPlaceId(placeId);
+        result.setName(name);
+        result.setVicinity("Rue de Rivoli");
+        result.setGeometry(geometry);
+        return result;
+    }
+
+    @Test
+    public void loadedRestaurantsAreFoundLocally() {
+        index.recordRestaurants(Collections.singletonList(restaurant("nearby", "Pizzeria Napoli", 48.8570, 2.3525)));
+        index.record(LOCATION, 2000, TYPE, "pi", autocomplete("Pizza Hut, Paris"));
+
+        Autocomplete local = index.lookup(LOCATION, 2000, TYPE, "pizz");
+
+        assertEquals(2, local.getPredictions().size());
+    }
+
+    @Test
+    public void loadedRestaurantsOutsideTheRadiusAreNotAnswered() {
+        // In the cell of the lookup but about 500 m away
+        index.recordRestaurants(Collections.singletonList(restaurant("far", "Pizzeria Roma", 48.8610, 2.3540)));
+        index.record(LOCATION, 2000, TYPE, "pi", autocomplete("Pizza Hut, Paris"));
+        index.record(LOCATION, 500, TYPE, "pi", autocomplete("Pizza Hut, Paris"));
+
+        assertEquals(2, index.lookup(LOCATION, 2000, TYPE, "pizz").getPredictions().size());
+        assertEquals(Collections.singletonList("Pizza Hut, Paris"), descriptions(index.lookup(LOCATION, 500, TYPE, "pizz")));
+    }
+
+    @Test
+    public void loadedRestaurantsAreIndexedAtTheirOwnLocation() {
+        // Loaded by a search centered on LOCATION, but in another cell
+        index.recordRestaurants(Collections.singletonList(restaurant("other-cell", "Pizzeria Lyon", 48.8766, 2.3522)));
+        index.record(LOCATION, 2000, TYPE, "pi", autocomplete("Pizza Hut, Paris"));
+
+        assertEquals(Collections.singletonList("Pizza Hut, Paris"), descriptions(index.lookup(LOCATION, 2000, TYPE, "pizz")));
+    }
+
+    @Test
+    public void localAnswerHoldsAtMostMaxPredictions() {
+        List<NearbySearch.Result> results = new ArrayList<>();
+        for (int i = 0; i < AutocompletePrefixIndex.MAX_PREDICTIONS + 3; i++) {
+            results.add(restaurant("nearby-" + i, "Pizzeria " + i, 48.8566, 2.3522));
+        }
+        index.recordRestaurants(results);
+        index.record(LOCATION, 2000, TYPE, "pi", autocomplete());
+
+        assertEquals(AutocompletePrefixIndex.MAX_PREDICTIONS, index.lookup(LOCATION, 2000, TYPE, "pizz").getPredictions().size());
+    }
+}
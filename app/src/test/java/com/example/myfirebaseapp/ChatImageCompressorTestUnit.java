@@ -0,0 +1,50 @@
+package com.example.myfirebaseapp;
+
+import com.example.myfirebaseapp.service.ChatImageCompressor;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(JUnit4.class)
+public class ChatImageCompressorTestUnit {
+
+    @Test
+    public void largePhotoIsSampledWithoutGoingUnderTheMaxSize() {
+        // 4032 / 2 = 2016 >= 1280, 4032 / 4 = 1008 < 1280
+        assertEquals(2, ChatImageCompressor.getInSampleSize(4032, 3024, 1280));
+        assertEquals(4, ChatImageCompressor.getInSampleSize(3000, 6000, 1280));
+    }
+
+    @Test
+    public void smallPictureIsNotSampled() {
+        assertEquals(1, ChatImageCompressor.getInSampleSize(800, 600, 1280));
+        assertEquals(1, ChatImageCompressor.getInSampleSize(2000, 1500, 1280));
+    }
+
+    @Test
+    public void scaledSizeBoundsTheLongestSideAndKeepsTheRatio() {
+        int[] size = ChatImageCompressor.getScaledSize(2016, 1512, 1280);
+
+        assertEquals(1280, size[0]);
+        assertEquals(960, size[1]);
+    }
+
+    @Test
+    public void portraitThumbnailIsBoundedByItsHeight() {
+        int[] size = ChatImageCompressor.getScaledSize(960, 1280, 320);
+
+        assertEquals(240, size[0]);
+        assertEquals(320, size[1]);
+    }
+
+    @Test
+    public void smallPictureKeepsItsSize() {
+        int[] size = ChatImageCompressor.getScaledSize(300, 200, 320);
+
+        assertEquals(300, size[0]);
+        assertEquals(200, size[1]);
+    }
+}
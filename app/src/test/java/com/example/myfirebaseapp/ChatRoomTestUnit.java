@@ -0,0 +1,40 @@
+package com.example.myfirebaseapp;
+
+import com.example.myfirebaseapp.models.ChatRoom;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+@RunWith(JUnit4.class)
+public class ChatRoomTestUnit {
+
+    @Test
+    public void workmatesOfTheSameLunchShareTheirRoom() {
+        ChatRoom alice = ChatRoom.lunch("2020-06-15", "place1", "Le Zinc");
+        ChatRoom bob = ChatRoom.lunch("2020-06-15", "place1", "Le Zinc");
+
+        assertEquals(alice.getId(), bob.getId());
+    }
+
+    @Test
+    public void lunchRoomIsOnlyForItsDay() {
+        assertNotEquals(ChatRoom.getLunchRoomId("2020-06-15", "place1"), ChatRoom.getLunchRoomId("2020-06-16", "place1"));
+        assertNotEquals(ChatRoom.GLOBAL_ROOM_ID, ChatRoom.getLunchRoomId("2020-06-15", "place1"));
+    }
+
+    @Test
+    public void unreadCountIsTheMessagesAfterTheLastRead() {
+        assertEquals(3, ChatRoom.getUnreadCount(10, 7));
+        assertEquals(0, ChatRoom.getUnreadCount(10, 10));
+    }
+
+    @Test
+    public void readCountAheadOfTheRoomIsNotNegative() {
+        // The read count may reach the server before the count of the room
+        assertEquals(0, ChatRoom.getUnreadCount(9, 10));
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.myfirebaseapp;
+
+import com.example.myfirebaseapp.models.ChatRoom;
+import com.example.myfirebaseapp.models.ChatUpload;
+import com.example.myfirebaseapp.models.Message;
+import com.example.myfirebaseapp.models.MessageSender;
+import com.example.myfirebaseapp.repository.ChatUploadQueue;
+import com.google.gson.Gson;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(JUnit4.class)
+public class ChatUploadQueueTestUnit {
+
+    private static ChatUpload createUpload() {
+        return new ChatUpload("upload1", ChatRoom.lunch("2020-06-15", "place1", "Le Zinc"), "hello",
+                new MessageSender("uid1", "Alice", null, false), "/files/upload1.webp", "/files/upload1_thumb.webp");
+    }
+
+    @Test
+    public void retryDelayDoublesUpToTheMaximum() {
+        assertEquals(ChatUploadQueue.BASE_RETRY_DELAY_MILLIS, ChatUploadQueue.getRetryDelayMillis(1));
+        assertEquals(ChatUploadQueue.BASE_RETRY_DELAY_MILLIS * 2, ChatUploadQueue.getRetryDelayMillis(2));
+        assertEquals(ChatUploadQueue.BASE_RETRY_DELAY_MILLIS * 8, ChatUploadQueue.getRetryDelayMillis(4));
+        assertEquals(ChatUploadQueue.MAX_RETRY_DELAY_MILLIS, ChatUploadQueue.getRetryDelayMillis(ChatUploadQueue.MAX_ATTEMPTS));
+        assertEquals(ChatUploadQueue.MAX_RETRY_DELAY_MILLIS, ChatUploadQueue.getRetryDelayMillis(1000));
+    }
+
+    @Test
+    public void statusIsIdleOnlyWithoutQueuedNorRunningUploads() {
+        assertTrue(new ChatUploadQueue.Status(0, 0, 0, 0, 1).isIdle());
+        assertFalse(new ChatUploadQueue.Status(1, 0, 0, 0, 0).isIdle());
+        assertFalse(new ChatUploadQueue.Status(0, 1, 512, 2048, 0).isIdle());
+    }
+
+    @Test
+    public void savedUploadResumesWhereItStopped() {
+        ChatUpload upload = createUpload();
+        upload.setUrlThumbnail("https://thumbnail");
+        upload.setImageSessionUri("https://session");
+        upload.setAttempts(3);
+
+        Gson gson = new Gson();
+        ChatUpload restored = gson.fromJson(gson.toJson(upload), ChatUpload.class);
+
+        assertEquals("https://thumbnail", restored.getUrlThumbnail());
+        assertEquals("https://session", restored.getImageSessionUri());
+        assertEquals(3, restored.getAttempts());
+        assertEquals("lunch_2020-06-15_place1", restored.getRoom().getId());
+        assertEquals("Le Zinc", restored.getRoom().getName());
+        assertEquals("Alice", restored.getSender().getUsername());
+    }
+
+    @Test
+    public void messageIsOnlyReadyWithBothUrls() {
+        ChatUpload upload = createUpload();
+        assertFalse(upload.isUploaded());
+
+        upload.setUrlThumbnail("https://thumbnail");
+        assertFalse(upload.isUploaded());
+
+        upload.setUrlImage("https://image");
+        assertTrue(upload.isUploaded());
+
+        Message message = upload.toMessage();
+        assertEquals("hello", message.getMessage());
+        assertEquals("https://image", message.getUrlImage());
+        assertEquals("https://thumbnail", message.resolveThumbnail());
+        assertEquals("uid1", message.resolveSender().getUid());
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.myfirebaseapp;
+
+import com.example.myfirebaseapp.repository.ChatWindow;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(JUnit4.class)
+public class ChatWindowTestUnit {
+
+    @Test
+    public void olderPageIsLoadedNearTheTop() {
+        assertTrue(ChatWindow.shouldLoadOlder(2, ChatWindow.PREFETCH_DISTANCE));
+        assertFalse(ChatWindow.shouldLoadOlder(20, ChatWindow.PREFETCH_DISTANCE));
+    }
+
+    @Test
+    public void emptyListLoadsNothing() {
+        assertFalse(ChatWindow.shouldLoadOlder(-1, ChatWindow.PREFETCH_DISTANCE));
+    }
+
+    @Test
+    public void pendingMessagesDoNotAnchorTheListener() {
+        // Newest first, the two newest are still being sent
+        List<String> messages = Arrays.asList("pending2", "pending1", "sent3", "sent2");
+
+        String anchor = ChatWindow.getAnchor(messages, message -> message.startsWith("sent"));
+
+        assertEquals("sent3", anchor);
+    }
+
+    @Test
+    public void chatWithOnlyPendingMessagesHasNoAnchor() {
+        assertNull(ChatWindow.getAnchor(Collections.singletonList("pending1"), message -> false));
+    }
+}
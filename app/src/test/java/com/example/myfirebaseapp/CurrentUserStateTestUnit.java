@@ -0,0 +1,98 @@
+package com.example.myfirebaseapp;
+
+import com.example.myfirebaseapp.models.User;
+import com.example.myfirebaseapp.repository.CurrentUserState;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(JUnit4.class)
+public class CurrentUserStateTestUnit {
+
+    private static final String TODAY = "2020-06-15";
+
+    private CurrentUserState state;
+
+    @Before
+    public void setUp() {
+        state = new CurrentUserState();
+        state.setServerUser(new User("uid", "Alice", null, null, 0));
+    }
+
+    @Test
+    public void nothingIsKnownBeforeTheFirstSnapshot() {
+        assertNull(new CurrentUserState().getUser(TODAY));
+    }
+
+    @Test
+    public void pendingWriteIsAppliedOptimistically() {
+        state.addPending("restaurantId", CurrentUserState.chooseRestaurant("place1", TODAY, 1200));
+
+        assertEquals("place1", state.getUser(TODAY).getRestaurantId());
+        assertEquals(1200, state.getUser(TODAY).getCurrentTime());
+    }
+
+    @Test
+    public void pendingWriteSurvivesAnOlderSnapshot() {
+        state.addPending("like/place1", CurrentUserState.like("place1"));
+        state.setServerUser(new User("uid", "Alice", null, null, 0));
+
+        assertTrue(state.getUser(TODAY).getLike().contains("place1"));
+    }
+
+    @Test
+    public void rejectedWriteIsRolledBack() {
+        CurrentUserState.Mutation like = CurrentUserState.like("place1");
+        state.addPending("like/place1", like);
+        state.acknowledge("like/place1", like);
+
+        assertFalse(state.getUser(TODAY).getLike().contains("place1"));
+    }
+
+    @Test
+    public void acknowledgedWriteIsNotAppliedTwice() {
+        User server = new User("uid", "Alice", null, null, 0);
+        server.getLike().add("place1");
+        CurrentUserState.Mutation like = CurrentUserState.like("place1");
+        state.addPending("like/place1", like);
+        state.setServerUser(server);
+
+        assertEquals(1, state.getUser(TODAY).getLike().size());
+    }
+
+    @Test
+    public void newerWriteReplacesTheOlderOne() {
+        CurrentUserState.Mutation choose = CurrentUserState.chooseRestaurant("place1", TODAY, 1200);
+        state.addPending("restaurantId", choose);
+        state.addPending("restaurantId", CurrentUserState.leaveRestaurant());
+        state.acknowledge("restaurantId", choose);
+
+        assertNull(state.getUser(TODAY).getRestaurantId());
+    }
+
+    @Test
+    public void choiceIsOnlyKeptOnItsDay() {
+        User server = new User("uid", "Alice", null, "place1", 1200);
+        server.setLunchDay("2020-06-14");
+        state.setServerUser(server);
+
+        assertNull(state.getUser(TODAY).getRestaurantId());
+    }
+
+    @Test
+    public void snapshotIsNeverModified() {
+        User server = new User("uid", "Alice", null, "place1", 0);
+        state.setServerUser(server);
+        state.addPending("restaurantId", CurrentUserState.leaveRestaurant());
+        state.getUser(TODAY);
+
+        assertEquals("place1", server.getRestaurantId());
+    }
+}
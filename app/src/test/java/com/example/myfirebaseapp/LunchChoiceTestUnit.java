@@ -0,0 +1,46 @@
+package com.example.myfirebaseapp;
+
+import com.example.myfirebaseapp.models.LunchChoice;
+import com.example.myfirebaseapp.models.User;
+import com.example.myfirebaseapp.models.api.Place;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+@RunWith(JUnit4.class)
+public class LunchChoiceTestUnit {
+
+    private final LunchChoice choice = new LunchChoice("uid", "Alice", "https://photo", "place1",
+            "Le Zinc", "12 rue de la Paix", "photoRef", "2020-06-15", 1200);
+
+    @Test
+    public void restaurantIsRebuiltFromTheSummary() {
+        Place.Result restaurant = choice.toRestaurant();
+
+        assertEquals("place1", restaurant.getPlaceId());
+        assertEquals("Le Zinc", restaurant.getName());
+        assertEquals("12 rue de la Paix", restaurant.getVicinity());
+        assertEquals("photoRef", restaurant.getPhotos().get(0).getPhotoReference());
+    }
+
+    @Test
+    public void restaurantWithoutPhotoHasNoPhotos() {
+        choice.setRestaurantPhoto(null);
+
+        assertNull(choice.toRestaurant().getPhotos());
+    }
+
+    @Test
+    public void workmateIsRebuiltFromTheChoice() {
+        User user = choice.toUser();
+
+        assertEquals("Alice", user.getUsername());
+        assertEquals("place1", user.getRestaurantId());
+        assertEquals("Le Zinc", user.getSelectedRestaurantName());
+        assertEquals("2020-06-15", user.getLunchDay());
+    }
+}
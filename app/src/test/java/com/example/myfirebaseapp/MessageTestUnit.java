@@ -1,6 +1,7 @@
 package com.example.myfirebaseapp;
 
 import com.example.myfirebaseapp.models.Message;
+import com.example.myfirebaseapp.models.MessageSender;
 import com.example.myfirebaseapp.models.User;
 
 import org.junit.Before;
@@ -11,6 +12,8 @@ import org.junit.runners.JUnit4;
 import java.util.Date;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 @RunWith(JUnit4.class)
 public class MessageTestUnit {
@@ -42,4 +45,39 @@ public class MessageTestUnit {
         assertEquals("Test_message", message.getMessage());
     }
 
+    @Test
+    public void newMessageOnlyCarriesTheSenderSnapshot() {
+        User user = new User("uid1", "Alice", "https://photo", "place1", 12);
+        user.getLike().add("place2");
+        user.setUserChat(true);
+
+        Message sent = new Message("hello", user);
+
+        assertNull(sent.getUserSender());
+        assertEquals("uid1", sent.getSender().getUid());
+        assertEquals("Alice", sent.getSender().getUsername());
+        assertEquals("https://photo", sent.getSender().getUrlPicture());
+        assertTrue(sent.getSender().getUserChat());
+    }
+
+    @Test
+    public void legacyMessageResolvesItsSenderFromTheWholeUser() {
+        Message legacy = new Message();
+        legacy.setUserSender(new User("uid1", "Alice", null, "place1", 12));
+
+        MessageSender sender = legacy.resolveSender();
+
+        assertEquals("uid1", sender.getUid());
+        assertEquals("Alice", sender.getUsername());
+    }
+
+    @Test
+    public void senderSnapshotWinsOverTheWholeUser() {
+        Message message = new Message();
+        message.setUserSender(new User("uid1", "Old name", null, "place1", 12));
+        message.setSender(new MessageSender("uid1", "Alice", null, false));
+
+        assertEquals("Alice", message.resolveSender().getUsername());
+    }
+
 }
@@ -0,0 +1,107 @@
+package com.example.myfirebaseapp;
+
+import com.example.myfirebaseapp.models.api.NearbySearch;
+import com.example.myfirebaseapp.service.PlacesRepository;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.reactivex.Observable;
+import io.reactivex.functions.Function;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.TestScheduler;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(JUnit4.class)
+public class NearbySearchPaginationTestUnit {
+
+    private static final long TOKEN_DELAY = 2000;
+
+    private TestScheduler scheduler;
+    private Map<String, Observable<NearbySearch>> pages;
+    private Function<String, Observable<NearbySearch>> nextPage;
+
+    @Before
+    public void setUp() {
+        scheduler = new TestScheduler();
+        pages = new HashMap<>();
+        nextPage = pageToken -> pages.get(pageToken);
+    }
+
+    private static NearbySearch page(String status, String nextPageToken) {
+        NearbySearch nearbySearch = new NearbySearch();
+        nearbySearch.setStatus(status);
+        nearbySearch.setNextPageToken(nextPageToken);
+        nearbySearch.setResults(new ArrayList<NearbySearch.Result>());
+        return nearbySearch;
+    }
+
+    @Test
+    public void pagesAreEmittedAsTheyArrive() {
+        pages.put("token2", Observable.just(page("OK", "token3")));
+        pages.put("token3", Observable.just(page("OK", null)));
+
+        TestObserver<NearbySearch> observer = PlacesRepository
+                .paginate(Observable.just(page("OK", "token2")), nextPage, 3, TOKEN_DELAY, scheduler)
+                .test();
+
+        observer.assertValueCount(1).assertNotComplete();
+        scheduler.advanceTimeBy(TOKEN_DELAY, TimeUnit.MILLISECONDS);
+        observer.assertValueCount(2).assertNotComplete();
+        scheduler.advanceTimeBy(TOKEN_DELAY, TimeUnit.MILLISECONDS);
+        observer.assertValueCount(3).assertComplete();
+    }
+
+    @Test
+    public void paginationStopsAtMaxPages() {
+        pages.put("token2", Observable.just(page("OK", "token3")));
+        pages.put("token3", Observable.just(page("OK", null)));
+
+        TestObserver<NearbySearch> observer = PlacesRepository
+                .paginate(Observable.just(page("OK", "token2")), nextPage, 2, TOKEN_DELAY, scheduler)
+                .test();
+        scheduler.advanceTimeBy(10, TimeUnit.SECONDS);
+
+        observer.assertValueCount(2).assertComplete();
+    }
+
+    @Test
+    public void inactiveTokenIsRequestedAgain() {
+        final AtomicInteger calls = new AtomicInteger();
+        pages.put("token2", Observable.defer(() -> calls.incrementAndGet() == 1
+                ? Observable.just(page("INVALID_REQUEST", null))
+                : Observable.just(page("OK", null))));
+
+        TestObserver<NearbySearch> observer = PlacesRepository
+                .paginate(Observable.just(page("OK", "token2")), nextPage, 3, TOKEN_DELAY, scheduler)
+                .test();
+        scheduler.advanceTimeBy(TOKEN_DELAY, TimeUnit.MILLISECONDS);
+        observer.assertValueCount(1);
+        scheduler.advanceTimeBy(TOKEN_DELAY, TimeUnit.MILLISECONDS);
+
+        observer.assertValueCount(2).assertComplete();
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void failingNextPageKeepsTheFirstPage() {
+        pages.put("token2", Observable.<NearbySearch>error(new IOException()));
+
+        TestObserver<NearbySearch> observer = PlacesRepository
+                .paginate(Observable.just(page("OK", "token2")), nextPage, 3, TOKEN_DELAY, scheduler)
+                .test();
+        scheduler.advanceTimeBy(TOKEN_DELAY, TimeUnit.MILLISECONDS);
+
+        observer.assertValueCount(1).assertNoErrors().assertComplete();
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.myfirebaseapp;
+
+import com.example.myfirebaseapp.models.api.NearbySearch;
+import com.example.myfirebaseapp.service.NearbyTileCache;
+import com.example.myfirebaseapp.utils.GeoUtils;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.reactivex.Observable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(JUnit4.class)
+public class NearbyTileCacheTestUnit {
+
+    private static final double LAT = 48.8566;
+    private static final double LNG = 2.3522;
+
+    private NearbyTileCache cache;
+    private AtomicInteger subscriptions;
+
+    @Before
+    public void setUp() {
+        cache = new NearbyTileCache(2, 60000);
+        subscriptions = new AtomicInteger();
+    }
+
+    private static NearbySearch.Result result(String placeId, double lat, double lng) {
+        NearbySearch.Location location = new NearbySearch.Location();
+        location.setLat(lat);
+        location.setLng(lng);
+        NearbySearch.Geometry geometry = new NearbySearch.Geometry();
+        geometry.setLocation(location);
+        NearbySearch.Result result = new NearbySearch.Result();
+        result.setPlaceId(placeId);
+        result.setGeometry(geometry);
+        return result;
+    }
+
+    private Observable<NearbySearch> loader(NearbySearch.Result... results) {
+        NearbySearch page = new NearbySearch();
+        page.setStatus("OK");
+        page.setResults(new ArrayList<>(Arrays.asList(results)));
+        return Observable.just(page).doOnSubscribe(disposable -> subscriptions.incrementAndGet());
+    }
+
+    // --- Geohash ---
+    @Test
+    public void geohashMatchesReferenceValue() {
+        assertEquals("u4pruydqqvj", GeoUtils.encode(57.64911, 10.40744, 11));
+    }
+
+    @Test
+    public void decodedBoundsContainTheLocation() {
+        double[] bounds = GeoUtils.decodeBounds(GeoUtils.encode(LAT, LNG, 6));
+
+        assertTrue(bounds[0] <= LAT && LAT <= bounds[2]);
+        assertTrue(bounds[1] <= LNG && LNG <= bounds[3]);
+    }
+
+    @Test
+    public void tilesAreAnEighthOfTheRadius() {
+        String tile = NearbyTileCache.tileOf(LAT, LNG, 2000);
+        double[] bounds = GeoUtils.decodeBounds(tile);
+        double height = GeoUtils.distanceMeters(bounds[0], bounds[1], bounds[2], bounds[1]);
+        double width = GeoUtils.distanceMeters(bounds[0], bounds[1], bounds[0], bounds[3]);
+
+        assertEquals(7, tile.length());
+        assertTrue(height <= 2000 / NearbyTileCache.TILE_FRACTION_OF_RADIUS);
+        assertTrue(width <= 2000 / NearbyTileCache.TILE_FRACTION_OF_RADIUS);
+    }
+
+    @Test
+    public void smallMovementKeepsTheSameTile() {
+        String tile = NearbyTileCache.tileOf(LAT, LNG, 2000);
+
+        // About 20 meters north-east, and about 500 meters north
+        assertEquals(tile, NearbyTileCache.tileOf(LAT + 0.00015, LNG + 0.0002, 2000));
+        assertNotEquals(tile, NearbyTileCache.tileOf(LAT + 0.0045, LNG, 2000));
+    }
+
+    @Test
+    public void distanceIsComputedInMeters() {
+        // Paris to Lyon is about 392 km
+        double distance = GeoUtils.distanceMeters(LAT, LNG, 45.7640, 4.8357);
+
+        assertTrue(distance > 390000 && distance < 394000);
+    }
+
+    // --- Tile cache ---
+    @Test
+    public void cachedTileIsServedWithoutNetwork() {
+        cache.get("u09tv", 2000, "restaurant", loader(result("id1", LAT, LNG))).test().assertValueCount(1);
+        cache.get("u09tv", 2000, "restaurant", loader(result("id1", LAT, LNG))).test().assertValueCount(1);
+
+        assertEquals(1, subscriptions.get());
+        assertEquals(1, cache.getIfPresent("u09tv", 2000, "restaurant").getResults().size());
+    }
+
+    @Test
+    public void tilesAreCachedPerType() {
+        cache.put("u09tv", 2000, "restaurant", Collections.singletonList(result("id1", LAT, LNG)));
+
+        assertNull(cache.getIfPresent("u09tv", 2000, "cafe"));
+    }
+
+    @Test
+    public void tilesAreCachedPerRadius() {
+        cache.put("u09tv", 2000, "restaurant", Collections.singletonList(result("id1", LAT, LNG)));
+
+        assertNull(cache.getIfPresent("u09tv", 3000, "restaurant"));
+    }
+
+    @Test
+    public void leastRecentlyUsedTileIsEvicted() {
+        List<NearbySearch.Result> results = Collections.emptyList();
+        cache.put("u09tv", 2000, "restaurant", results);
+        cache.put("u09tw", 2000, "restaurant", results);
+        cache.getIfPresent("u09tv", 2000, "restaurant");
+        cache.put("u09ty", 2000, "restaurant", results);
+
+        assertEquals(2, cache.size());
+        assertNull(cache.getIfPresent("u09tw", 2000, "restaurant"));
+        assertNotNull(cache.getIfPresent("u09tv", 2000, "restaurant"));
+    }
+
+    @Test
+    public void invalidatedTileIsReloaded() {
+        cache.put("u09tv", 2000, "restaurant", Collections.singletonList(result("id1", LAT, LNG)));
+        cache.invalidate("u09tv");
+
+        cache.get("u09tv", 2000, "restaurant", loader()).test().assertValueCount(1);
+        assertEquals(1, subscriptions.get());
+    }
+
+    @Test
+    public void expiredTileIsReloaded() {
+        cache = new NearbyTileCache(2, -1);
+        cache.put("u09tv", 2000, "restaurant", Collections.<NearbySearch.Result>emptyList());
+
+        assertNull(cache.getIfPresent("u09tv", 2000, "restaurant"));
+    }
+
+    @Test
+    public void resultsOutsideTheRadiusAreFiltered() {
+        NearbySearch page = new NearbySearch();
+        page.setStatus("OK");
+        page.setResults(Arrays.asList(result("near", LAT + 0.001, LNG), result("far", LAT + 0.05, LNG)));
+
+        NearbySearch filtered = NearbyTileCache.within(page, LAT, LNG, 2000);
+
+        assertEquals(1, filtered.getResults().size());
+        assertEquals("near", filtered.getResults().get(0).getPlaceId());
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.myfirebaseapp;
+
+import com.example.myfirebaseapp.models.api.Place;
+import com.example.myfirebaseapp.service.DetailsTier;
+import com.example.myfirebaseapp.service.PlaceDetailsCache;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.reactivex.Observable;
+import io.reactivex.subjects.PublishSubject;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+@RunWith(JUnit4.class)
+public class PlaceDetailsCacheTestUnit {
+
+    private PlaceDetailsCache cache;
+    private AtomicInteger subscriptions;
+
+    @Before
+    public void setUp() {
+        cache = new PlaceDetailsCache(2, 60000);
+        subscriptions = new AtomicInteger();
+    }
+
+    private static Place place(String placeId) {
+        Place.Result result = new Place.Result();
+        result.setPlaceId(placeId);
+        Place place = new Place();
+        place.setResult(result);
+        place.setStatus("OK");
+        return place;
+    }
+
+    private Observable<Place> loader(Observable<Place> source) {
+        return source.doOnSubscribe(disposable -> subscriptions.incrementAndGet());
+    }
+
+    @Test
+    public void concurrentRequestsShareOneCall() {
+        PublishSubject<Place> network = PublishSubject.create();
+        Place place = place("id1");
+
+        cache.get("id1", DetailsTier.CARD, loader(network)).test();
+        cache.get("id1", DetailsTier.CARD, loader(network)).test();
+        network.onNext(place);
+        network.onComplete();
+
+        assertEquals(1, subscriptions.get());
+        assertSame(place, cache.getIfPresent("id1", DetailsTier.CARD));
+    }
+
+    @Test
+    public void freshEntryIsServedWithoutNetwork() {
+        Place place = place("id1");
+        cache.put("id1", DetailsTier.CARD, place);
+
+        cache.get("id1", DetailsTier.CARD, loader(Observable.just(place("id1")))).test().assertValue(place);
+
+        assertEquals(0, subscriptions.get());
+    }
+
+    @Test
+    public void expiredEntryIsReloaded() {
+        cache = new PlaceDetailsCache(2, -1);
+        cache.put("id1", DetailsTier.CARD, place("id1"));
+
+        assertNull(cache.getIfPresent("id1", DetailsTier.CARD));
+        cache.get("id1", DetailsTier.CARD, loader(Observable.just(place("id1")))).test().assertValueCount(1);
+        assertEquals(1, subscriptions.get());
+    }
+
+    @Test
+    public void leastRecentlyUsedEntryIsEvicted() {
+        cache.put("id1", DetailsTier.CARD, place("id1"));
+        cache.put("id2", DetailsTier.CARD, place("id2"));
+        cache.getIfPresent("id1", DetailsTier.CARD);
+        cache.put("id3", DetailsTier.CARD, place("id3"));
+
+        assertEquals(2, cache.size());
+        assertNull(cache.getIfPresent("id2", DetailsTier.CARD));
+    }
+
+    @Test
+    public void fullEntryAnswersSmallerTiers() {
+        Place place = place("id1");
+        cache.put("id1", DetailsTier.FULL, place);
+
+        assertSame(place, cache.getIfPresent("id1", DetailsTier.CARD));
+        assertSame(place, cache.getIfPresent("id1", DetailsTier.CONTACT));
+    }
+
+    @Test
+    public void cardEntryDoesNotAnswerContactTier() {
+        cache.put("id1", DetailsTier.CARD, place("id1"));
+
+        assertNull(cache.getIfPresent("id1", DetailsTier.CONTACT));
+    }
+
+    @Test
+    public void failedResponseIsNotCached() {
+        Place notFound = new Place();
+        notFound.setStatus("NOT_FOUND");
+        cache.put("id1", DetailsTier.CARD, notFound);
+
+        assertNull(cache.getIfPresent("id1", DetailsTier.CARD));
+    }
+}
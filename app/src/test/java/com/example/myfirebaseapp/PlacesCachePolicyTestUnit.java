@@ -0,0 +1,90 @@
+package com.example.myfirebaseapp;
+
+import com.example.myfirebaseapp.service.PlacesCachePolicy;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.IOException;
+
+import okhttp3.CacheControl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(JUnit4.class)
+public class PlacesCachePolicyTestUnit {
+
+    private static final String DETAILS_PATH = "/maps/api/place/details/json?place_id=place1";
+    private static final String OK_BODY = "{\"status\" : \"OK\", \"result\" : {\"name\" : \"Le Zinc\"}}";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private MockWebServer server;
+    private PlacesCachePolicy cachePolicy;
+    private OkHttpClient client;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        cachePolicy = new PlacesCachePolicy(folder.newFolder());
+        client = new OkHttpClient.Builder()
+                .cache(cachePolicy.getCache())
+                .addInterceptor(cachePolicy.getStaleIfErrorInterceptor())
+                .addNetworkInterceptor(cachePolicy.getFreshnessInterceptor())
+                .build();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+        cachePolicy.getCache().close();
+    }
+
+    private Response get(CacheControl cacheControl) throws IOException {
+        return client.newCall(new Request.Builder()
+                .url(server.url(DETAILS_PATH))
+                .cacheControl(cacheControl)
+                .build()).execute();
+    }
+
+    @Test
+    public void serverErrorIsAnsweredWithTheCachedResponse() throws IOException {
+        server.enqueue(new MockResponse().setBody(OK_BODY));
+        server.enqueue(new MockResponse().setResponseCode(503).setBody("unavailable"));
+
+        try (Response first = get(new CacheControl.Builder().build())) {
+            assertEquals(OK_BODY, first.body().string());
+        }
+        // Skips the fresh cache entry so that the request reaches the failing server
+        try (Response second = get(CacheControl.FORCE_NETWORK)) {
+            assertEquals(200, second.code());
+            assertEquals(OK_BODY, second.body().string());
+        }
+        assertEquals(2, server.getRequestCount());
+        assertEquals(1, cachePolicy.getStaleIfErrorCount());
+    }
+
+    @Test
+    public void serverErrorWithoutCachedResponseIsReturned() throws IOException {
+        server.enqueue(new MockResponse().setResponseCode(503).setHeader("Retry-After", "30").setBody("unavailable"));
+
+        try (Response response = get(new CacheControl.Builder().build())) {
+            assertEquals(503, response.code());
+            assertEquals("30", response.header("Retry-After"));
+            assertEquals("unavailable", response.body().string());
+        }
+        assertEquals(0, cachePolicy.getStaleIfErrorCount());
+    }
+}
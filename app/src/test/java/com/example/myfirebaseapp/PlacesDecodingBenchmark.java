@@ -0,0 +1,112 @@
+package com.example.myfirebaseapp;
+
+import com.example.myfirebaseapp.models.api.Autocomplete;
+import com.example.myfirebaseapp.models.api.NearbySearch;
+import com.example.myfirebaseapp.models.api.Place;
+import com.example.myfirebaseapp.service.PlacesTypeAdapterFactory;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Benchmarks the streaming decoders of {@link PlacesTypeAdapterFactory} against the reflective
+ * Gson model path on recorded Places responses, in time and allocated bytes per decode. Skipped
+ * by the regular unit run, run with {@code ./gradlew test -PplacesBenchmark}, the results being
+ * printed to the output of the test.
+ */
+@RunWith(JUnit4.class)
+public class PlacesDecodingBenchmark {
+
+    public static final String ENABLED_PROPERTY = "placesBenchmark";
+    private static final int WARM_UP_ITERATIONS = 200;
+    private static final int BENCHMARK_ITERATIONS = 2000;
+
+    private Gson reflectiveGson;
+    private Gson streamingGson;
+
+    @Before
+    public void setUp() {
+        assumeTrue("run with -P" + ENABLED_PROPERTY, Boolean.getBoolean(ENABLED_PROPERTY));
+
+        reflectiveGson = new Gson();
+        streamingGson = new GsonBuilder()
+                .registerTypeAdapterFactory(new PlacesTypeAdapterFactory())
+                .create();
+    }
+
+    @Test
+    public void nearbySearch() throws IOException {
+        report("nearby search", readFixture("places/nearby_search.json"), NearbySearch.class);
+    }
+
+    @Test
+    public void placeDetails() throws IOException {
+        report("place details", readFixture("places/place_details.json"), Place.class);
+    }
+
+    @Test
+    public void autocomplete() throws IOException {
+        report("autocomplete", readFixture("places/autocomplete.json"), Autocomplete.class);
+    }
+
+    private void report(String name, String json, Class<?> type) {
+        long[] reflective = measure(reflectiveGson, json, type);
+        long[] streaming = measure(streamingGson, json, type);
+        System.out.println(String.format("%s: reflective %d us / %d bytes per decode, streaming %d us / %d bytes per decode",
+                name, reflective[0], reflective[1], streaming[0], streaming[1]));
+    }
+
+    /**
+     * @return the average time in microseconds and the average allocated bytes of one decode,
+     * allocated bytes being -1 when the JVM cannot measure them.
+     */
+    private static long[] measure(Gson gson, String json, Class<?> type) {
+        for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+            gson.fromJson(json, type);
+        }
+
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+            gson.fromJson(json, type);
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocatedAfter = allocatedBytes();
+
+        long allocated = allocatedBefore < 0 ? -1 : (allocatedAfter - allocatedBefore) / BENCHMARK_ITERATIONS;
+        return new long[]{elapsed / 1000 / BENCHMARK_ITERATIONS, allocated};
+    }
+
+    private static long allocatedBytes() {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threadMXBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    private String readFixture(String path) throws IOException {
+        InputStream inputStream = getClass().getClassLoader().getResourceAsStream(path);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = inputStream.read(buffer)) != -1) {
+            outputStream.write(buffer, 0, read);
+        }
+        inputStream.close();
+        return new String(outputStream.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
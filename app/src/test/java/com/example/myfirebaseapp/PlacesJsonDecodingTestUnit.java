@@ -0,0 +1,143 @@
+package com.example.myfirebaseapp;
+
+import com.example.myfirebaseapp.models.api.Autocomplete;
+import com.example.myfirebaseapp.models.api.NearbySearch;
+import com.example.myfirebaseapp.models.api.Place;
+import com.example.myfirebaseapp.models.api.Restaurant;
+import com.example.myfirebaseapp.service.PlacesTypeAdapterFactory;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Compares the streaming decoders of {@link PlacesTypeAdapterFactory} with the reflective Gson
+ * model path on recorded Places responses.
+ */
+@RunWith(JUnit4.class)
+public class PlacesJsonDecodingTestUnit {
+
+    private Gson reflectiveGson;
+    private Gson streamingGson;
+    private String nearbySearchJson;
+    private String placeDetailsJson;
+    private String autocompleteJson;
+
+    @Before
+    public void setUp() throws IOException {
+        reflectiveGson = new Gson();
+        streamingGson = new GsonBuilder()
+                .registerTypeAdapterFactory(new PlacesTypeAdapterFactory())
+                .create();
+        nearbySearchJson = readFixture("places/nearby_search.json");
+        placeDetailsJson = readFixture("places/place_details.json");
+        autocompleteJson = readFixture("places/autocomplete.json");
+    }
+
+    @Test
+    public void nearbySearchMatchesReflectiveModel() {
+        NearbySearch expected = reflectiveGson.fromJson(nearbySearchJson, NearbySearch.class);
+        NearbySearch actual = streamingGson.fromJson(nearbySearchJson, NearbySearch.class);
+
+        assertEquals(expected.getStatus(), actual.getStatus());
+        assertEquals(expected.getResults().size(), actual.getResults().size());
+        for (int i = 0; i < expected.getResults().size(); i++) {
+            NearbySearch.Result expectedResult = expected.getResults().get(i);
+            NearbySearch.Result actualResult = actual.getResults().get(i);
+            assertEquals(expectedResult.getPlaceId(), actualResult.getPlaceId());
+            assertEquals(expectedResult.getName(), actualResult.getName());
+            assertEquals(expectedResult.getVicinity(), actualResult.getVicinity());
+            assertEquals(expectedResult.getGeometry().getLocation().getLat(), actualResult.getGeometry().getLocation().getLat());
+            assertEquals(expectedResult.getGeometry().getLocation().getLng(), actualResult.getGeometry().getLocation().getLng());
+            assertEquals(expectedResult.getOpeningHours().getOpenNow(), actualResult.getOpeningHours().getOpenNow());
+            assertEquals(expectedResult.getPhotos().get(0).getPhotoReference(), actualResult.getPhotos().get(0).getPhotoReference());
+            assertEquals(1, actualResult.getPhotos().size());
+            assertNull(actualResult.getTypes());
+        }
+        assertNull(actual.getHtmlAttributions());
+    }
+
+    @Test
+    public void placeDetailsMatchesReflectiveModel() {
+        Place.Result expected = reflectiveGson.fromJson(placeDetailsJson, Place.class).getResult();
+        Place.Result actual = streamingGson.fromJson(placeDetailsJson, Place.class).getResult();
+
+        assertEquals(expected.getPlaceId(), actual.getPlaceId());
+        assertEquals(expected.getName(), actual.getName());
+        assertEquals(expected.getVicinity(), actual.getVicinity());
+        assertEquals(expected.getRating(), actual.getRating());
+        assertEquals(expected.getFormattedPhoneNumber(), actual.getFormattedPhoneNumber());
+        assertEquals(expected.getWebsite(), actual.getWebsite());
+        assertEquals(expected.getGeometry().getLocation().getLat(), actual.getGeometry().getLocation().getLat());
+        assertEquals(expected.getPhotos().get(0).getPhotoReference(), actual.getPhotos().get(0).getPhotoReference());
+        assertEquals(expected.getOpeningHours().getOpenNow(), actual.getOpeningHours().getOpenNow());
+        assertEquals(expected.getOpeningHours().getPeriods().toString(), actual.getOpeningHours().getPeriods().toString());
+        assertNull(actual.getGeometry().getViewport());
+    }
+
+    @Test
+    public void autocompleteMatchesReflectiveModel() {
+        Autocomplete expected = reflectiveGson.fromJson(autocompleteJson, Autocomplete.class);
+        Autocomplete actual = streamingGson.fromJson(autocompleteJson, Autocomplete.class);
+
+        assertEquals(expected.getPredictions().size(), actual.getPredictions().size());
+        for (int i = 0; i < expected.getPredictions().size(); i++) {
+            Autocomplete.Prediction expectedPrediction = expected.getPredictions().get(i);
+            Autocomplete.Prediction actualPrediction = actual.getPredictions().get(i);
+            assertEquals(expectedPrediction.getPlaceId(), actualPrediction.getPlaceId());
+            assertEquals(expectedPrediction.getDescription(), actualPrediction.getDescription());
+            assertEquals(expectedPrediction.getTypes(), actualPrediction.getTypes());
+            assertEquals(expectedPrediction.getStructuredFormatting().getMainText(), actualPrediction.getStructuredFormatting().getMainText());
+            assertNull(actualPrediction.getTerms());
+        }
+    }
+
+    @Test
+    public void nullLocationIsSkippedWithoutDesyncingTheReader() throws IOException {
+        String json = readFixture("places/nearby_search_null_location.json");
+        NearbySearch expected = reflectiveGson.fromJson(json, NearbySearch.class);
+        NearbySearch actual = streamingGson.fromJson(json, NearbySearch.class);
+
+        assertEquals("OK", actual.getStatus());
+        assertEquals(2, actual.getResults().size());
+        assertNull(expected.getResults().get(0).getGeometry().getLocation());
+        assertNull(actual.getResults().get(0).getGeometry().getLocation());
+        assertEquals(expected.getResults().get(0).getName(), actual.getResults().get(0).getName());
+        assertEquals(expected.getResults().get(1).getPlaceId(), actual.getResults().get(1).getPlaceId());
+        assertEquals(expected.getResults().get(1).getGeometry().getLocation().getLat(), actual.getResults().get(1).getGeometry().getLocation().getLat());
+    }
+
+    @Test
+    public void restaurantIsBuiltFromAResultWithoutLocation() throws IOException {
+        String json = readFixture("places/nearby_search_null_location.json");
+        NearbySearch.Result result = streamingGson.fromJson(json, NearbySearch.class).getResults().get(0);
+
+        Restaurant restaurant = new Restaurant(result);
+
+        assertEquals(result.getPlaceId(), restaurant.getPlaceId());
+        assertEquals(0, restaurant.getLatitude(), 0);
+    }
+
+    private String readFixture(String path) throws IOException {
+        InputStream inputStream = getClass().getClassLoader().getResourceAsStream(path);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = inputStream.read(buffer)) != -1) {
+            outputStream.write(buffer, 0, read);
+        }
+        inputStream.close();
+        return new String(outputStream.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
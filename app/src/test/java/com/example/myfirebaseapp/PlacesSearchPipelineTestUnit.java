@@ -0,0 +1,141 @@
+package com.example.myfirebaseapp;
+
+import com.example.myfirebaseapp.models.api.Place;
+import com.example.myfirebaseapp.service.PlacesSearchPipeline;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Observable;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.TestScheduler;
+import io.reactivex.subjects.PublishSubject;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(JUnit4.class)
+public class PlacesSearchPipelineTestUnit {
+
+    private static final long DEBOUNCE = 300;
+
+    private TestScheduler scheduler;
+    private List<String> autocompleteInputs;
+    private List<String> sessionTokens;
+    private int nearbyCount;
+    private PublishSubject<List<Place>> autocompleteResults;
+    private PlacesSearchPipeline pipeline;
+
+    @Before
+    public void setUp() {
+        scheduler = new TestScheduler();
+        autocompleteInputs = new ArrayList<>();
+        sessionTokens = new ArrayList<>();
+        autocompleteResults = PublishSubject.create();
+        pipeline = new PlacesSearchPipeline(new PlacesSearchPipeline.Source() {
+            @Override
+            public Observable<List<Place>> nearby() {
+                nearbyCount++;
+                return Observable.just(Collections.<Place>emptyList());
+            }
+
+            @Override
+            public Observable<List<Place>> autocomplete(String input, String sessionToken) {
+                autocompleteInputs.add(input);
+                sessionTokens.add(sessionToken);
+                return autocompleteResults;
+            }
+        }, DEBOUNCE, scheduler);
+    }
+
+    private void type(String text) {
+        for (int i = 1; i <= text.length(); i++) {
+            pipeline.setQuery(text.substring(0, i));
+            scheduler.advanceTimeBy(50, TimeUnit.MILLISECONDS);
+        }
+        scheduler.advanceTimeBy(DEBOUNCE, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void typingANameRunsOneSearch() {
+        pipeline.results().test();
+
+        type("restaurant");
+
+        assertEquals(Collections.singletonList("restaurant"), autocompleteInputs);
+    }
+
+    @Test
+    public void sameQueryIsNotSearchedTwice() {
+        pipeline.results().test();
+
+        type("pizza");
+        pipeline.setQuery("pizza ");
+        scheduler.advanceTimeBy(DEBOUNCE, TimeUnit.MILLISECONDS);
+
+        assertEquals(1, autocompleteInputs.size());
+    }
+
+    @Test
+    public void newQueryCancelsPreviousSearch() {
+        TestObserver<List<Place>> observer = pipeline.results().test();
+
+        type("pizza");
+        assertTrue(autocompleteResults.hasObservers());
+        pipeline.setQuery("");
+        scheduler.advanceTimeBy(DEBOUNCE, TimeUnit.MILLISECONDS);
+
+        assertFalse(autocompleteResults.hasObservers());
+        assertEquals(1, nearbyCount);
+        observer.assertValueCount(1);
+    }
+
+    @Test
+    public void typingSessionSharesOneToken() {
+        pipeline.results().test();
+
+        type("pizz");
+        type("pizza");
+        String firstSession = sessionTokens.get(0);
+        assertEquals(firstSession, sessionTokens.get(1));
+
+        pipeline.setQuery("");
+        scheduler.advanceTimeBy(DEBOUNCE, TimeUnit.MILLISECONDS);
+        type("sushi");
+
+        assertNotEquals(firstSession, sessionTokens.get(2));
+    }
+
+    @Test
+    public void endedSessionTokenIsTheOneOfTheTypingSession() {
+        pipeline.results().test();
+
+        type("pizza");
+
+        assertEquals(sessionTokens.get(0), pipeline.endSession());
+        assertNull(pipeline.endSession());
+
+        type("sushi");
+        assertNotEquals(sessionTokens.get(0), sessionTokens.get(1));
+    }
+
+    @Test
+    public void refreshRunsCurrentQueryAgain() {
+        pipeline.results().test();
+
+        pipeline.refresh();
+        pipeline.refresh();
+
+        assertEquals(2, nearbyCount);
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.myfirebaseapp;
+
+import com.example.myfirebaseapp.models.LunchChoice;
+import com.example.myfirebaseapp.service.RestaurantNameResolver;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(JUnit4.class)
+public class RestaurantNameResolverTestUnit {
+
+    private static LunchChoice choice(String uid, String placeId, String restaurantName) {
+        return new LunchChoice(uid, uid, null, placeId, restaurantName, null, null, "2020-06-15", 1200);
+    }
+
+    @Test
+    public void eachMissingRestaurantIsRequestedOnce() {
+        List<LunchChoice> choices = Arrays.asList(
+                choice("alice", "place1", null),
+                choice("bob", "place1", null),
+                choice("carol", "place2", null));
+
+        Set<String> missing = RestaurantNameResolver.getMissingPlaceIds(choices, Collections.emptyMap());
+
+        assertEquals(2, missing.size());
+        assertTrue(missing.contains("place1"));
+        assertTrue(missing.contains("place2"));
+    }
+
+    @Test
+    public void knownRestaurantsAreNotRequested() {
+        List<LunchChoice> choices = Arrays.asList(
+                choice("alice", "place1", "Le Zinc"),
+                choice("bob", "place2", null));
+
+        Set<String> missing = RestaurantNameResolver.getMissingPlaceIds(choices,
+                Collections.singletonMap("place2", "Chez Paul"));
+
+        assertTrue(missing.isEmpty());
+    }
+
+    @Test
+    public void namesOfTheChoicesAnswerTheOlderChoices() {
+        RestaurantNameResolver resolver = new RestaurantNameResolver(placeId -> null, 10, 2);
+        resolver.remember(Collections.singletonList(choice("alice", "place1", "Le Zinc")));
+
+        List<LunchChoice> olderChoices = Collections.singletonList(choice("bob", "place1", null));
+        Map<String, String> names = resolver.getNames(olderChoices);
+
+        assertTrue(RestaurantNameResolver.getMissingPlaceIds(olderChoices, resolver.getKnownNames()).isEmpty());
+        assertEquals("Le Zinc", names.get("place1"));
+    }
+
+    @Test
+    public void leastRecentlyUsedNameIsEvicted() {
+        RestaurantNameResolver resolver = new RestaurantNameResolver(placeId -> null, 2, 2);
+        resolver.put("place1", "Le Zinc");
+        resolver.put("place2", "Chez Paul");
+        resolver.put("place3", "Sushi Bar");
+
+        assertFalse(resolver.getKnownNames().containsKey("place1"));
+        assertEquals(2, resolver.getKnownNames().size());
+    }
+}
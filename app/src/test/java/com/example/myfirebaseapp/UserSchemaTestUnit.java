@@ -0,0 +1,91 @@
+package com.example.myfirebaseapp;
+
+import com.example.myfirebaseapp.models.User;
+import com.example.myfirebaseapp.repository.UserSchema;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(JUnit4.class)
+public class UserSchemaTestUnit {
+
+    private static Map<String, Object> legacyUser() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("uid", "15000");
+        data.put(UserSchema.LEGACY_USERNAME_FIELD, "Diana Jolie");
+        data.put(UserSchema.LEGACY_RESTAURANT_ID_FIELD, "place1");
+        data.put(UserSchema.LEGACY_LIKE_FIELD, Arrays.asList("place1", "place2"));
+        data.put(UserSchema.LIKE_FIELD, Collections.singletonList("place3"));
+        return data;
+    }
+
+    @Test
+    public void legacyFieldsConvergeOnTheCanonicalOnes() {
+        Map<String, Object> migrated = UserSchema.migrate(legacyUser(), UserSchema.MIGRATIONS);
+
+        assertEquals("Diana Jolie", migrated.get(UserSchema.USERNAME_FIELD));
+        assertEquals("place1", migrated.get(UserSchema.RESTAURANT_ID_FIELD));
+        assertEquals(Arrays.asList("place3", "place1", "place2"), migrated.get(UserSchema.LIKE_FIELD));
+        assertFalse(migrated.containsKey(UserSchema.LEGACY_USERNAME_FIELD));
+        assertFalse(migrated.containsKey(UserSchema.LEGACY_RESTAURANT_ID_FIELD));
+        assertFalse(migrated.containsKey(UserSchema.LEGACY_LIKE_FIELD));
+        assertEquals(User.SCHEMA_VERSION, UserSchema.getVersion(migrated));
+    }
+
+    @Test
+    public void canonicalFieldsWinOverTheLegacyOnes() {
+        Map<String, Object> data = legacyUser();
+        data.put(UserSchema.USERNAME_FIELD, "Sarah Jones");
+        data.put(UserSchema.RESTAURANT_ID_FIELD, "place9");
+
+        Map<String, Object> migrated = UserSchema.migrate(data, UserSchema.MIGRATIONS);
+
+        assertEquals("Sarah Jones", migrated.get(UserSchema.USERNAME_FIELD));
+        assertEquals("place9", migrated.get(UserSchema.RESTAURANT_ID_FIELD));
+    }
+
+    @Test
+    public void documentOfTheLastVersionIsLeftUnchanged() {
+        Map<String, Object> data = legacyUser();
+        data.put(UserSchema.SCHEMA_VERSION_FIELD, (long) User.SCHEMA_VERSION);
+
+        Map<String, Object> migrated = UserSchema.migrate(data, UserSchema.MIGRATIONS);
+
+        assertTrue(UserSchema.getChangedFields(data, migrated).isEmpty());
+        assertTrue(UserSchema.getRemovedFields(data, migrated).isEmpty());
+    }
+
+    @Test
+    public void changesAreTheDifferenceOfTheDocuments() {
+        Map<String, Object> data = legacyUser();
+        Map<String, Object> migrated = UserSchema.migrate(data, UserSchema.MIGRATIONS);
+
+        Map<String, Object> changed = UserSchema.getChangedFields(data, migrated);
+
+        assertEquals(4, changed.size());
+        assertFalse(changed.containsKey("uid"));
+        assertEquals(3, UserSchema.getRemovedFields(data, migrated).size());
+    }
+
+    @Test
+    public void listWhichOnlyGainedElementsIsAnArrayUnion() {
+        List<Object> added = UserSchema.getAddedElements(Collections.singletonList("place3"),
+                Arrays.asList("place3", "place1"));
+
+        assertEquals(Collections.singletonList("place1"), added);
+        assertNull(UserSchema.getAddedElements(Arrays.asList("place3", "place1"),
+                Collections.singletonList("place3")));
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.myfirebaseapp;
+
+import com.example.myfirebaseapp.models.LunchChoice;
+import com.example.myfirebaseapp.repository.CurrentUserState;
+import com.example.myfirebaseapp.repository.UserWriteOutbox;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.schedulers.TestScheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(JUnit4.class)
+public class UserWriteOutboxTestUnit {
+
+    private static final long WINDOW = 500;
+
+    private TestScheduler scheduler;
+    private List<List<UserWriteOutbox.Write>> batches;
+    private List<UserWriteOutbox.Write> cancelled;
+    private UserWriteOutbox outbox;
+
+    @Before
+    public void setUp() {
+        scheduler = new TestScheduler();
+        batches = new ArrayList<>();
+        cancelled = new ArrayList<>();
+        outbox = new UserWriteOutbox(new UserWriteOutbox.Sender() {
+            @Override
+            public void send(List<UserWriteOutbox.Write> writes) {
+                batches.add(writes);
+            }
+
+            @Override
+            public void cancel(UserWriteOutbox.Write write) {
+                cancelled.add(write);
+            }
+        }, WINDOW, scheduler);
+    }
+
+    private void tapLike(boolean liked) {
+        outbox.enqueue(UserWriteOutbox.Write.like("place1", false, liked, CurrentUserState.like("place1")));
+        scheduler.advanceTimeBy(50, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void burstOfTogglesIsSentOnce() {
+        tapLike(true);
+        tapLike(false);
+        tapLike(true);
+        scheduler.advanceTimeBy(WINDOW, TimeUnit.MILLISECONDS);
+
+        assertEquals(1, batches.size());
+        assertEquals(1, batches.get(0).size());
+        assertTrue(batches.get(0).get(0).isLiked());
+    }
+
+    @Test
+    public void togglesBackToTheSavedValueAreNotSent() {
+        tapLike(true);
+        tapLike(false);
+        scheduler.advanceTimeBy(WINDOW, TimeUnit.MILLISECONDS);
+
+        assertTrue(batches.isEmpty());
+        assertFalse(cancelled.isEmpty());
+        assertEquals(0, outbox.size());
+    }
+
+    @Test
+    public void differentFieldsAreSentInOneBatch() {
+        tapLike(true);
+        LunchChoice choice = new LunchChoice("uid", "Alice", null, "place2", "Le Zinc", "12 rue de la Paix", null, "2020-06-15", 1200);
+        outbox.enqueue(UserWriteOutbox.Write.chooseRestaurant(null, choice,
+                CurrentUserState.chooseRestaurant("place2", "2020-06-15", 1200)));
+        scheduler.advanceTimeBy(WINDOW, TimeUnit.MILLISECONDS);
+
+        assertEquals(1, batches.size());
+        assertEquals(2, batches.get(0).size());
+    }
+
+    @Test
+    public void leavingTheSavedRestaurantIsSent() {
+        outbox.enqueue(UserWriteOutbox.Write.chooseRestaurant("place1", null,
+                CurrentUserState.leaveRestaurant()));
+        outbox.flush();
+
+        assertEquals(1, batches.size());
+        assertNull(batches.get(0).get(0).getPlaceId());
+        assertEquals("place1", batches.get(0).get(0).getSavedPlaceId());
+    }
+
+    @Test
+    public void nothingIsSentBeforeTheWindowEnds() {
+        tapLike(true);
+        scheduler.advanceTimeBy(WINDOW / 2, TimeUnit.MILLISECONDS);
+
+        assertTrue(batches.isEmpty());
+        assertEquals(1, outbox.size());
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.myfirebaseapp;
+
+import com.example.myfirebaseapp.repository.WorkmateCounts;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(JUnit4.class)
+public class WorkmateCountsTestUnit {
+
+    private WorkmateCounts counts;
+
+    @Before
+    public void setUp() {
+        counts = new WorkmateCounts();
+    }
+
+    @Test
+    public void choicesAreCountedPerRestaurant() {
+        counts.apply("uid1", "place1");
+        counts.apply("uid2", "place1");
+        counts.apply("uid3", "place2");
+
+        assertEquals(2, counts.getCount("place1"));
+        assertEquals(1, counts.getCount("place2"));
+        assertEquals(0, counts.getCount("place3"));
+    }
+
+    @Test
+    public void changingRestaurantMovesTheCount() {
+        counts.apply("uid1", "place1");
+
+        assertEquals(new HashSet<>(Arrays.asList("place1", "place2")), counts.apply("uid1", "place2"));
+        assertEquals(0, counts.getCount("place1"));
+        assertEquals(1, counts.getCount("place2"));
+    }
+
+    @Test
+    public void removedChoiceDecrementsTheCount() {
+        counts.apply("uid1", "place1");
+
+        assertEquals(Collections.singleton("place1"), counts.apply("uid1", null));
+        assertEquals(0, counts.getCount("place1"));
+    }
+
+    @Test
+    public void unchangedChoiceNotifiesNothing() {
+        counts.apply("uid1", "place1");
+
+        assertTrue(counts.apply("uid1", "place1").isEmpty());
+        assertTrue(counts.apply("uid2", null).isEmpty());
+        assertEquals(1, counts.getCount("place1"));
+    }
+
+    @Test
+    public void shardCountsAreSummedPerRestaurant() {
+        counts.apply("restaurants/place1/shards/0", "place1", 2);
+        counts.apply("restaurants/place1/shards/3", "place1", 1);
+
+        assertEquals(Collections.singleton("place1"), counts.apply("restaurants/place1/shards/0", "place1", 1));
+        assertEquals(2, counts.getCount("place1"));
+
+        counts.apply("restaurants/place1/shards/3", "place1", 0);
+        assertEquals(1, counts.getCount("place1"));
+    }
+}
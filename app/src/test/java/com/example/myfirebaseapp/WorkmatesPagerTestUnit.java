@@ -0,0 +1,47 @@
+package com.example.myfirebaseapp;
+
+import com.example.myfirebaseapp.repository.WorkmatesPager;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(JUnit4.class)
+public class WorkmatesPagerTestUnit {
+
+    private static final List<Integer> SIZES = Arrays.asList(25, 25, 25);
+
+    @Test
+    public void rowIsFoundInItsPage() {
+        assertEquals(0, WorkmatesPager.pageOf(0, SIZES));
+        assertEquals(0, WorkmatesPager.pageOf(24, SIZES));
+        assertEquals(1, WorkmatesPager.pageOf(25, SIZES));
+        assertEquals(2, WorkmatesPager.pageOf(74, SIZES));
+    }
+
+    @Test
+    public void pagesChangedByTheirListenerAreTakenIntoAccount() {
+        // A workmate was removed from the first page
+        List<Integer> sizes = Arrays.asList(24, 25);
+
+        assertEquals(1, WorkmatesPager.pageOf(24, sizes));
+    }
+
+    @Test
+    public void rowAfterTheLoadedPagesBelongsToTheLastPage() {
+        assertEquals(2, WorkmatesPager.pageOf(200, SIZES));
+    }
+
+    @Test
+    public void nextPageIsLoadedNearTheEnd() {
+        assertFalse(WorkmatesPager.shouldLoadMore(10, 50, WorkmatesPager.PREFETCH_DISTANCE));
+        assertTrue(WorkmatesPager.shouldLoadMore(40, 50, WorkmatesPager.PREFETCH_DISTANCE));
+    }
+}